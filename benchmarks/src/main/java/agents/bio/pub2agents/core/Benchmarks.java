@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH benchmarks with the usual JMH command-line options, but writes results as JSON to jmh-result.json by default
+public final class Benchmarks {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		if (commandLineOptions.shouldHelp()) {
+			commandLineOptions.showHelp();
+			return;
+		}
+		if (commandLineOptions.shouldList()) {
+			new Runner(commandLineOptions).list();
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+		if (!commandLineOptions.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!commandLineOptions.getResult().hasValue()) {
+			options.result("jmh-result.json");
+		}
+		new Runner(options.build()).run();
+	}
+}
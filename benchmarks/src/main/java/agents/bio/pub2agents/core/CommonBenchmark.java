@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.edamontology.edammap.core.input.json.DocumentationType;
+import org.edamontology.edammap.core.input.json.DownloadType;
+import org.edamontology.edammap.core.input.json.LinkType;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommonBenchmark {
+
+	private List<String> links;
+
+	private List<String[]> acronyms;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		links = Fixtures.lines("links.txt");
+		acronyms = Fixtures.columns("acronyms.txt");
+	}
+
+	// isAcronym before patterns were compiled once per acronym, kept for comparison
+	private static boolean isAcronymUncompiled(String acronym, String phrase, boolean allWords) {
+		acronym = acronym.trim();
+		phrase = phrase.trim().replaceAll("-", " ");
+		boolean patternValid = false;
+		String acronymPattern = "(?i)";
+		if (allWords) {
+			acronymPattern += "^";
+		} else {
+			acronymPattern += "(^| )";
+		}
+		if (phrase.indexOf(" ") > -1 && acronym.indexOf(" ") < 0) {
+			for (int i = 0; i < acronym.length(); ++i) {
+				String c = String.valueOf(acronym.charAt(i));
+				if (Common.USE_IN_PATTERN.matcher(c).matches()) {
+					if (patternValid) {
+						if (allWords) {
+							acronymPattern += "[^ ]* *";
+						} else {
+							acronymPattern += "([^ ]*|.* )";
+						}
+					}
+					patternValid = true;
+					acronymPattern += "[^ \\p{L}\\p{N}]*(\\p{L}+(?=\\p{Lu}))?" + c;
+				}
+			}
+		}
+		if (allWords) {
+			acronymPattern += "[^ ]*$";
+		}
+		if (!patternValid) {
+			return false;
+		}
+		Matcher acronymMatcher = Pattern.compile(acronymPattern).matcher(phrase);
+		if (acronymMatcher.find()) {
+			if (phrase.substring(acronymMatcher.start(), acronymMatcher.end()).trim().indexOf(" ") > -1) {
+				return true;
+			} else {
+				if (phrase.substring(acronymMatcher.end() - 1, acronymMatcher.end()).equals(" ")) {
+					if (acronymMatcher.end() - 2 >= 0) {
+						return isAcronymUncompiled(acronym, phrase.substring(0, acronymMatcher.end() - 2) + phrase.substring(acronymMatcher.end() - 1), allWords);
+					} else {
+						return false;
+					}
+				} else {
+					return isAcronymUncompiled(acronym, phrase.substring(0, acronymMatcher.end() - 1) + phrase.substring(acronymMatcher.end()), allWords);
+				}
+			}
+		} else {
+			return false;
+		}
+	}
+
+	@Benchmark
+	public void trimUrl(Blackhole blackhole) {
+		for (String link : links) {
+			blackhole.consume(Common.trimUrl(link));
+		}
+	}
+
+	@Benchmark
+	public void isAcronym(Blackhole blackhole) {
+		for (String[] acronym : acronyms) {
+			blackhole.consume(Common.isAcronym(acronym[0], acronym[1], Boolean.parseBoolean(acronym[2])));
+		}
+	}
+
+	@Benchmark
+	public void isAcronymUncompiled(Blackhole blackhole) {
+		for (String[] acronym : acronyms) {
+			blackhole.consume(isAcronymUncompiled(acronym[0], acronym[1], Boolean.parseBoolean(acronym[2])));
+		}
+	}
+
+	@Benchmark
+	public void makeBioagentsLinks(Blackhole blackhole) {
+		List<BioagentsLink<LinkType>> linkLinks = new ArrayList<>();
+		List<BioagentsLink<DownloadType>> downloadLinks = new ArrayList<>();
+		List<BioagentsLink<DocumentationType>> documentationLinks = new ArrayList<>();
+		Common.makeBioagentsLinks(links, linkLinks, downloadLinks, documentationLinks);
+		blackhole.consume(linkLinks);
+		blackhole.consume(downloadLinks);
+		blackhole.consume(documentationLinks);
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.edamontology.pubfetcher.core.common.FetcherArgs;
+import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+import org.edamontology.pubfetcher.core.db.publication.PublicationPartType;
+
+import org.edamontology.edammap.core.idf.Idf;
+import org.edamontology.edammap.core.input.json.Agent;
+import org.edamontology.edammap.core.preprocessing.PreProcessor;
+import org.edamontology.edammap.core.preprocessing.PreProcessorArgs;
+
+// Checked in fixtures of the benchmarks, so that they can be run offline
+final class Fixtures {
+
+	private static final String[] SYLLABLES = { "ba", "bio", "chem", "co", "da", "deep", "ex", "fa", "gen", "go", "hap", "in", "ka", "lo", "ma", "meta", "nu", "omi", "pa", "phy", "pro", "qu", "ra", "seq", "ta", "to", "tri", "ul", "va", "xo", "ze" };
+
+	private static final String[] WORDS = { "tool", "server", "database", "pipeline", "suite", "viewer", "predictor", "aligner", "browser", "kit" };
+
+	private Fixtures() {}
+
+	static List<String> lines(String fixture) {
+		return PubFetcher.getResource(Fixtures.class, "fixtures/" + fixture);
+	}
+
+	static List<String[]> columns(String fixture) {
+		List<String[]> columns = new ArrayList<>();
+		for (String line : lines(fixture)) {
+			columns.add(line.split("\t"));
+		}
+		return columns;
+	}
+
+	static List<Publication> publications() {
+		FetcherArgs fetcherArgs = new FetcherArgs();
+		List<Publication> publications = new ArrayList<>();
+		for (String[] columns : columns("publications.txt")) {
+			Publication publication = new Publication();
+			publication.setPmid(columns[0], PublicationPartType.pubmed_xml, "", fetcherArgs);
+			publication.setTitle(columns[1], PublicationPartType.pubmed_xml, "", fetcherArgs, false);
+			publication.setAbstract(columns[2], PublicationPartType.pubmed_xml, "", fetcherArgs, false);
+			publications.add(publication);
+		}
+		return publications;
+	}
+
+	// Idf can only be loaded from a file
+	static Idf idf() throws IOException {
+		Path idfPath = Files.createTempFile("pub2agents_benchmarks_", ".idf");
+		try {
+			try (InputStream is = Fixtures.class.getResourceAsStream("/fixtures/tf.idf")) {
+				Files.copy(is, idfPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return new Idf(idfPath.toString());
+		} finally {
+			Files.deleteIfExists(idfPath);
+		}
+	}
+
+	// same as the PreProcessor used in pass1 and pass2
+	static PreProcessor preProcessor() throws IOException {
+		PreProcessorArgs preProcessorArgs = new PreProcessorArgs();
+		preProcessorArgs.setStemming(false);
+		return new PreProcessor(preProcessorArgs);
+	}
+
+	private static String name(Random random) {
+		StringBuilder name = new StringBuilder();
+		int syllables = 2 + random.nextInt(3);
+		for (int i = 0; i < syllables; ++i) {
+			name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		if (random.nextInt(4) == 0) {
+			name.append(random.nextInt(10));
+		}
+		if (random.nextInt(3) == 0) {
+			name.append(" ").append(WORDS[random.nextInt(WORDS.length)]);
+		}
+		name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+		return name.toString();
+	}
+
+	// entries are always the same for the same size, as the seed is fixed
+	static List<Agent> bioagents(int size) {
+		Random random = new Random(1);
+		List<Agent> bioagents = new ArrayList<>();
+		for (int i = 0; i < size; ++i) {
+			Agent bioagent = new Agent();
+			String name = name(random);
+			bioagent.setName(name);
+			bioagent.setBioagentsID(name.toLowerCase(Locale.ROOT).replace(' ', '_') + (i % 7 == 0 ? "_" + i : ""));
+			String host = name.toLowerCase(Locale.ROOT).replace(" ", "");
+			switch (random.nextInt(4)) {
+			case 0: bioagent.setHomepage("https://github.com/" + SYLLABLES[random.nextInt(SYLLABLES.length)] + "lab/" + host); break;
+			case 1: bioagent.setHomepage("http://www." + host + ".org/"); break;
+			case 2: bioagent.setHomepage("https://" + SYLLABLES[random.nextInt(SYLLABLES.length)] + ".university.edu/tools/" + host); break;
+			default: bioagent.setHomepage("https://" + host + ".readthedocs.io/en/latest/"); break;
+			}
+			org.edamontology.edammap.core.input.json.Publication publication = new org.edamontology.edammap.core.input.json.Publication();
+			publication.setPmid(String.valueOf(20000000 + i));
+			if (random.nextBoolean()) {
+				publication.setDoi("10.1093/bioinformatics/bt" + i);
+			}
+			bioagent.setPublication(Collections.singletonList(publication));
+			bioagents.add(bioagent);
+		}
+		return bioagents;
+	}
+}
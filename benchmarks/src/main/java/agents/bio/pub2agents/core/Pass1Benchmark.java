@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+
+import org.edamontology.edammap.core.idf.Idf;
+import org.edamontology.edammap.core.preprocessing.PreProcessor;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Pass1Benchmark {
+
+	// 0 disables the PreProcessor cache, as entries are evicted as soon as they are added
+	@Param({ "0", "100000" })
+	int preProcessorCacheSize;
+
+	private List<Publication> publications;
+
+	private List<String> links;
+
+	private List<String> hostIgnore;
+	private List<String> beforeTier1;
+	private List<String> beforeTier2;
+	private List<String> beforeTier3;
+	private List<String> afterTier1;
+	private List<String> afterTier2;
+	private List<String> afterTier3;
+
+	private PreProcessor preProcessor;
+
+	private Idf idf;
+
+	private CachedPreProcessor cachedPreProcessor;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException {
+		publications = Fixtures.publications();
+		links = Fixtures.lines("links.txt");
+		hostIgnore = PubFetcher.getResource(Pass1.class, "pass1/host_ignore.txt");
+		beforeTier1 = PubFetcher.getResource(Pass1.class, "pass1/before_tier1.txt");
+		beforeTier2 = PubFetcher.getResource(Pass1.class, "pass1/before_tier2.txt");
+		beforeTier3 = PubFetcher.getResource(Pass1.class, "pass1/before_tier3.txt");
+		afterTier1 = PubFetcher.getResource(Pass1.class, "pass1/after_tier1.txt");
+		afterTier2 = PubFetcher.getResource(Pass1.class, "pass1/after_tier2.txt");
+		afterTier3 = PubFetcher.getResource(Pass1.class, "pass1/after_tier3.txt");
+		preProcessor = Fixtures.preProcessor();
+		idf = Fixtures.idf();
+	}
+
+	// a cache is filled during one iteration only, like it is filled during one run of pass1
+	@Setup(Level.Iteration)
+	public void setupIteration() {
+		cachedPreProcessor = new CachedPreProcessor(preProcessor, new PreProcessorCache(preProcessorCacheSize));
+	}
+
+	// makePublicationResults is benchmarked instead of makeResult, as the title parts given to makeResult are found there
+	@Benchmark
+	public void makePublicationResults(Blackhole blackhole) {
+		for (Publication publication : publications) {
+			blackhole.consume(Pass1.makePublicationResults(publication, false,
+				hostIgnore, beforeTier1, beforeTier2, beforeTier3, afterTier1, afterTier2, afterTier3,
+				cachedPreProcessor, idf, null, null));
+		}
+	}
+
+	@Benchmark
+	public void fromLink(Blackhole blackhole) {
+		for (String link : links) {
+			blackhole.consume(Pass1.fromLink(link, cachedPreProcessor, idf, hostIgnore));
+		}
+	}
+
+	// the given list is modified, so a copy is given
+	@Benchmark
+	public List<String> breakLinks() {
+		return Pass1.breakLinks(new ArrayList<>(links), links);
+	}
+
+	// the given list is modified, so a copy is given
+	@Benchmark
+	public List<String> makeFixLinks() {
+		return Pass1.makeFixLinks(new ArrayList<>(links));
+	}
+}
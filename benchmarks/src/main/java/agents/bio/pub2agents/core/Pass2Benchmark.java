@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+
+import org.edamontology.edammap.core.input.json.Agent;
+
+import agents.bio.pub2agents.core.Language.LanguageIndex;
+import agents.bio.pub2agents.core.Language.LanguageSearch;
+import agents.bio.pub2agents.core.License.LicenseIndex;
+import agents.bio.pub2agents.core.License.LicenseSearch;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Pass2Benchmark {
+
+	private static final Pattern NOT_ALPHANUM = Pattern.compile("[^\\p{L}\\p{N}]");
+
+	private static final int QUERIES_SIZE = 1000;
+
+	// size of a synthetic bio.agents, around the size of the real one
+	@Param({ "30000" })
+	int bioagentsSize;
+
+	private List<String> licenseSearches;
+	private List<String> abstractSentences;
+	private List<License> licenses;
+	private LicenseIndex licenseIndex;
+
+	private List<String> languageSearches;
+	private List<Language> languages;
+	private List<String> languageKeywords;
+	private LanguageIndex languageIndex;
+
+	private List<Agent> bioagents;
+	private List<List<String>> queryNamesExtracted;
+	private List<String> queryNamesProcessed;
+	private List<String> queryIdsCompare;
+	private List<List<String>> queryLinks;
+
+	private BioagentsIndex bioagentsIndex;
+
+	// half of queries are for existing entries and half for entries not in bio.agents
+	private List<PubIds> queryPubIds;
+	private List<String> queryNames;
+	private List<List<String>> queryNameWords;
+	private List<String> queryNameProcessed;
+	private List<String> queryIdCompare;
+	private List<String> queryLink;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		licenseSearches = Fixtures.lines("licenses.txt");
+		licenses = PubFetcher.getResource(Pass2.class, "pass2/license.txt").stream().map(l -> new License(l)).collect(Collectors.toList());
+		licenseIndex = new LicenseIndex(licenses);
+		languageSearches = Fixtures.lines("languages.txt");
+		languages = PubFetcher.getResource(Pass2.class, "pass2/language.txt").stream().map(l -> new Language(l)).collect(Collectors.toList());
+		languageKeywords = PubFetcher.getResource(Pass2.class, "pass2/language_keywords.txt");
+		languageIndex = new LanguageIndex(languages, languageKeywords);
+
+		// as in Pass2.run
+		CachedPreProcessor preProcessor = new CachedPreProcessor(Fixtures.preProcessor(), new PreProcessorCache(Common.PREPROCESSOR_CACHE_SIZE));
+		abstractSentences = new ArrayList<>();
+		for (Publication publication : Fixtures.publications()) {
+			abstractSentences.addAll(preProcessor.sentences(publication.getAbstract().getContent()));
+		}
+		bioagents = Fixtures.bioagents(bioagentsSize * 2);
+		queryNamesExtracted = new ArrayList<>();
+		queryNamesProcessed = new ArrayList<>();
+		queryIdsCompare = new ArrayList<>();
+		queryLinks = new ArrayList<>();
+		for (Agent bioagent : bioagents) {
+			List<String> queryNameExtracted = preProcessor.extract(bioagent.getName());
+			List<String> queryNameProcessed = preProcessor.process(bioagent.getName(), queryNameExtracted);
+			queryNamesExtracted.add(Arrays.asList(Common.BIOTOOLS_EXTRACTED_VERSION_TRIM.matcher(String.join(" ", queryNameExtracted)).replaceFirst("").split(" ")));
+			queryNamesProcessed.add(Common.BIOTOOLS_PROCESSED_VERSION_TRIM.matcher(String.join(" ", queryNameProcessed)).replaceFirst(""));
+			queryIdsCompare.add(NOT_ALPHANUM.matcher(Common.BIOTOOLS_PROCESSED_VERSION_TRIM.matcher(bioagent.getBioagentsID().toLowerCase(Locale.ROOT)).replaceFirst("")).replaceAll(""));
+			queryLinks.add(Arrays.asList(Common.trimUrl(bioagent.getHomepage().trim())));
+		}
+
+		// the second half of the generated entries is not indexed, but used for queries of entries not in bio.agents
+		queryPubIds = new ArrayList<>();
+		queryNames = new ArrayList<>();
+		queryNameWords = new ArrayList<>();
+		queryNameProcessed = new ArrayList<>();
+		queryIdCompare = new ArrayList<>();
+		queryLink = new ArrayList<>();
+		for (int q = 0; q < QUERIES_SIZE; ++q) {
+			int i = (q % 2 == 0 ? q * (bioagentsSize / QUERIES_SIZE) : bioagentsSize + q);
+			org.edamontology.edammap.core.input.json.Publication publication = bioagents.get(i).getPublication().get(0);
+			queryPubIds.add(new PubIds(publication.getPmid(), "", publication.getDoi() != null ? PubFetcher.normaliseDoi(publication.getDoi()) : ""));
+			queryNames.add(bioagents.get(i).getName());
+			queryNameWords.add(queryNamesExtracted.get(i));
+			queryNameProcessed.add(queryNamesProcessed.get(i));
+			queryIdCompare.add(queryIdsCompare.get(i));
+			queryLink.add(queryLinks.get(i).get(0));
+		}
+		bioagents = bioagents.subList(0, bioagentsSize);
+		queryNamesExtracted = queryNamesExtracted.subList(0, bioagentsSize);
+		queryNamesProcessed = queryNamesProcessed.subList(0, bioagentsSize);
+		queryIdsCompare = queryIdsCompare.subList(0, bioagentsSize);
+		queryLinks = queryLinks.subList(0, bioagentsSize);
+
+		bioagentsIndex = new BioagentsIndex(bioagents, queryNamesExtracted, queryNamesProcessed, queryIdsCompare, queryLinks);
+	}
+
+	// webpage licenses definitely contain a license and abstract sentences not, as in Pass2.writeResult
+	@Benchmark
+	public void licenseBestMatch(Blackhole blackhole) {
+		for (String licenseSearch : licenseSearches) {
+			blackhole.consume(new LicenseSearch(licenseSearch).bestMatch(licenseIndex, true));
+		}
+		for (String abstractSentence : abstractSentences) {
+			blackhole.consume(new LicenseSearch(abstractSentence).bestMatch(licenseIndex, false));
+		}
+	}
+
+	// trying all licenses, as without the index
+	@Benchmark
+	public void licenseBestMatchScan(Blackhole blackhole) {
+		for (String licenseSearch : licenseSearches) {
+			blackhole.consume(new LicenseSearch(licenseSearch).bestMatch(licenses, true));
+		}
+		for (String abstractSentence : abstractSentences) {
+			blackhole.consume(new LicenseSearch(abstractSentence).bestMatch(licenses, false));
+		}
+	}
+
+	// webpage languages definitely contain a language and abstract sentences not, as in Pass2.writeResult
+	@Benchmark
+	public void languageMatches(Blackhole blackhole) {
+		for (String languageSearch : languageSearches) {
+			blackhole.consume(new LanguageSearch(languageSearch).getMatches(languageIndex, true));
+		}
+		for (String abstractSentence : abstractSentences) {
+			blackhole.consume(new LanguageSearch(abstractSentence).getMatches(languageIndex, false));
+		}
+	}
+
+	// comparing to all languages and keywords, as without the index
+	@Benchmark
+	public void languageMatchesScan(Blackhole blackhole) {
+		for (String languageSearch : languageSearches) {
+			blackhole.consume(new LanguageSearch(languageSearch).getMatches(languages, true, languageKeywords));
+		}
+		for (String abstractSentence : abstractSentences) {
+			blackhole.consume(new LanguageSearch(abstractSentence).getMatches(languages, false, languageKeywords));
+		}
+	}
+
+	@Benchmark
+	public BioagentsIndex bioagentsIndex() {
+		return new BioagentsIndex(bioagents, queryNamesExtracted, queryNamesProcessed, queryIdsCompare, queryLinks);
+	}
+
+	// the lookups done for finding existing entries in Pass2.run
+	@Benchmark
+	public void existingEntries(Blackhole blackhole) {
+		for (int q = 0; q < QUERIES_SIZE; ++q) {
+			blackhole.consume(bioagentsIndex.getPublication(queryPubIds.get(q)));
+			blackhole.consume(bioagentsIndex.getName(queryNames.get(q)));
+			blackhole.consume(bioagentsIndex.getNameProcessed(queryNameProcessed.get(q), queryIdCompare.get(q)));
+			blackhole.consume(bioagentsIndex.getLink(queryLink.get(q)));
+			for (String word : queryNameWords.get(q)) {
+				blackhole.consume(bioagentsIndex.getNameWord(word));
+			}
+		}
+	}
+
+	// comparing to all entries for each lookup, as without the index
+	@Benchmark
+	public void existingEntriesScan(Blackhole blackhole) {
+		for (int q = 0; q < QUERIES_SIZE; ++q) {
+			PubIds pubIds = queryPubIds.get(q);
+			List<Integer> publicationMatches = new ArrayList<>();
+			for (int j = 0; j < bioagents.size(); ++j) {
+				if (bioagents.get(j).getPublication() == null) continue;
+				for (org.edamontology.edammap.core.input.json.Publication publicationIds : bioagents.get(j).getPublication()) {
+					if (!pubIds.getPmid().isEmpty() && publicationIds.getPmid() != null && pubIds.getPmid().equals(publicationIds.getPmid().trim())
+							|| !pubIds.getPmcid().isEmpty() && publicationIds.getPmcid() != null && pubIds.getPmcid().equals(publicationIds.getPmcid().trim())
+							|| !pubIds.getDoi().isEmpty() && publicationIds.getDoi() != null && pubIds.getDoi().equals(PubFetcher.normaliseDoi(publicationIds.getDoi().trim()))) {
+						publicationMatches.add(j);
+						break;
+					}
+				}
+			}
+			blackhole.consume(publicationMatches);
+
+			List<Integer> nameMatches = new ArrayList<>();
+			for (int j = 0; j < bioagents.size(); ++j) {
+				if (queryNames.get(q).equals(bioagents.get(j).getName())) {
+					nameMatches.add(j);
+				}
+			}
+			blackhole.consume(nameMatches);
+
+			List<Integer> nameProcessedMatches = new ArrayList<>();
+			for (int j = 0; j < bioagents.size(); ++j) {
+				if (queryNameProcessed.get(q).equals(queryNamesProcessed.get(j)) || queryIdCompare.get(q).equals(queryIdsCompare.get(j))) {
+					nameProcessedMatches.add(j);
+				}
+			}
+			blackhole.consume(nameProcessedMatches);
+
+			String link = queryLink.get(q);
+			String linkTrimmed = Common.removeLowestSubdomain(link);
+			List<Integer> linkMatches = new ArrayList<>();
+			for (int j = 0; j < bioagents.size(); ++j) {
+				for (String bioagentsLink : queryLinks.get(j)) {
+					String bioagentsLinkTrimmed = Common.removeLowestSubdomain(bioagentsLink);
+					if (link.equalsIgnoreCase(bioagentsLink) || linkTrimmed.startsWith(bioagentsLinkTrimmed) || bioagentsLinkTrimmed.startsWith(linkTrimmed)) {
+						linkMatches.add(j);
+						break;
+					}
+				}
+			}
+			blackhole.consume(linkMatches);
+
+			for (String word : queryNameWords.get(q)) {
+				List<Integer> nameWordMatches = new ArrayList<>();
+				for (int j = 0; j < bioagents.size(); ++j) {
+					if (queryNamesExtracted.get(j).contains(word)) {
+						nameWordMatches.add(j);
+					}
+				}
+				blackhole.consume(nameWordMatches);
+			}
+		}
+	}
+}
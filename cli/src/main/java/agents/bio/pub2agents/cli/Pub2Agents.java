@@ -36,9 +36,21 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.beust.jcommander.Parameter;
 
@@ -59,6 +71,7 @@ import org.edamontology.pubfetcher.core.common.PubFetcher;
 import org.edamontology.pubfetcher.core.common.Version;
 import org.edamontology.pubfetcher.core.db.Database;
 import org.edamontology.pubfetcher.core.db.DatabaseEntryType;
+import org.edamontology.pubfetcher.core.db.publication.Publication;
 import org.edamontology.pubfetcher.core.db.publication.PublicationIds;
 import org.edamontology.pubfetcher.core.fetching.Fetcher;
 
@@ -75,14 +88,20 @@ import org.edamontology.edammap.core.query.QueryType;
 
 import agents.bio.pub2agents.core.Common;
 import agents.bio.pub2agents.core.Pass1;
+import agents.bio.pub2agents.core.Pass1Engine;
+import agents.bio.pub2agents.core.Pass1Store;
 import agents.bio.pub2agents.core.Pass2;
+import agents.bio.pub2agents.core.Pass2Engine;
 import agents.bio.pub2agents.core.SelectPub;
+import agents.bio.pub2agents.core.SelectPubCache;
 import agents.bio.pub2agents.core.Test;
 
 public final class Pub2Agents {
 
 	private static Logger logger;
 
+	private static final int PIPELINE_BATCH_SIZE = 1000;
+
 	private static Step getStep(Path outputPath) throws IOException {
 		Path stepPath = outputPath.resolve(Common.STEP_FILE);
 		if (!stepPath.toFile().exists()) {
@@ -172,13 +191,15 @@ public final class Pub2Agents {
 		copy(bioagents, bioagentsTo, fetcherArgs);
 	}
 
-	private static void selectPub(Path outputPath, String date, boolean disableAgent, String custom, boolean disableNot, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException, URISyntaxException {
+	private static void selectPub(Path outputPath, String date, boolean disableAgent, String custom, boolean disableNot, int threads, String cache, SelectPubCache.Mode cacheMode, int cacheExpiry, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException, URISyntaxException {
 		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
 		Path pubPath = outputPath.resolve(Common.PUB_FILE);
 		logger.info(mainMarker, "{}Select publication IDs from Europe PMC for date {}", logPrefix, date);
+		Path cachePath = (cache != null ? Paths.get(cache) : outputPath.resolve(Common.SELECT_PUB_CACHE_DIRECTORY));
+		SelectPubCache selectPubCache = new SelectPubCache(cachePath, cacheMode, cacheExpiry);
 		try (BufferedWriter bw = Files.newBufferedWriter(pubPath, StandardCharsets.UTF_8)) {
 			List<PublicationIds> ids = new ArrayList<>();
-			ids.addAll(SelectPub.select(date, disableAgent, custom, disableNot, fetcherArgs, logPrefix));
+			ids.addAll(SelectPub.select(date, disableAgent, custom, disableNot, threads, selectPubCache, fetcherArgs, logPrefix));
 			Collections.shuffle(ids);
 			for (PublicationIds id : ids) {
 				bw.write(id.toString(true));
@@ -228,8 +249,223 @@ public final class Pub2Agents {
 		setStep(outputPath, Step.pass1);
 	}
 
-	private static void pass1(Path outputPath, PreProcessor preProcessor, String logPrefix) throws IOException {
-		Pass1.run(outputPath, preProcessor, logPrefix, null, null, null, null);
+	private static Pass1Store pass1Store(Path outputPath, Pass1Engine engine, String pass1Store, boolean disablePass1Store, PreProcessorArgs preProcessorArgs, Version version) throws IOException {
+		if (disablePass1Store) {
+			return null;
+		}
+		Path storePath = (pass1Store != null ? Paths.get(pass1Store) : outputPath.resolve(Common.PASS1_STORE_FILE));
+		return new Pass1Store(storePath, engine, outputPath.resolve(Common.IDF_FILE), preProcessorArgs, version.getVersion());
+	}
+
+	// preProcessor and one more unstemmed PreProcessor for each additional thread, as a PreProcessor can't be shared between threads
+	private static List<PreProcessor> preProcessors(PreProcessor preProcessor, int threads, PreProcessorArgs preProcessorArgs) throws IOException {
+		List<PreProcessor> preProcessors = new ArrayList<>();
+		preProcessors.add(preProcessor);
+		boolean stemming = preProcessorArgs.isStemming();
+		preProcessorArgs.setStemming(false);
+		for (int i = 1; i < threads; ++i) {
+			preProcessors.add(new PreProcessor(preProcessorArgs));
+		}
+		preProcessorArgs.setStemming(stemming);
+		return preProcessors;
+	}
+
+	private static void pass1(Path outputPath, PreProcessor preProcessor, int threads, int chunkSize, PreProcessorArgs preProcessorArgs, String pass1Store, boolean disablePass1Store, Version version, String logPrefix) throws IOException {
+		List<PreProcessor> preProcessors = preProcessors(preProcessor, threads, preProcessorArgs);
+		Pass1Engine engine = new Pass1Engine();
+		Pass1.run(engine, outputPath, preProcessors, chunkSize, logPrefix, null, null, null, null, pass1Store(outputPath, engine, pass1Store, disablePass1Store, preProcessorArgs, version));
+		setStep(outputPath, Step.fetchWeb);
+	}
+
+	private static void getFuture(Future<?> future) {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	// throws the failure of the first failed task among the finished ones
+	private static void checkFutures(List<Future<?>> futures) {
+		synchronized (futures) {
+			for (Future<?> future : futures) {
+				if (future.isDone()) {
+					getFuture(future);
+				}
+			}
+		}
+	}
+
+	private static void waitFutures(List<Future<?>> futures) {
+		synchronized (futures) {
+			for (Future<?> future : futures) {
+				getFuture(future);
+			}
+		}
+	}
+
+	// fetchPub, pass1 and fetchWeb overlapped: publications are fetched in batches and each batch is given to pass1 as soon as it is in the database,
+	// while webpages and docs found by pass1 are fetched in between the publication batches
+	// all database operations are run one at a time in the same thread, as PubFetcher opens the database file itself
+	private static void pipeline(Path outputPath, PreProcessor preProcessor, int pass1Threads, int chunkSize, PreProcessorArgs preProcessorArgs, String pass1Store, boolean disablePass1Store, Version version, int fetcherThreads, FetcherArgs fetcherArgs, LogLevel logLevel, String logPrefix) throws IOException, ParseException {
+		setStep(outputPath, Step.fetchPub);
+
+		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
+
+		String pubFile = outputPath.resolve(Common.PUB_FILE).toString();
+		String dbFile = outputPath.resolve(Common.DB_FILE).toString();
+		List<PublicationIds> publicationIdsList = PubFetcher.pubFile(Collections.singletonList(pubFile), Common.PUB_FILE);
+		logger.info(mainMarker, "{}Loaded {} publication IDs from {}", logPrefix, publicationIdsList.size(), pubFile);
+		List<PublicationIds> publicationIds = new ArrayList<>(new LinkedHashSet<>(publicationIdsList));
+		logger.info(mainMarker, "{}Fetching {} publications using PubFetcher, making pass1 results and fetching their webpages and docs as publications are fetched", logPrefix, publicationIds.size());
+
+		List<PreProcessor> preProcessors = preProcessors(preProcessor, pass1Threads, preProcessorArgs);
+
+		boolean quiet = (logLevel != LogLevel.INFO && logLevel != LogLevel.DEBUG);
+		List<Publication> end = new ArrayList<>();
+		// put instead of end when fetching a batch of publications fails, so that pass1 stops with the failure instead of finishing with the publications so far
+		List<Publication> failed = new ArrayList<>();
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		BlockingQueue<List<Publication>> blocks = new ArrayBlockingQueue<>(2);
+		List<Future<?>> futures = Collections.synchronizedList(new ArrayList<>());
+		Set<String> webpageUrlsSubmitted = new HashSet<>();
+		Set<String> docUrlsSubmitted = new HashSet<>();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (Fetcher fetcher = new Fetcher(fetcherArgs.getPrivateArgs())) {
+			List<Callable<Void>> fetchBatch = new ArrayList<>();
+			AtomicInteger batchStart = new AtomicInteger();
+			fetchBatch.add(() -> {
+				boolean last = true;
+				boolean success = false;
+				try {
+					int start = batchStart.get();
+					int stop = Math.min(start + PIPELINE_BATCH_SIZE, publicationIds.size());
+					Set<PublicationIds> batch = new LinkedHashSet<>(publicationIds.subList(start, stop));
+					PubFetcherMethods.dbFetch(null, fetcherThreads, batch, dbFile, fetcher, null, fetcherArgs, true, batch.size(), quiet, DatabaseEntryType.publication);
+					Path batchPath = Files.createTempFile(outputPath, "pub_", ".txt");
+					try {
+						try (BufferedWriter bw = Files.newBufferedWriter(batchPath, StandardCharsets.UTF_8)) {
+							for (PublicationIds id : batch) {
+								bw.write(id.toString(true));
+								bw.write("\n");
+							}
+						}
+						blocks.put(PubFetcher.getPublications(dbFile, Collections.singletonList(batchPath.toString()), Common.PUB_FILE));
+					} finally {
+						Files.deleteIfExists(batchPath);
+					}
+					batchStart.set(stop);
+					if (stop < publicationIds.size()) {
+						futures.add(executor.submit(fetchBatch.get(0)));
+						last = false;
+					} else {
+						// a crash from now on can be resumed from pass1, as all publications are in the database
+						setStep(outputPath, Step.pass1);
+					}
+					success = true;
+					return null;
+				} catch (Exception e) {
+					failure.set(e);
+					throw e;
+				} finally {
+					if (last) {
+						try {
+							blocks.put(success ? end : failed);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}
+			});
+			if (!publicationIds.isEmpty()) {
+				futures.add(executor.submit(fetchBatch.get(0)));
+			} else {
+				blocks.add(end);
+			}
+
+			Iterator<List<Publication>> publicationBlocks = new Iterator<List<Publication>>() {
+				private List<Publication> next = null;
+				@Override
+				public boolean hasNext() {
+					if (next == null) {
+						try {
+							next = blocks.take();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new RuntimeException(e);
+						}
+					}
+					if (next == failed) {
+						if (failure.get() instanceof RuntimeException) {
+							throw (RuntimeException) failure.get();
+						} else {
+							throw new RuntimeException("Fetching publications failed", failure.get());
+						}
+					}
+					// a failed fetch of webpages or docs stops pass1 at the next block
+					checkFutures(futures);
+					return next != end;
+				}
+				@Override
+				public List<Publication> next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					List<Publication> block = next;
+					next = null;
+					return block;
+				}
+			};
+
+			Pass1Engine engine = new Pass1Engine();
+			Pass1.run(engine, outputPath, preProcessors, chunkSize, logPrefix, publicationBlocks, publicationIds.size(), (webpages, docs) -> {
+				Set<String> webpageUrls = new LinkedHashSet<>();
+				for (String webpage : webpages) {
+					if (webpageUrlsSubmitted.add(webpage)) {
+						webpageUrls.add(webpage);
+					}
+				}
+				if (!webpageUrls.isEmpty()) {
+					futures.add(executor.submit(() -> {
+						PubFetcherMethods.dbFetch(null, fetcherThreads, webpageUrls, dbFile, fetcher, null, fetcherArgs, true, webpageUrls.size(), quiet, DatabaseEntryType.webpage);
+						return null;
+					}));
+				}
+				Set<String> docUrls = new LinkedHashSet<>();
+				for (String doc : docs) {
+					if (docUrlsSubmitted.add(doc)) {
+						docUrls.add(doc);
+					}
+				}
+				if (!docUrls.isEmpty()) {
+					futures.add(executor.submit(() -> {
+						PubFetcherMethods.dbFetch(null, fetcherThreads, docUrls, dbFile, fetcher, null, fetcherArgs, true, docUrls.size(), quiet, DatabaseEntryType.doc);
+						return null;
+					}));
+				}
+			}, pass1Store(outputPath, engine, pass1Store, disablePass1Store, preProcessorArgs, version));
+
+			// all tasks have been submitted by now, as pass1 has taken all publication batches
+			executor.shutdown();
+			waitFutures(futures);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		logger.info(mainMarker, "{}Fetched {} webpages and {} docs while making pass1 results", logPrefix, webpageUrlsSubmitted.size(), docUrlsSubmitted.size());
+		try (Database db = new Database(dbFile)) {
+			logger.info(mainMarker, "{}Database {} has {} publications", logPrefix, dbFile, db.getPublicationsSize());
+		}
+
+		// the remaining webpages and docs (like the ones added by pass1 only in the end) are fetched in the usual fetchWeb step
 		setStep(outputPath, Step.fetchWeb);
 	}
 
@@ -267,8 +503,9 @@ public final class Pub2Agents {
 		setStep(outputPath, Step.pass2);
 	}
 
-	private static void pass2(Path outputPath, PreProcessor preProcessor, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException {
-		Pass2.run(outputPath, preProcessor, fetcherArgs, logPrefix, null, null, null, false, null, null, null);
+	private static void pass2(Path outputPath, PreProcessor preProcessor, int threads, PreProcessorArgs preProcessorArgs, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException {
+		List<PreProcessor> preProcessors = preProcessors(preProcessor, threads, preProcessorArgs);
+		Pass2.run(new Pass2Engine(fetcherArgs.getPrivateArgs()), outputPath, preProcessors, fetcherArgs, logPrefix, null, null, null, false, null, null, null);
 		setStep(outputPath, Step.map);
 	}
 
@@ -401,6 +638,8 @@ public final class Pub2Agents {
 		PreProcessor preProcessor = new PreProcessor(args.preProcessorArgs);
 		args.preProcessorArgs.setStemming(stemming);
 
+		Common.setLinkClassifierCascade(args.linkClassifierCascade);
+
 		if (args.copyEdam != null && requiredArgs(new String[] { "edam" }, "copyEdam", args)) {
 			checkStepNone(outputPath);
 			copyEdam(outputPath, args.edam, args.fetcherArgs, "");
@@ -424,7 +663,7 @@ public final class Pub2Agents {
 		if (args.selectPub != null) {
 			String date = SelectPub.getDate(args.from, args.to, args.month, args.day, " for -select-pub");
 			checkStepNone(outputPath);
-			selectPub(outputPath, date, args.disableAgentRestriction, args.customRestriction, args.disableExclusions, args.fetcherArgs, "");
+			selectPub(outputPath, date, args.disableAgentRestriction, args.customRestriction, args.disableExclusions, args.selectPubThreads, args.selectPubCache, args.selectPubCacheMode, args.selectPubCacheExpiry, args.fetcherArgs, "");
 		}
 
 		if (args.copyPub != null && requiredArgs(new String[] { "pub" }, "copyPub", args)) {
@@ -459,7 +698,7 @@ public final class Pub2Agents {
 					throw new IllegalArgumentException("Can't run step -pass1, as database file " + dbFile + " is empty! Try running step -fetch-pub first.");
 				}
 			}
-			pass1(outputPath, preProcessor, "");
+			pass1(outputPath, preProcessor, args.pass1Threads, args.pass1ChunkSize, args.preProcessorArgs, args.pass1Store, args.disablePass1Store, version, "");
 		}
 
 		if (args.fetchWeb != null) {
@@ -480,7 +719,7 @@ public final class Pub2Agents {
 			if (!pass1Path.toFile().exists()) {
 				throw new IllegalArgumentException("Can't run step -pass2, as missing " + pass1Path.toString() + "! Try running steps -fetch-pub, -pass1 and -fetch-web first.");
 			}
-			pass2(outputPath, preProcessor, args.fetcherArgs, "");
+			pass2(outputPath, preProcessor, args.pass2Threads, args.preProcessorArgs, args.fetcherArgs, "");
 		}
 
 		if (args.map != null) {
@@ -521,7 +760,7 @@ public final class Pub2Agents {
 			if (args.pub != null) {
 				copyPub(outputPath, args.pub, args.fetcherArgs, "0/5 ");
 			} else {
-				selectPub(outputPath, date, args.disableAgentRestriction, args.customRestriction, args.disableExclusions, args.fetcherArgs, "0/5 ");
+				selectPub(outputPath, date, args.disableAgentRestriction, args.customRestriction, args.disableExclusions, args.selectPubThreads, args.selectPubCache, args.selectPubCacheMode, args.selectPubCacheExpiry, args.fetcherArgs, "0/5 ");
 			}
 			if (args.db != null) {
 				copyDb(outputPath, args.db, args.fetcherArgs, "0/5 ");
@@ -533,14 +772,19 @@ public final class Pub2Agents {
 					initDb(outputPath, "0/5 ");
 				}
 			}
-			logger.info(mainMarker, "1 step {}", Step.fetchPub);
-			fetchPub(outputPath, args.fetcherThreads, args.fetcherArgs, args.verbose, "1/5 ");
-			logger.info(mainMarker, "2 step {}", Step.pass1);
-			pass1(outputPath, preProcessor, "2/5 ");
+			if (args.pipeline) {
+				logger.info(mainMarker, "1-2 step {} and {}", Step.fetchPub, Step.pass1);
+				pipeline(outputPath, preProcessor, args.pass1Threads, args.pass1ChunkSize, args.preProcessorArgs, args.pass1Store, args.disablePass1Store, version, args.fetcherThreads, args.fetcherArgs, args.verbose, "1-2/5 ");
+			} else {
+				logger.info(mainMarker, "1 step {}", Step.fetchPub);
+				fetchPub(outputPath, args.fetcherThreads, args.fetcherArgs, args.verbose, "1/5 ");
+				logger.info(mainMarker, "2 step {}", Step.pass1);
+				pass1(outputPath, preProcessor, args.pass1Threads, args.pass1ChunkSize, args.preProcessorArgs, args.pass1Store, args.disablePass1Store, version, "2/5 ");
+			}
 			logger.info(mainMarker, "3 step {}", Step.fetchWeb);
 			fetchWeb(outputPath, args.fetcherThreads, args.fetcherArgs, args.verbose, "3/5 ");
 			logger.info(mainMarker, "4 step {}", Step.pass2);
-			pass2(outputPath, preProcessor, args.fetcherArgs, "4/5 ");
+			pass2(outputPath, preProcessor, args.pass2Threads, args.preProcessorArgs, args.fetcherArgs, "4/5 ");
 			logger.info(mainMarker, "5 step {}", Step.map);
 			map(outputPath, args.mapperThreads, args.preProcessorArgs, args.fetcherArgs, args.mapperArgs, args.verbose, version, "5/5 ");
 		}
@@ -557,13 +801,16 @@ public final class Pub2Agents {
 			}
 			logger.info(mainMarker, "Resuming from step {}", step);
 			checkSetupDone(outputPath, step);
-			if (step == Step.fetchPub) {
+			if (step == Step.fetchPub && args.pipeline) {
+				logger.info(mainMarker, "1-2 step {} and {}", Step.fetchPub, Step.pass1);
+				pipeline(outputPath, preProcessor, args.pass1Threads, args.pass1ChunkSize, args.preProcessorArgs, args.pass1Store, args.disablePass1Store, version, args.fetcherThreads, args.fetcherArgs, args.verbose, "1-2/5 ");
+			} else if (step == Step.fetchPub) {
 				logger.info(mainMarker, "1 step {}", Step.fetchPub);
 				fetchPub(outputPath, args.fetcherThreads, args.fetcherArgs, args.verbose, "1/5 ");
 			}
-			if (step == Step.fetchPub || step == Step.pass1) {
+			if (step == Step.pass1 || step == Step.fetchPub && !args.pipeline) {
 				logger.info(mainMarker, "2 step {}", Step.pass1);
-				pass1(outputPath, preProcessor, "2/5 ");
+				pass1(outputPath, preProcessor, args.pass1Threads, args.pass1ChunkSize, args.preProcessorArgs, args.pass1Store, args.disablePass1Store, version, "2/5 ");
 			}
 			if (step == Step.fetchPub || step == Step.pass1 || step == Step.fetchWeb) {
 				logger.info(mainMarker, "3 step {}", Step.fetchWeb);
@@ -571,7 +818,7 @@ public final class Pub2Agents {
 			}
 			if (step == Step.fetchPub || step == Step.pass1 || step == Step.fetchWeb || step == Step.pass2) {
 				logger.info(mainMarker, "4 step {}", Step.pass2);
-				pass2(outputPath, preProcessor, args.fetcherArgs, "4/5 ");
+				pass2(outputPath, preProcessor, args.pass2Threads, args.preProcessorArgs, args.fetcherArgs, "4/5 ");
 			}
 			if (step == Step.fetchPub || step == Step.pass1 || step == Step.fetchWeb || step == Step.pass2 || step == Step.map) {
 				logger.info(mainMarker, "5 step {}", Step.map);
@@ -586,6 +833,10 @@ public final class Pub2Agents {
 		if (args.europepmcAbstract != null && requiredArgs(new String[] { "db" }, "europepmcAbstract", args)) {
 			Test.europepmcAbstract(args.europepmcAbstract, args.db, preProcessor, args.fetcherArgs);
 		}
+
+		if (args.linkClassifierCheck != null) {
+			Test.linkClassifierCheck(args.linkClassifierCheck);
+		}
 	}
 
 	public static void main(String[] argv) throws IOException, ReflectiveOperationException {
@@ -28,6 +28,8 @@ import org.edamontology.pubfetcher.core.common.FetcherArgs;
 import org.edamontology.edammap.core.mapping.args.MapperArgs;
 import org.edamontology.edammap.core.preprocessing.PreProcessorArgs;
 
+import agents.bio.pub2agents.core.SelectPubCache;
+
 public class Pub2AgentsArgs extends BasicArgs {
 
 	@Parameter(names = { "-copy-edam" }, description = "Copy the EDAM ontology file in OWL format given with the --edam parameter to EDAM.owl in the given output directory")
@@ -108,6 +110,18 @@ public class Pub2AgentsArgs extends BasicArgs {
 	@Parameter(names = { "--disable-exclusions" }, description = "If specified, some further restrictions to eliminate a few wrong publication IDs are not used with -select-pub (or -all)")
 	boolean disableExclusions = false;
 
+	@Parameter(names = { "--select-pub-threads" }, description = "Number of threads to use for running Europe PMC queries concurrently in -select-pub (or -all)")
+	int selectPubThreads = 4;
+
+	@Parameter(names = { "--select-pub-cache" }, description = "The directory where -select-pub (or -all) keeps the responses of Europe PMC searches. A directory outside the output directory can be shared by runs. By default, the directory select_pub_cache in the output directory is used.")
+	String selectPubCache = null;
+
+	@Parameter(names = { "--select-pub-cache-mode" }, description = "OFF: responses of Europe PMC searches are always fetched and not stored; RECORD: responses are taken from the select-pub cache if present and not expired, otherwise fetched and stored; REPLAY: responses are only taken from the select-pub cache and nothing is fetched from Europe PMC")
+	SelectPubCache.Mode selectPubCacheMode = SelectPubCache.Mode.RECORD;
+
+	@Parameter(names = { "--select-pub-cache-expiry" }, description = "Number of hours after which responses in the select-pub cache are fetched again in RECORD mode. Set to 0 for responses to never expire.")
+	int selectPubCacheExpiry = 24;
+
 	@Parameter(names = { "--pub", "--pub-ids", "--pub-file" }, description = "The file containing publication IDs to be copied to the output directory with -copy-pub (or -all)")
 	String pub = null;
 
@@ -117,6 +131,27 @@ public class Pub2AgentsArgs extends BasicArgs {
 	@Parameter(names = { "--fetcher-threads", "--fetch-threads" }, description = "Number of threads to use for parallel fetching in -fetch-pub and -fetch-web (or -all or -resume)")
 	int fetcherThreads = 8;
 
+	@Parameter(names = { "--pass1-threads" }, description = "Number of threads to use for parallel processing of publications in -pass1 (or -all or -resume)")
+	int pass1Threads = 1;
+
+	@Parameter(names = { "--pass1-chunk-size" }, description = "Maximum number of pass1 results to keep in memory in -pass1 (or -all or -resume), before writing them sorted to a temporary file in the output directory. Set to 0 to keep all results in memory.")
+	int pass1ChunkSize = 20000;
+
+	@Parameter(names = { "--pass1-store" }, description = "The file where -pass1 (or -all or -resume) keeps the results of each publication, so that on later runs only new or changed publications have to be processed again. A file outside the output directory can be shared by runs of overlapping date ranges. By default, the file pass1_store.txt in the output directory is used.")
+	String pass1Store = null;
+
+	@Parameter(names = { "--disable-pass1-store" }, description = "If specified, -pass1 (or -all or -resume) processes all publications without using a pass1 store")
+	boolean disablePass1Store = false;
+
+	@Parameter(names = { "--pass2-threads" }, description = "Number of threads to use for parallel making of results, diffs and agents in -pass2 (or -all or -resume)")
+	int pass2Threads = 4;
+
+	@Parameter(names = { "--pipeline" }, description = "If specified, then in -all (or -resume from the fetch-pub step) publications are fetched in batches and given to pass1 as soon as they are in the database, and webpages and docs found by pass1 are fetched while the next publications are being fetched and processed")
+	boolean pipeline = false;
+
+	@Parameter(names = { "--link-classifier-cascade" }, description = "If specified, the types of links are found by trying all link patterns one after the other, instead of the faster classifier giving the same results")
+	boolean linkClassifierCascade = false;
+
 	@Parameter(names = { "--mapper-threads", "--map-threads" }, description = "Number of threads to use for parallel mapping in -map (or -all or -resume)")
 	int mapperThreads = 4;
 
@@ -129,6 +164,9 @@ public class Pub2AgentsArgs extends BasicArgs {
 	@Parameter(names = { "-europepmc-abstract" }, description = "Calculate how frequent a token is in an abstract about a agent vs in all possible abstracts from Europe PMC (for all tokens that occur at least the given number of times). Required args: --db (containing all publications of bio.agents).")
 	Integer europepmcAbstract = null;
 
+	@Parameter(names = { "-link-classifier-check" }, description = "Classify each link in the given file (containing one link per line, like web.txt or doc.txt) with both the classifier and the cascade of patterns it replaces. Links classified differently are output, together with the time taken by both.")
+	String linkClassifierCheck = null;
+
 	@ParametersDelegate
 	PreProcessorArgs preProcessorArgs = new PreProcessorArgs();
 
@@ -0,0 +1,152 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.edamontology.pubfetcher.core.common.PubFetcher;
+
+import org.edamontology.edammap.core.input.json.Agent;
+import org.edamontology.edammap.core.input.json.Publication;
+
+// Lookups of bio.agents entry indexes, returned candidates must still be checked with the exact conditions
+final class BioagentsIndex {
+
+	private final Map<String, List<Integer>> pmids = new HashMap<>();
+	private final Map<String, List<Integer>> pmcids = new HashMap<>();
+	private final Map<String, List<Integer>> dois = new HashMap<>();
+
+	private final Map<String, List<Integer>> names = new HashMap<>();
+	private final Map<String, List<Integer>> namesProcessed = new HashMap<>();
+	private final Map<String, List<Integer>> idsCompare = new HashMap<>();
+	private final Map<String, List<Integer>> nameWords = new HashMap<>();
+
+	private final Map<String, List<Integer>> linksCaseless = new HashMap<>();
+	private final NavigableMap<String, List<Integer>> linksTrimmed = new TreeMap<>();
+
+	private static void put(Map<String, List<Integer>> map, String key, int i) {
+		if (key == null) return;
+		List<Integer> indexes = map.get(key);
+		if (indexes == null) {
+			indexes = new ArrayList<>();
+			map.put(key, indexes);
+		}
+		// indexes are added in increasing order
+		if (indexes.isEmpty() || indexes.get(indexes.size() - 1) != i) {
+			indexes.add(i);
+		}
+	}
+
+	private static List<Integer> get(Map<String, List<Integer>> map, String key) {
+		List<Integer> indexes = map.get(key);
+		if (indexes == null) {
+			return Collections.emptyList();
+		}
+		return indexes;
+	}
+
+	// coarser than or equal to String.equalsIgnoreCase
+	private static String caseless(String s) {
+		StringBuilder sb = new StringBuilder(s.length());
+		s.codePoints().forEach(c -> sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(c))));
+		return sb.toString();
+	}
+
+	BioagentsIndex(List<Agent> bioagents, List<List<String>> queryNamesExtracted, List<String> queryNamesProcessed, List<String> queryIdsCompare, List<List<String>> queryLinks) {
+		for (int i = 0; i < bioagents.size(); ++i) {
+			Agent bioagent = bioagents.get(i);
+			if (bioagent.getPublication() != null) {
+				for (Publication publicationIds : bioagent.getPublication()) {
+					if (publicationIds.getPmid() != null) {
+						put(pmids, publicationIds.getPmid().trim(), i);
+					}
+					if (publicationIds.getPmcid() != null) {
+						put(pmcids, publicationIds.getPmcid().trim(), i);
+					}
+					if (publicationIds.getDoi() != null) {
+						put(dois, PubFetcher.normaliseDoi(publicationIds.getDoi().trim()), i);
+					}
+				}
+			}
+			put(names, bioagent.getName(), i);
+			put(namesProcessed, queryNamesProcessed.get(i), i);
+			put(idsCompare, queryIdsCompare.get(i), i);
+			for (String word : queryNamesExtracted.get(i)) {
+				put(nameWords, word, i);
+			}
+			for (String link : queryLinks.get(i)) {
+				put(linksCaseless, caseless(link), i);
+				put(linksTrimmed, Common.removeLowestSubdomain(link), i);
+			}
+		}
+	}
+
+	Set<Integer> getPublication(PubIds pubIds) {
+		Set<Integer> indexes = new TreeSet<>();
+		if (!pubIds.getPmid().isEmpty()) {
+			indexes.addAll(get(pmids, pubIds.getPmid()));
+		}
+		if (!pubIds.getPmcid().isEmpty()) {
+			indexes.addAll(get(pmcids, pubIds.getPmcid()));
+		}
+		if (!pubIds.getDoi().isEmpty()) {
+			indexes.addAll(get(dois, pubIds.getDoi()));
+		}
+		return indexes;
+	}
+
+	List<Integer> getName(String name) {
+		return get(names, name);
+	}
+
+	Set<Integer> getNameProcessed(String nameProcessed, String idCompare) {
+		Set<Integer> indexes = new TreeSet<>();
+		indexes.addAll(get(namesProcessed, nameProcessed));
+		indexes.addAll(get(idsCompare, idCompare));
+		return indexes;
+	}
+
+	List<Integer> getNameWord(String word) {
+		return get(nameWords, word);
+	}
+
+	// all entries with a link equal to the given trimmed link or where one of the links with lowest subdomain removed is a prefix of the other
+	Set<Integer> getLink(String linkTrimmed) {
+		Set<Integer> indexes = new TreeSet<>();
+		indexes.addAll(get(linksCaseless, caseless(linkTrimmed)));
+		String link = Common.removeLowestSubdomain(linkTrimmed);
+		for (int i = 0; i <= link.length(); ++i) {
+			indexes.addAll(get(linksTrimmed, link.substring(0, i)));
+		}
+		for (Map.Entry<String, List<Integer>> entry : linksTrimmed.tailMap(link, false).entrySet()) {
+			if (!entry.getKey().startsWith(link)) break;
+			indexes.addAll(entry.getValue());
+		}
+		return indexes;
+	}
+}
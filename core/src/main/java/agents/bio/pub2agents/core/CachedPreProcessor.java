@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.edamontology.edammap.core.preprocessing.PreProcessor;
+
+// PreProcessor with extract and process memoised in a PreProcessorCache, returned lists are always new copies that can be modified
+final class CachedPreProcessor {
+
+	private final PreProcessor preProcessor;
+
+	private final PreProcessorCache cache;
+
+	CachedPreProcessor(PreProcessor preProcessor, PreProcessorCache cache) {
+		this.preProcessor = preProcessor;
+		this.cache = cache;
+	}
+
+	PreProcessor getPreProcessor() {
+		return preProcessor;
+	}
+
+	List<String> extract(String input) {
+		PreProcessorCache.Value value = cache.get(PreProcessorCache.Mode.extract, input);
+		if (value != null) {
+			return new ArrayList<>(value.extracted);
+		}
+		List<String> extracted = preProcessor.extract(input);
+		cache.put(PreProcessorCache.Mode.extract, input, null, new ArrayList<>(extracted));
+		return extracted;
+	}
+
+	List<String> process(String input) {
+		PreProcessorCache.Value value = cache.get(PreProcessorCache.Mode.process, input);
+		if (value != null) {
+			return new ArrayList<>(value.processed);
+		}
+		List<String> processed = preProcessor.process(input);
+		cache.put(PreProcessorCache.Mode.process, input, new ArrayList<>(processed), null);
+		return processed;
+	}
+
+	// extracted must be the result of extract(input), it is modified to align indexes with the processed result
+	List<String> process(String input, List<String> extracted) {
+		PreProcessorCache.Value value = cache.get(PreProcessorCache.Mode.processAligned, input);
+		if (value != null) {
+			extracted.clear();
+			extracted.addAll(value.extracted);
+			return new ArrayList<>(value.processed);
+		}
+		List<String> processed = preProcessor.process(input, extracted);
+		cache.put(PreProcessorCache.Mode.processAligned, input, new ArrayList<>(processed), new ArrayList<>(extracted));
+		return processed;
+	}
+
+	List<String> sentences(String input) {
+		return preProcessor.sentences(input);
+	}
+
+	List<String> links(String input) {
+		return preProcessor.links(input);
+	}
+
+	String removeLinks(String input) {
+		return preProcessor.removeLinks(input);
+	}
+}
@@ -22,8 +22,10 @@ package agents.bio.pub2agents.core;
 import java.text.Normalizer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -43,11 +45,13 @@ public final class Common {
 	public static final String IDF_STEMMED_FILE = "tf.stemmed.idf";
 	public static final String BIOTOOLS_FILE = "bioagents.json";
 	public static final String PUB_FILE = "pub.txt";
+	public static final String SELECT_PUB_CACHE_DIRECTORY = "select_pub_cache";
 	public static final String DB_FILE = "db.db";
 	public static final String STEP_FILE = "step.txt";
 	public static final String WEB_FILE = "web.txt";
 	public static final String DOC_FILE = "doc.txt";
 	public static final String PASS1_FILE = "pass1.json";
+	public static final String PASS1_STORE_FILE = "pass1_store.txt";
 	static final String RESULTS_FILE = "results.csv";
 	static final String DIFF_FILE = "diff.csv";
 	public static final String NEW_FILE = "new.json";
@@ -69,6 +73,15 @@ public final class Common {
 
 	static final Pattern USE_IN_PATTERN = Pattern.compile("^[\\p{L}\\p{N}]$");
 
+	private static final int ACRONYM_PATTERNS_SIZE = 10000;
+	private static final Map<String, Pattern> ACRONYM_PATTERNS = Collections.synchronizedMap(new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+			return size() > ACRONYM_PATTERNS_SIZE;
+		}
+	});
+
 	private static final String TOOL_TITLE_GENERAL = "database|data|web|server|webserver|web-server|package|agentkit|agentbox|suite|agentsuite|agents|agent|kit|framework|workbench|pipeline|software|program|platform|project|resource|r";
 	private static final Pattern TOOL_TITLE_PRUNE = Pattern.compile("(?i)^(update|v|ver|version|(v|ver|version)?\\p{N}+([.-]\\p{N}+)*|" + TOOL_TITLE_GENERAL + ")$");
 	static final Pattern TOOL_TITLE_TRIM = Pattern.compile("( ?(db|v|ver|version|update))*( ?\\p{N}{0,4})?( ?(db|v|ver|version|update))*$");
@@ -81,52 +94,57 @@ public final class Common {
 
 	static final double QUERY_IDF_SCALING = 2;
 
+	static final int PREPROCESSOR_CACHE_SIZE = 100000;
+
+	// total characters of sentences kept for webpages and for docs each
+	static final long WEBPAGE_SENTENCES_CACHE_CHARS = 20000000;
+
 	static final Pattern WHITESPACE = Pattern.compile("[\\p{Z}\\p{Cc}\\p{Cf}]+");
 	static final Pattern INTERNAL_TRIM = Pattern.compile("  +");
 
-	private static final Pattern LINK_HELPDESK = Pattern.compile("(?i)(^|[^\\p{L}-])(contact|contactus|help[-_]?desk)s?([^\\p{L}-]|$)");
-	private static final Pattern LINK_ISSUES = Pattern.compile("(?i)^(https?://)?(www\\.)?(github\\.com/+[^/]+/+[^/]+/+issues|sourceforge\\.net/+p/+[^/]+/+tickets|code\\.google\\.com/+(archive/+)?p/+[^/]+/+issues|bitbucket\\.org/+[^/]+/+[^/]+/+issues)([^\\p{L}]|$)");
-	private static final Pattern LINK_LIST_ADDR = Pattern.compile("(?i)^(https?://)?(www\\.)?(sourceforge\\.net/+projects/+[^/]+/+lists)([^\\p{L}]|$)");
-	private static final Pattern LINK_LIST_BOTH = Pattern.compile("(?i)(^|[^\\p{L}-])(mailman|listinfo|mailing[-_]?lists?)([^\\p{L}-]|$)");
-	private static final Pattern LINK_FORUM = Pattern.compile("(?i)^(https?://)?(www\\.)?(groups\\.google\\.com|gitter\\.im|sourceforge\\.net/+p/+[^/]+/+discussion)([^\\p{L}]|$)");
-	private static final Pattern LINK_SOFTWARE_CATALOGUE = Pattern.compile("(?i)^(https?://)?(www\\.)?(mybiosoftware\\.com|biocatalogue\\.org)([^\\p{L}]|$)");
-	private static final Pattern LINK_REPOSITORY = Pattern.compile("(?i)^(https?://)?(www\\.)?(bioconductor\\.org|github\\.com|sourceforge\\.net|code\\.google\\.com|cran\\.r-project\\.org|bitbucket\\.org|gitlab\\.com|pypi\\.(python\\.)?org|apps\\.cytoscape\\.org)([^\\p{L}]|$)");
-	private static final Pattern LINK_SOCIAL = Pattern.compile("(?i)^(https?://)?(www\\.)?(twitter\\.com|facebook\\.com)([^\\p{L}]|$)");
-
-	private static final Pattern DOWNLOAD_SRC_CODE = Pattern.compile("(?i)^(https?://)?(www\\.)?(git\\.bioconductor\\.org|github\\.com/+[^/]+/+[^/]+/+tree|sourceforge\\.net/+projects/+[^/]+/+files|code\\.google\\.com/+(archive/+)?p/+[^/]+/+source|bitbucket\\.org/+[^/]+/+[^/]+/+src)([^\\p{L}]|$)");
-	private static final Pattern DOWNLOAD_PKG = Pattern.compile("(?i)^(https?://)?(www\\.)?(github\\.com/+[^/]+/+[^/]+/+releases|sourceforge\\.net/+projects/+[^/]+/+files/+.+/+download|code\\.google\\.com/+(archive/+)?p/+[^/]+/+downloads|bitbucket\\.org/+[^/]+/+[^/]+/+downloads|apps\\.cytoscape\\.org/+download)([^\\p{L}]|$)");
+	static final Pattern LINK_HELPDESK = Pattern.compile("(?i)(^|[^\\p{L}-])(contact|contactus|help[-_]?desk)s?([^\\p{L}-]|$)");
+	static final Pattern LINK_ISSUES = Pattern.compile("(?i)^(https?://)?(www\\.)?(github\\.com/+[^/]+/+[^/]+/+issues|sourceforge\\.net/+p/+[^/]+/+tickets|code\\.google\\.com/+(archive/+)?p/+[^/]+/+issues|bitbucket\\.org/+[^/]+/+[^/]+/+issues)([^\\p{L}]|$)");
+	static final Pattern LINK_LIST_ADDR = Pattern.compile("(?i)^(https?://)?(www\\.)?(sourceforge\\.net/+projects/+[^/]+/+lists)([^\\p{L}]|$)");
+	static final Pattern LINK_LIST_BOTH = Pattern.compile("(?i)(^|[^\\p{L}-])(mailman|listinfo|mailing[-_]?lists?)([^\\p{L}-]|$)");
+	static final Pattern LINK_FORUM = Pattern.compile("(?i)^(https?://)?(www\\.)?(groups\\.google\\.com|gitter\\.im|sourceforge\\.net/+p/+[^/]+/+discussion)([^\\p{L}]|$)");
+	static final Pattern LINK_SOFTWARE_CATALOGUE = Pattern.compile("(?i)^(https?://)?(www\\.)?(mybiosoftware\\.com|biocatalogue\\.org)([^\\p{L}]|$)");
+	static final Pattern LINK_REPOSITORY = Pattern.compile("(?i)^(https?://)?(www\\.)?(bioconductor\\.org|github\\.com|sourceforge\\.net|code\\.google\\.com|cran\\.r-project\\.org|bitbucket\\.org|gitlab\\.com|pypi\\.(python\\.)?org|apps\\.cytoscape\\.org)([^\\p{L}]|$)");
+	static final Pattern LINK_SOCIAL = Pattern.compile("(?i)^(https?://)?(www\\.)?(twitter\\.com|facebook\\.com)([^\\p{L}]|$)");
+
+	static final Pattern DOWNLOAD_SRC_CODE = Pattern.compile("(?i)^(https?://)?(www\\.)?(git\\.bioconductor\\.org|github\\.com/+[^/]+/+[^/]+/+tree|sourceforge\\.net/+projects/+[^/]+/+files|code\\.google\\.com/+(archive/+)?p/+[^/]+/+source|bitbucket\\.org/+[^/]+/+[^/]+/+src)([^\\p{L}]|$)");
+	static final Pattern DOWNLOAD_PKG = Pattern.compile("(?i)^(https?://)?(www\\.)?(github\\.com/+[^/]+/+[^/]+/+releases|sourceforge\\.net/+projects/+[^/]+/+files/+.+/+download|code\\.google\\.com/+(archive/+)?p/+[^/]+/+downloads|bitbucket\\.org/+[^/]+/+[^/]+/+downloads|apps\\.cytoscape\\.org/+download)([^\\p{L}]|$)");
 	private static final String DOWNLOAD_EXT_PKG_STRING = "gz|zip|bz2|tar|tgz|7z|rar|xz";
 	private static final String DOWNLOAD_EXT_BIN_STRING = "jar|exe";
-	private static final Pattern DOWNLOAD_EXT_PKG = Pattern.compile("(?i)\\.(" + DOWNLOAD_EXT_PKG_STRING + ")([^\\p{L}-]|$)");
-	private static final Pattern DOWNLOAD_EXT_BIN = Pattern.compile("(?i)\\.(" + DOWNLOAD_EXT_BIN_STRING + ")([^\\p{L}-]|$)");
+	static final Pattern DOWNLOAD_EXT_PKG = Pattern.compile("(?i)\\.(" + DOWNLOAD_EXT_PKG_STRING + ")([^\\p{L}-]|$)");
+	static final Pattern DOWNLOAD_EXT_BIN = Pattern.compile("(?i)\\.(" + DOWNLOAD_EXT_BIN_STRING + ")([^\\p{L}-]|$)");
 	static final Pattern DOWNLOAD_EXT = Pattern.compile("(?i)\\.(" + DOWNLOAD_EXT_PKG_STRING + "|" + DOWNLOAD_EXT_BIN_STRING + ")([^\\p{L}-]|$)");
-	private static final Pattern DOWNLOAD_FTP = Pattern.compile("(?i)^ftp://");
-	private static final Pattern DOWNLOAD_API = Pattern.compile("(?i)\\.(wsdl)([^\\p{L}-]|$)");
-	private static final Pattern DOWNLOAD_CONTAINER = Pattern.compile("(?i)(^|[^\\p{L}-])(docker)([^\\p{L}-]|$)");
-	private static final Pattern DOWNLOAD_CWL = Pattern.compile("(?i)\\.(cwl)([^\\p{L}-]|$)");
-	private static final Pattern DOWNLOAD_PAGE = Pattern.compile("(?i)(^|[^\\p{Ll}])download(s|ing)?([^\\p{Ll}]|$)");
+	static final Pattern DOWNLOAD_FTP = Pattern.compile("(?i)^ftp://");
+	static final Pattern DOWNLOAD_API = Pattern.compile("(?i)\\.(wsdl)([^\\p{L}-]|$)");
+	static final Pattern DOWNLOAD_CONTAINER = Pattern.compile("(?i)(^|[^\\p{L}-])(docker)([^\\p{L}-]|$)");
+	static final Pattern DOWNLOAD_CWL = Pattern.compile("(?i)\\.(cwl)([^\\p{L}-]|$)");
+	static final Pattern DOWNLOAD_PAGE = Pattern.compile("(?i)(^|[^\\p{Ll}])download(s|ing)?([^\\p{Ll}]|$)");
 
-	private static final Pattern DOCUMENTATION_API = Pattern.compile("(?i)(^|[^\\p{L}-])(api|apidoc)s?([^\\p{L}-]|$)");
+	static final Pattern DOCUMENTATION_API = Pattern.compile("(?i)(^|[^\\p{L}-])(api|apidoc)s?([^\\p{L}-]|$)");
 	private static final String DOCUMENTATION_CITE_EITHER = "citing";
-	private static final Pattern DOCUMENTATION_CITE = Pattern.compile("(?i)((^|[^\\p{L}-])(references|cite|citation)s?([^\\p{L}-]|$))|((" + DOCUMENTATION_CITE_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_CITE_EITHER + "))");
-	private static final Pattern DOCUMENTATION_FAQ = Pattern.compile("(?i)(^|[^\\p{L}])faqs?([^\\p{L}]|$)");
+	static final Pattern DOCUMENTATION_CITE = Pattern.compile("(?i)((^|[^\\p{L}-])(references|cite|citation)s?([^\\p{L}-]|$))|((" + DOCUMENTATION_CITE_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_CITE_EITHER + "))");
+	static final Pattern DOCUMENTATION_FAQ = Pattern.compile("(?i)(^|[^\\p{L}])faqs?([^\\p{L}]|$)");
 	private static final String DOCUMENTATION_GENERAL_EITHER = "about|read[-_]?me|information|overview|description|features";
-	private static final Pattern DOCUMENTATION_GENERAL = Pattern.compile("(?i)((" + DOCUMENTATION_GENERAL_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_GENERAL_EITHER + "))");
+	static final Pattern DOCUMENTATION_GENERAL = Pattern.compile("(?i)((" + DOCUMENTATION_GENERAL_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_GENERAL_EITHER + "))");
 	private static final String DOCUMENTATION_INSTALL_EITHER = "install|installation|installing";
-	private static final Pattern DOCUMENTATION_INSTALL = Pattern.compile("(?i)((" + DOCUMENTATION_INSTALL_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_INSTALL_EITHER + "))");
+	static final Pattern DOCUMENTATION_INSTALL = Pattern.compile("(?i)((" + DOCUMENTATION_INSTALL_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_INSTALL_EITHER + "))");
 	private static final String DOCUMENTATION_QUICK_EITHER = "quick[-_]?tour|getting[-_]?started|beginners?[-_]?guide|start[-_]?guide|quick[-_]?(start|guide)";
-	private static final Pattern DOCUMENTATION_QUICK = Pattern.compile("(?i)((" + DOCUMENTATION_QUICK_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_QUICK_EITHER + "))");
+	static final Pattern DOCUMENTATION_QUICK = Pattern.compile("(?i)((" + DOCUMENTATION_QUICK_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_QUICK_EITHER + "))");
 	private static final String DOCUMENTATION_TERMS_EITHER = "terms[-_]?of[-_]?use|conditions[-_]?of[-_]?use";
-	private static final Pattern DOCUMENTATION_TERMS = Pattern.compile("(?i)((^|[^\\p{L}-])(terms|conditions|legal|license|copyright|copying)s?([^\\p{L}-]|$))|((" + DOCUMENTATION_TERMS_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_TERMS_EITHER + "))");
+	static final Pattern DOCUMENTATION_TERMS = Pattern.compile("(?i)((^|[^\\p{L}-])(terms|conditions|legal|license|copyright|copying)s?([^\\p{L}-]|$))|((" + DOCUMENTATION_TERMS_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_TERMS_EITHER + "))");
 	private static final String DOCUMENTATION_TRAINING_EITHER = "training|exercise";
-	private static final Pattern DOCUMENTATION_TRAINING = Pattern.compile("(?i)((" + DOCUMENTATION_TRAINING_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_TRAINING_EITHER + "))");
+	static final Pattern DOCUMENTATION_TRAINING = Pattern.compile("(?i)((" + DOCUMENTATION_TRAINING_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_TRAINING_EITHER + "))");
 	private static final String DOCUMENTATION_TUTORIAL_EITHER = "tutorial|example|guided[-_]?tour";
-	private static final Pattern DOCUMENTATION_TUTORIAL = Pattern.compile("(?i)((^|[^\\p{L}-])(demo|tour)s?([^\\p{L}-]|$))|((" + DOCUMENTATION_TUTORIAL_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_TUTORIAL_EITHER + "))");
+	static final Pattern DOCUMENTATION_TUTORIAL = Pattern.compile("(?i)((^|[^\\p{L}-])(demo|tour)s?([^\\p{L}-]|$))|((" + DOCUMENTATION_TUTORIAL_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_TUTORIAL_EITHER + "))");
 
 	private static final String DOCUMENTATION_EITHER = "vignette|manual|documentation|how[-_]?to|introduction|instruction|users?[-_]?guide";
-	private static final Pattern DOCUMENTATION = Pattern.compile("(?i)((^|[^\\p{L}-])(usage|guide|how|use)s?([^\\p{L}-]|$))|((help|doc|intro|" + DOCUMENTATION_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_EITHER + "))");
-	private static final Pattern DOCUMENTATION_WIKI = Pattern.compile("(?i)^(https?://)?(www\\.)?(github\\.com/+[^/]+/+[^/]+/+wiki|sourceforge\\.net/+p/+[^/]+/wiki|sourceforge\\.net/+p/+[^/]+/+home|code\\.google\\.com/+(archive/+)?p/+[^/]+/+wikis?|bitbucket\\.org/+[^/]+/+[^/]+/+wiki)([^\\p{L}]|$)");
-	private static final Pattern DOCUMENTATION_EXT = Pattern.compile("(?i)\\.(pdf|ps|doc|docx|ppt|pptx)([^\\p{L}-]|$)");
+	static final Pattern DOCUMENTATION = Pattern.compile("(?i)((^|[^\\p{L}-])(usage|guide|how|use)s?([^\\p{L}-]|$))|((help|doc|intro|" + DOCUMENTATION_EITHER + ")s?([^\\p{L}-]|$))|((^|[^\\p{L}-])(" + DOCUMENTATION_EITHER + "))");
+	static final Pattern DOCUMENTATION_WIKI = Pattern.compile("(?i)^(https?://)?(www\\.)?(github\\.com/+[^/]+/+[^/]+/+wiki|sourceforge\\.net/+p/+[^/]+/wiki|sourceforge\\.net/+p/+[^/]+/+home|code\\.google\\.com/+(archive/+)?p/+[^/]+/+wikis?|bitbucket\\.org/+[^/]+/+[^/]+/+wiki)([^\\p{L}]|$)");
+	static final Pattern DOCUMENTATION_EXT = Pattern.compile("(?i)\\.(pdf|ps|doc|docx|ppt|pptx)([^\\p{L}-]|$)");
 
 	static final Pattern BIOTOOLS_SCHEMA_URL_PATTERN = Pattern.compile("^https?://[^\\s/$.?#]*\\.[^\\s]*$");
 	static final Pattern BIOTOOLS_SCHEMA_URLFTP_PATTERN = Pattern.compile("^(https?|s?ftp)://[^\\s/$.?#]*\\.[^\\s]*$");
@@ -138,6 +156,8 @@ public final class Common {
 
 	static final int LINK_MATCH_DISPLAY_LIMIT = 5;
 
+	private static volatile boolean linkClassifierCascade = false;
+
 	static String prependHttp(String url) {
 		if (!SCHEMA_START.matcher(url).find()) {
 			return "http://" + url;
@@ -157,6 +177,20 @@ public final class Common {
 		}
 	}
 
+	static String removeLowestSubdomain(String urlTrimmed) {
+		int slash = urlTrimmed.indexOf('/');
+		int firstDot = urlTrimmed.indexOf('.');
+		if (firstDot >= 0) {
+			int secondDot = urlTrimmed.indexOf('.', firstDot + 1);
+			if (secondDot >= 0) {
+				if (slash < 0 || secondDot < slash) {
+					return urlTrimmed.substring(firstDot + 1);
+				}
+			}
+		}
+		return urlTrimmed;
+	}
+
 	static String pruneToMax(String string, int maxLength) {
 		if (string.length() <= maxLength) {
 			return string;
@@ -179,56 +213,77 @@ public final class Common {
 		}
 	}
 
-	static boolean isAcronym(String acronym, String phrase, boolean allWords) {
-		acronym = acronym.trim();
-		phrase = phrase.trim().replaceAll("-", " ");
+	// the pattern depends only on the acronym, so it is compiled once for all phrases and shortenings of a phrase
+	private static Pattern acronymPattern(String acronym, boolean allWords) {
+		String key = (allWords ? "1" : "0") + acronym;
+		Pattern pattern = ACRONYM_PATTERNS.get(key);
+		if (pattern != null) {
+			return pattern;
+		}
 		boolean patternValid = false;
-		String acronymPattern = "(?i)";
+		StringBuilder acronymPattern = new StringBuilder("(?i)");
 		if (allWords) {
-			acronymPattern += "^";
+			acronymPattern.append("^");
 		} else {
-			acronymPattern += "(^| )";
+			acronymPattern.append("(^| )");
 		}
-		if (phrase.indexOf(" ") > -1 && acronym.indexOf(" ") < 0) {
-			for (int i = 0; i < acronym.length(); ++i) {
-				String c = String.valueOf(acronym.charAt(i));
-				if (USE_IN_PATTERN.matcher(c).matches()) {
-					if (patternValid) {
-						if (allWords) {
-							acronymPattern += "[^ ]* *";
-						} else {
-							acronymPattern += "([^ ]*|.* )";
-						}
+		for (int i = 0; i < acronym.length(); ++i) {
+			String c = String.valueOf(acronym.charAt(i));
+			if (USE_IN_PATTERN.matcher(c).matches()) {
+				if (patternValid) {
+					if (allWords) {
+						acronymPattern.append("[^ ]* *");
+					} else {
+						acronymPattern.append("([^ ]*|.* )");
 					}
-					patternValid = true;
-					acronymPattern += "[^ \\p{L}\\p{N}]*(\\p{L}+(?=\\p{Lu}))?" + c;
 				}
+				patternValid = true;
+				acronymPattern.append("[^ \\p{L}\\p{N}]*(\\p{L}+(?=\\p{Lu}))?").append(c);
 			}
 		}
 		if (allWords) {
-			acronymPattern += "[^ ]*$";
+			acronymPattern.append("[^ ]*$");
 		}
 		if (!patternValid) {
+			return null;
+		}
+		pattern = Pattern.compile(acronymPattern.toString());
+		ACRONYM_PATTERNS.put(key, pattern);
+		return pattern;
+	}
+
+	static boolean isAcronym(String acronym, String phrase, boolean allWords) {
+		acronym = acronym.trim();
+		phrase = phrase.trim().replace('-', ' ');
+		if (acronym.indexOf(' ') > -1 || phrase.indexOf(' ') < 0) {
+			return false;
+		}
+		Pattern acronymPattern = acronymPattern(acronym, allWords);
+		if (acronymPattern == null) {
 			return false;
 		}
-		Matcher acronymMatcher = Pattern.compile(acronymPattern).matcher(phrase);
-		if (acronymMatcher.find()) {
-			if (phrase.substring(acronymMatcher.start(), acronymMatcher.end()).trim().indexOf(" ") > -1) {
+		Matcher acronymMatcher = acronymPattern.matcher(phrase);
+		// if the match is inside one word, the last matched character is removed from the phrase and matching is tried again
+		while (acronymMatcher.find()) {
+			if (phrase.substring(acronymMatcher.start(), acronymMatcher.end()).trim().indexOf(' ') > -1) {
 				return true;
-			} else {
-				if (phrase.substring(acronymMatcher.end() - 1, acronymMatcher.end()).equals(" ")) {
-					if (acronymMatcher.end() - 2 >= 0) {
-						return isAcronym(acronym, phrase.substring(0, acronymMatcher.end() - 2) + phrase.substring(acronymMatcher.end() - 1), allWords);
-					} else {
-						return false;
-					}
+			}
+			if (phrase.charAt(acronymMatcher.end() - 1) == ' ') {
+				if (acronymMatcher.end() - 2 >= 0) {
+					phrase = phrase.substring(0, acronymMatcher.end() - 2) + phrase.substring(acronymMatcher.end() - 1);
 				} else {
-					return isAcronym(acronym, phrase.substring(0, acronymMatcher.end() - 1) + phrase.substring(acronymMatcher.end()), allWords);
+					return false;
 				}
+			} else {
+				phrase = phrase.substring(0, acronymMatcher.end() - 1) + phrase.substring(acronymMatcher.end());
 			}
-		} else {
-			return false;
+			phrase = phrase.trim();
+			if (phrase.indexOf(' ') < 0) {
+				return false;
+			}
+			acronymMatcher.reset(phrase);
 		}
+		return false;
 	}
 
 	static String agentTitlePrune(List<String> agentTitleExtracted) {
@@ -257,82 +312,24 @@ public final class Common {
 		}).collect(Collectors.toList());
 	}
 
-	private static BioagentsLink<DocumentationType> getDocumentationLink(String link) {
-		if (DOCUMENTATION_API.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.API_DOCUMENTATION);
-		} else if (DOCUMENTATION_FAQ.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.FAQ);
-		} else if (DOCUMENTATION_TRAINING.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.TRAINING_MATERIAL);
-		} else if (DOCUMENTATION_TUTORIAL.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.TRAINING_MATERIAL);
-		} else if (DOCUMENTATION_INSTALL.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.INSTALLATION_INSTRUCTIONS);
-		} else if (DOCUMENTATION_QUICK.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.QUICK_START_GUIDE);
-		} else if (DOCUMENTATION.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.USER_MANUAL);
-		} else if (DOCUMENTATION_GENERAL.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.GENERAL);
-		} else if (DOCUMENTATION_CITE.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.CITATION_INSTRUCTIONS);
-		} else if (DOCUMENTATION_TERMS.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.TERMS_OF_USE);
-		} else if (DOCUMENTATION_WIKI.matcher(link).find()) {
-			return new BioagentsLink<DocumentationType>(link, DocumentationType.USER_MANUAL);
-		} else {
-			return null;
-		}
+	public static void setLinkClassifierCascade(boolean linkClassifierCascade) {
+		Common.linkClassifierCascade = linkClassifierCascade;
 	}
 
 	static void makeBioagentsLinks(List<String> links, List<BioagentsLink<LinkType>> linkLinks, List<BioagentsLink<DownloadType>> downloadLinks, List<BioagentsLink<DocumentationType>> documentationLinks) {
 		for (String link : links) {
-			BioagentsLink<DocumentationType> documentationLink = null;
-			if (LINK_SOFTWARE_CATALOGUE.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.SOFTWARE_CATALOGUE));
-			} else if (DOCUMENTATION_EXT.matcher(link).find()) {
-				documentationLink = getDocumentationLink(link);
-				if (documentationLink != null) {
-					documentationLinks.add(documentationLink);
-				} else {
-					documentationLinks.add(new BioagentsLink<DocumentationType>(link, DocumentationType.USER_MANUAL));
-				}
-			} else if (DOWNLOAD_EXT_PKG.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.SOFTWARE_PACKAGE));
-			} else if (DOWNLOAD_EXT_BIN.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.BINARIES));
-			} else if (DOWNLOAD_API.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.API_SPECIFICATION));
-			} else if (DOWNLOAD_CWL.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.TOOL_WRAPPER_CWL));
-			} else if (DOWNLOAD_CONTAINER.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.CONTAINER_FILE));
-			} else if (DOWNLOAD_FTP.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.BINARIES));
-			} else if (DOWNLOAD_PKG.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.SOFTWARE_PACKAGE));
-			} else if (DOWNLOAD_SRC_CODE.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.SOURCE_CODE));
-			} else if ((documentationLink = getDocumentationLink(link)) != null) {
-				documentationLinks.add(documentationLink);
-			} else if (LINK_ISSUES.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.ISSUE_TRACKER));
-			} else if (LINK_LIST_ADDR.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.MAILING_LIST));
-			} else if (LINK_FORUM.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.DISCUSSION_FORUM));
-			} else if (LINK_REPOSITORY.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.REPOSITORY));
-			} else if (LINK_LIST_BOTH.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.MAILING_LIST));
-			} else if (LINK_HELPDESK.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.HELPDESK));
-			} else if (LINK_SOCIAL.matcher(link).find()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.SOCIAL_MEDIA));
-			} else if (DOWNLOAD_PAGE.matcher(link).find()) {
-				downloadLinks.add(new BioagentsLink<DownloadType>(link, DownloadType.DOWNLOADS_PAGE));
-			} else if (!link.isEmpty()) {
-				linkLinks.add(new BioagentsLink<LinkType>(link, LinkType.OTHER));
+			LinkClassifier.Result type = (linkClassifierCascade ? LinkClassifier.classifyCascade(link) : LinkClassifier.classify(link));
+			if (type == null) continue;
+			switch (type.kind) {
+			case LINK:
+				linkLinks.add(new BioagentsLink<LinkType>(link, type.linkType));
+				break;
+			case DOWNLOAD:
+				downloadLinks.add(new BioagentsLink<DownloadType>(link, type.downloadType));
+				break;
+			case DOCUMENTATION:
+				documentationLinks.add(new BioagentsLink<DocumentationType>(link, type.documentationType));
+				break;
 			}
 		}
 	}
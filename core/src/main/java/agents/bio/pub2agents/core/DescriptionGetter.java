@@ -30,10 +30,6 @@ import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import org.edamontology.pubfetcher.core.db.Database;
-import org.edamontology.pubfetcher.core.db.webpage.Webpage;
-import org.edamontology.pubfetcher.core.scrape.Scrape;
-
 import org.edamontology.edammap.core.input.json.DocumentationType;
 import org.edamontology.edammap.core.input.json.DownloadType;
 import org.edamontology.edammap.core.input.json.LinkType;
@@ -124,27 +120,37 @@ public final class DescriptionGetter {
 		return true;
 	}
 
-	private static boolean findName(String name, String description) {
+	// null if name is empty
+	private static Pattern findNamePattern(String name) {
 		name = name.trim();
 		if (name.isEmpty()) {
-			return false;
+			return null;
 		}
 		name = FIND_NAME_NOT_ALPHANUM.matcher(name).replaceAll(".?");
 		name = FIND_NAME_CAMEL.matcher(name).replaceAll("$1.?$2");
 		name = FIND_NAME_TO_NUMBER.matcher(name).replaceAll("$1.?$2");
 		name = FIND_NAME_FROM_NUMBER.matcher(name).replaceAll("$1.?$2");
 		name = FIND_NAME_NUMBER.matcher(name).replaceAll(".?");
-		return Pattern.compile("(?i)" + name).matcher(description).find();
+		return Pattern.compile("(?i)" + name);
 	}
 
-	private static void descriptionsFromWebpage(List<Description> descriptions, String url, Database db, Scrape scrape, int minLength, String name, Boolean doc, PreProcessor preProcessor) {
-		boolean hasScrape = scrape.getWebpage(url) != null;
-		Webpage webpage = null;
+	private static boolean findName(Pattern namePattern, String description) {
+		if (namePattern == null) {
+			return false;
+		}
+		return namePattern.matcher(description).find();
+	}
+
+	private static void descriptionsFromWebpage(List<Description> descriptions, String url, WebpageCache webpageCache, int minLength, Pattern namePattern, Boolean doc, PreProcessor preProcessor) {
+		boolean hasScrape = webpageCache.hasScrape(url);
+		WebpageCache.Entry webpage = null;
+		boolean webpageDoc = false;
 		if (doc == null || !doc) {
-			webpage = db.getWebpage(url, false);
+			webpage = webpageCache.getWebpage(url, false);
 		}
 		if (webpage == null && (doc == null || doc)) {
-			webpage = db.getDoc(url, false);
+			webpage = webpageCache.getDoc(url, false);
+			webpageDoc = true;
 		}
 		if (webpage != null && !webpage.isBroken() && CONTENT_TYPE_HTML.matcher(webpage.getContentType()).find()) {
 			String titleDescription = Common.WHITESPACE.matcher(descriptionFromTitle(webpage.getTitle(), Common.WEBPAGE_TITLE_SEPARATOR)).replaceAll(" ").trim();
@@ -155,17 +161,12 @@ public final class DescriptionGetter {
 			boolean nameFoundLong = false;
 			int sentences = 0;
 			int sentencesMinLength = 0;
-			for (String sentence : webpage.getContent().split("[\n\r]")) {
-				sentence = Common.WHITESPACE.matcher(sentence).replaceAll(" ").trim();
-				if (sentence.isEmpty() || sentence.startsWith("<")) {
-					continue;
-				}
-				sentence = sentence.replaceAll("\\|", ":");
+			for (String sentence : webpageCache.getSentences(url, webpageDoc)) {
 				++sentences;
 				if (sentences <= 2) {
 					if (sentence.length() >= minLength) {
 						addDescription(descriptions, sentence, 2, hasScrape, preProcessor);
-						if (findName(name, sentence)) {
+						if (findName(namePattern, sentence)) {
 							nameFound = true;
 							if (sentence.length() >= BIOTOOLS_DESCRIPTION_LONG_LENGTH
 									&& (sentences != 1 || !sentence.endsWith("..."))) { // sometime HTML <meta> description (first line of webpage content) is truncated
@@ -179,12 +180,12 @@ public final class DescriptionGetter {
 					}
 					if (sentence.length() >= minLength) {
 						++sentencesMinLength;
-						if (sentence.length() >= BIOTOOLS_DESCRIPTION_LONG_LENGTH && findName(name, sentence)) {
+						if (sentence.length() >= BIOTOOLS_DESCRIPTION_LONG_LENGTH && findName(namePattern, sentence)) {
 							addDescription(descriptions, sentence, 2 + sentencesMinLength, hasScrape, preProcessor);
 							nameFound = true;
 							nameFoundLong = true;
 						} else if (!nameFound) {
-							if (findName(name, sentence)) {
+							if (findName(namePattern, sentence)) {
 								addDescription(descriptions, sentence, 2 + sentencesMinLength, hasScrape, preProcessor);
 								nameFound = true;
 							} else if (sentencesMinLength <= 2) {
@@ -239,15 +240,15 @@ public final class DescriptionGetter {
 		}
 	}
 
-	private static String getDescription(List<Description> descriptions, String homepage, Set<BioagentsLink<LinkType>> linkLinks, Set<BioagentsLink<DocumentationType>> documentationLinks, Set<BioagentsLink<DownloadType>> downloadLinks, Database db, Scrape scrape, int minLength, int maxLength, String name, PreProcessor preProcessor) {
+	private static String getDescription(List<Description> descriptions, String homepage, Set<BioagentsLink<LinkType>> linkLinks, Set<BioagentsLink<DocumentationType>> documentationLinks, Set<BioagentsLink<DownloadType>> downloadLinks, WebpageCache webpageCache, int minLength, int maxLength, Pattern namePattern, PreProcessor preProcessor) {
 		if (!homepage.isEmpty()) {
-			descriptionsFromWebpage(descriptions, homepage, db, scrape, minLength, name, null, preProcessor);
+			descriptionsFromWebpage(descriptions, homepage, webpageCache, minLength, namePattern, null, preProcessor);
 		}
 		for (BioagentsLink<LinkType> linkLink : linkLinks) {
 			if (linkLink.getType() == LinkType.OTHER
 					|| linkLink.getType() == LinkType.REPOSITORY
 					|| linkLink.getType() == LinkType.SOFTWARE_CATALOGUE) {
-				descriptionsFromWebpage(descriptions, linkLink.getUrl(), db, scrape, minLength, name, false, preProcessor);
+				descriptionsFromWebpage(descriptions, linkLink.getUrl(), webpageCache, minLength, namePattern, false, preProcessor);
 			}
 		}
 		for (BioagentsLink<DocumentationType> documentationLink : documentationLinks) {
@@ -258,13 +259,13 @@ public final class DescriptionGetter {
 					|| documentationLink.getType() == DocumentationType.API_DOCUMENTATION
 					|| documentationLink.getType() == DocumentationType.FAQ
 					|| documentationLink.getType() == DocumentationType.QUICK_START_GUIDE) {
-				descriptionsFromWebpage(descriptions, documentationLink.getUrl(), db, scrape, minLength, name, true, preProcessor);
+				descriptionsFromWebpage(descriptions, documentationLink.getUrl(), webpageCache, minLength, namePattern, true, preProcessor);
 			}
 		}
 		for (BioagentsLink<DownloadType> downloadLink : downloadLinks) {
 			if (downloadLink.getType() == DownloadType.SOURCE_CODE
 					|| downloadLink.getType() == DownloadType.CONTAINER_FILE) {
-				descriptionsFromWebpage(descriptions, downloadLink.getUrl(), db, scrape, minLength, name, false, preProcessor);
+				descriptionsFromWebpage(descriptions, downloadLink.getUrl(), webpageCache, minLength, namePattern, false, preProcessor);
 			}
 		}
 		Collections.sort(descriptions);
@@ -273,7 +274,7 @@ public final class DescriptionGetter {
 		return !description.isEmpty() ? description + "." : "";
 	}
 
-	static String get(Suggestion2 suggestion, boolean include, boolean homepageBroken, boolean homepageMissing, List<Agent> bioagents, Result2 result, String homepage, Set<BioagentsLink<LinkType>> linkLinks, Set<BioagentsLink<DocumentationType>> documentationLinks, Set<BioagentsLink<DownloadType>> downloadLinks, Database db, Scrape scrape, String name, PreProcessor preProcessor) {
+	static String get(Suggestion2 suggestion, boolean include, boolean homepageBroken, boolean homepageMissing, List<Agent> bioagents, Result2 result, String homepage, Set<BioagentsLink<LinkType>> linkLinks, Set<BioagentsLink<DocumentationType>> documentationLinks, Set<BioagentsLink<DownloadType>> downloadLinks, WebpageCache webpageCache, String name, PreProcessor preProcessor) {
 		List<String> messages = new ArrayList<>();
 		if (suggestion == null || !include) {
 			messages.add("NOT INCLUDED!");
@@ -332,9 +333,10 @@ public final class DescriptionGetter {
 			}
 		}
 		int initialDescriptionsSize = descriptions.size();
-		String description = getDescription(descriptions, homepage, linkLinks, documentationLinks, downloadLinks, db, scrape, BIOTOOLS_DESCRIPTION_MIN_LENGTH, BIOTOOLS_DESCRIPTION_MAX_LENGTH - messagesText.length(), name, preProcessor);
+		Pattern namePattern = findNamePattern(name);
+		String description = getDescription(descriptions, homepage, linkLinks, documentationLinks, downloadLinks, webpageCache, BIOTOOLS_DESCRIPTION_MIN_LENGTH, BIOTOOLS_DESCRIPTION_MAX_LENGTH - messagesText.length(), namePattern, preProcessor);
 		if (descriptions.size() <= initialDescriptionsSize) {
-			description = getDescription(descriptions, homepage, linkLinks, documentationLinks, downloadLinks, db, scrape, BIOTOOLS_DESCRIPTION_MINMIN_LENGTH, BIOTOOLS_DESCRIPTION_MAX_LENGTH - messagesText.length(), name, preProcessor);
+			description = getDescription(descriptions, homepage, linkLinks, documentationLinks, downloadLinks, webpageCache, BIOTOOLS_DESCRIPTION_MINMIN_LENGTH, BIOTOOLS_DESCRIPTION_MAX_LENGTH - messagesText.length(), namePattern, preProcessor);
 		}
 		if (descriptions.size() <= initialDescriptionsSize && description.length() + messagesText.length() + 3 <= BIOTOOLS_DESCRIPTION_MAX_LENGTH) {
 			if (!description.isEmpty()) {
@@ -26,9 +26,7 @@ import java.util.List;
 import java.util.Set;
 
 import org.edamontology.pubfetcher.core.common.PubFetcher;
-import org.edamontology.pubfetcher.core.db.Database;
 import org.edamontology.pubfetcher.core.db.publication.CorrespAuthor;
-import org.edamontology.pubfetcher.core.db.webpage.Webpage;
 
 import org.edamontology.edammap.core.input.json.Credit;
 import org.edamontology.edammap.core.input.json.DocumentationType;
@@ -40,27 +38,27 @@ import org.edamontology.edammap.core.input.json.Agent;
 
 public final class DiffGetter {
 
-	private static boolean linksEqual(String addLink, String addLinkTrimmed, String bioagentsLink, Database db, boolean addLinkDoc, boolean bioagentsLinkDoc) {
+	private static boolean linksEqual(String addLink, String addLinkTrimmed, String bioagentsLink, WebpageCache webpageCache, boolean addLinkDoc, boolean bioagentsLinkDoc) {
 		String bioagentsLinkTrimmed = Common.trimUrl(bioagentsLink);
 		if (addLinkTrimmed.equals(bioagentsLinkTrimmed)) {
 			return true;
 		}
 		String addLinkFinalTrimmed = null;
-		Webpage addLinkWebpage = null;
+		WebpageCache.Entry addLinkWebpage = null;
 		if (addLinkDoc) {
-			addLinkWebpage = db.getDoc(addLink, false);
+			addLinkWebpage = webpageCache.getDoc(addLink, false);
 		} else {
-			addLinkWebpage = db.getWebpage(addLink, false);
+			addLinkWebpage = webpageCache.getWebpage(addLink, false);
 		}
 		if (addLinkWebpage != null) {
 			addLinkFinalTrimmed = Common.trimUrl(addLinkWebpage.getFinalUrl());
 		}
 		String bioagentsLinkFinalTrimmed = null;
-		Webpage bioagentsLinkWebpage = null;
+		WebpageCache.Entry bioagentsLinkWebpage = null;
 		if (bioagentsLinkDoc) {
-			bioagentsLinkWebpage = db.getDoc(bioagentsLink, false);
+			bioagentsLinkWebpage = webpageCache.getDoc(bioagentsLink, false);
 		} else {
-			bioagentsLinkWebpage = db.getWebpage(bioagentsLink, false);
+			bioagentsLinkWebpage = webpageCache.getWebpage(bioagentsLink, false);
 		}
 		if (bioagentsLinkWebpage != null) {
 			bioagentsLinkFinalTrimmed = Common.trimUrl(bioagentsLinkWebpage.getFinalUrl());
@@ -84,11 +82,11 @@ public final class DiffGetter {
 		return false;
 	}
 
-	private static void addHomepageToLinks(List<BioagentsLink<LinkType>> linkLinks, List<BioagentsLink<DownloadType>> downloadLinks, List<BioagentsLink<DocumentationType>> documentationLinks, Set<BioagentsLink<LinkType>> links, Set<BioagentsLink<DownloadType>> downloads, Set<BioagentsLink<DocumentationType>> documentations, Database db, boolean bioagentsHomepage) {
+	private static void addHomepageToLinks(List<BioagentsLink<LinkType>> linkLinks, List<BioagentsLink<DownloadType>> downloadLinks, List<BioagentsLink<DocumentationType>> documentationLinks, Set<BioagentsLink<LinkType>> links, Set<BioagentsLink<DownloadType>> downloads, Set<BioagentsLink<DocumentationType>> documentations, WebpageCache webpageCache, boolean bioagentsHomepage) {
 		boolean found = false;
 		if (!linkLinks.isEmpty()) {
 			for (BioagentsLink<LinkType> link : links) {
-				if (linksEqual(link.getUrl(), link.getUrlTrimmed(), linkLinks.get(0).getUrl(), db, false, false)) {
+				if (linksEqual(link.getUrl(), link.getUrlTrimmed(), linkLinks.get(0).getUrl(), webpageCache, false, false)) {
 					found = true;
 					break;
 				}
@@ -98,7 +96,7 @@ public final class DiffGetter {
 			}
 		} else if (!downloadLinks.isEmpty()) {
 			for (BioagentsLink<DownloadType> download : downloads) {
-				if (linksEqual(download.getUrl(), download.getUrlTrimmed(), downloadLinks.get(0).getUrl(), db, false, false)) {
+				if (linksEqual(download.getUrl(), download.getUrlTrimmed(), downloadLinks.get(0).getUrl(), webpageCache, false, false)) {
 					found = true;
 					break;
 				}
@@ -108,7 +106,7 @@ public final class DiffGetter {
 			}
 		} else if (!documentationLinks.isEmpty()) {
 			for (BioagentsLink<DocumentationType> documentation : documentations) {
-				if (linksEqual(documentation.getUrl(), documentation.getUrlTrimmed(), documentationLinks.get(0).getUrl(), db, true, !bioagentsHomepage)) {
+				if (linksEqual(documentation.getUrl(), documentation.getUrlTrimmed(), documentationLinks.get(0).getUrl(), webpageCache, true, !bioagentsHomepage)) {
 					found = true;
 					break;
 				}
@@ -119,7 +117,7 @@ public final class DiffGetter {
 		}
 	}
 
-	static Diff makeDiff(double scoreScore2, Set<Integer> possiblyRelated, List<Agent> bioagents, int existing, List<PubIds> publications, Collection<PubIds> addPublications, String modifyName, String homepage, Set<BioagentsLink<LinkType>> links, Set<BioagentsLink<DownloadType>> downloads, Set<BioagentsLink<DocumentationType>> documentations, Provenance license, List<Provenance> languages, List<CorrespAuthor> credits, Database db) {
+	static Diff makeDiff(double scoreScore2, Set<Integer> possiblyRelated, List<Agent> bioagents, int existing, List<PubIds> publications, Collection<PubIds> addPublications, String modifyName, String homepage, Set<BioagentsLink<LinkType>> links, Set<BioagentsLink<DownloadType>> downloads, Set<BioagentsLink<DocumentationType>> documentations, Provenance license, List<Provenance> languages, List<CorrespAuthor> credits, WebpageCache webpageCache) {
 		Diff diff = new Diff();
 
 		diff.setScoreScore2(scoreScore2);
@@ -163,9 +161,9 @@ public final class DiffGetter {
 
 		if (homepage != null && !homepage.isEmpty()) {
 			String homepageTrimmed = Common.trimUrl(homepage);
-			if (!linksEqual(homepage, homepageTrimmed, bioagent.getHomepage(), db, false, false)
-					&& !linksEqual(homepage, homepageTrimmed, bioagent.getHomepage(), db, true, false)) {
-				Webpage webpage = db.getWebpage(bioagent.getHomepage(), false);
+			if (!linksEqual(homepage, homepageTrimmed, bioagent.getHomepage(), webpageCache, false, false)
+					&& !linksEqual(homepage, homepageTrimmed, bioagent.getHomepage(), webpageCache, true, false)) {
+				WebpageCache.Entry webpage = webpageCache.getWebpage(bioagent.getHomepage(), false);
 				List<String> homepageLinks = new ArrayList<>();
 				homepageLinks.add(homepage);
 				List<BioagentsLink<LinkType>> linkLinks = new ArrayList<>();
@@ -182,9 +180,9 @@ public final class DiffGetter {
 					List<BioagentsLink<DownloadType>> bioagentsDownloadLinks = new ArrayList<>();
 					List<BioagentsLink<DocumentationType>> bioagentsDocumentationLinks = new ArrayList<>();
 					Common.makeBioagentsLinks(bioagentsHomepageLinks, bioagentsLinkLinks, bioagentsDownloadLinks, bioagentsDocumentationLinks);
-					addHomepageToLinks(bioagentsLinkLinks, bioagentsDownloadLinks, bioagentsDocumentationLinks, linksLocal, downloadsLocal, documentationsLocal, db, true);
+					addHomepageToLinks(bioagentsLinkLinks, bioagentsDownloadLinks, bioagentsDocumentationLinks, linksLocal, downloadsLocal, documentationsLocal, webpageCache, true);
 				} else {
-					addHomepageToLinks(linkLinks, downloadLinks, documentationLinks, linksLocal, downloadsLocal, documentationsLocal, db, false);
+					addHomepageToLinks(linkLinks, downloadLinks, documentationLinks, linksLocal, downloadsLocal, documentationsLocal, webpageCache, false);
 				}
 			}
 		}
@@ -195,20 +193,20 @@ public final class DiffGetter {
 			} else {
 				boolean found = false;
 				for (Link<LinkType> linkBioagents : bioagent.getLink()) {
-					if (linksEqual(link.getUrl(), link.getUrlTrimmed(), linkBioagents.getUrl(), db, false, false)) {
+					if (linksEqual(link.getUrl(), link.getUrlTrimmed(), linkBioagents.getUrl(), webpageCache, false, false)) {
 						found = true;
 						break;
 					}
 				}
 				if (link.getType().equals(LinkType.OTHER)) {
 					if (!found) {
-						if (linksEqual(link.getUrl(), link.getUrlTrimmed(), bioagent.getHomepage(), db, false, false) && (diff.getModifyHomepage() == null || diff.getModifyHomepage().isEmpty())) {
+						if (linksEqual(link.getUrl(), link.getUrlTrimmed(), bioagent.getHomepage(), webpageCache, false, false) && (diff.getModifyHomepage() == null || diff.getModifyHomepage().isEmpty())) {
 							found = true;
 						}
 					}
 					if (!found) {
 						for (LinkDownload downloadBioagents : bioagent.getDownload()) {
-							if (linksEqual(link.getUrl(), link.getUrlTrimmed(), downloadBioagents.getUrl(), db, false, false)) {
+							if (linksEqual(link.getUrl(), link.getUrlTrimmed(), downloadBioagents.getUrl(), webpageCache, false, false)) {
 								found = true;
 								break;
 							}
@@ -216,7 +214,7 @@ public final class DiffGetter {
 					}
 					if (!found) {
 						for (Link<DocumentationType> documentationBioagents : bioagent.getDocumentation()) {
-							if (linksEqual(link.getUrl(), link.getUrlTrimmed(), documentationBioagents.getUrl(), db, false, true)) {
+							if (linksEqual(link.getUrl(), link.getUrlTrimmed(), documentationBioagents.getUrl(), webpageCache, false, true)) {
 								found = true;
 								break;
 							}
@@ -235,7 +233,7 @@ public final class DiffGetter {
 			} else {
 				boolean found = false;
 				for (LinkDownload downloadBioagents : bioagent.getDownload()) {
-					if (linksEqual(download.getUrl(), download.getUrlTrimmed(), downloadBioagents.getUrl(), db, false, false)) {
+					if (linksEqual(download.getUrl(), download.getUrlTrimmed(), downloadBioagents.getUrl(), webpageCache, false, false)) {
 						found = true;
 						break;
 					}
@@ -252,7 +250,7 @@ public final class DiffGetter {
 			} else {
 				boolean found = false;
 				for (Link<DocumentationType> documentationBioagents : bioagent.getDocumentation()) {
-					if (linksEqual(documentation.getUrl(), documentation.getUrlTrimmed(), documentationBioagents.getUrl(), db, true, true)) {
+					if (linksEqual(documentation.getUrl(), documentation.getUrlTrimmed(), documentationBioagents.getUrl(), webpageCache, true, true)) {
 						found = true;
 						break;
 					}
@@ -306,18 +304,4 @@ public final class DiffGetter {
 
 		return diff;
 	}
-
-	static void addDiff(List<Diff> diffs, Diff diff) {
-		boolean added = false;
-		for (int i = diffs.size() - 1; i >= 0; --i) {
-			if (diff.getExisting() == diffs.get(i).getExisting() && diff.include() && diffs.get(i).include()) {
-				diffs.add(i + 1, diff);
-				added = true;
-				break;
-			}
-		}
-		if (!added) {
-			diffs.add(diff);
-		}
-	}
 }
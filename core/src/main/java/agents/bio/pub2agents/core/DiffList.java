@@ -0,0 +1,63 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Diffs to include for the same existing bio.agents entry are kept together, in the position of the first such diff, other diffs are kept in the order added
+final class DiffList implements Iterable<Diff> {
+
+	private final List<List<Diff>> groups = new ArrayList<>();
+
+	private final Map<Integer, List<Diff>> existingGroups = new HashMap<>();
+
+	private int size = 0;
+
+	void add(Diff diff) {
+		List<Diff> group = null;
+		if (diff.include()) {
+			group = existingGroups.get(diff.getExisting());
+			if (group == null) {
+				group = new ArrayList<>();
+				existingGroups.put(diff.getExisting(), group);
+				groups.add(group);
+			}
+		} else {
+			group = new ArrayList<>(1);
+			groups.add(group);
+		}
+		group.add(diff);
+		++size;
+	}
+
+	int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<Diff> iterator() {
+		return groups.stream().flatMap(List::stream).iterator();
+	}
+}
@@ -20,9 +20,13 @@
 package agents.bio.pub2agents.core;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -63,6 +67,157 @@ public class Language {
 			}
 			return matches.entrySet().stream().sorted(Map.Entry.comparingByValue()).map(e -> e.getKey()).collect(Collectors.toList());
 		}
+
+		// same result as with the languages and keywords the index was made from
+		public List<String> getMatches(LanguageIndex languageIndex, boolean definitelyContainsLanguage) {
+			int[] indexes = languageIndex.match(this, definitelyContainsLanguage);
+			Map<String, Integer> matches = new LinkedHashMap<>();
+			for (int l = 0; l < indexes.length; ++l) {
+				if (indexes[l] > -1) {
+					matches.put(languageIndex.languages.get(l).original, indexes[l]);
+				}
+			}
+			return matches.entrySet().stream().sorted(Map.Entry.comparingByValue()).map(e -> e.getKey()).collect(Collectors.toList());
+		}
+	}
+
+	// Search parts are lowercased once and looked up in maps, instead of comparing them to all languages and keywords with equalsIgnoreCase
+	// languages and keywords not in ASCII are compared as before, as for these caseless() might not be the same as equalsIgnoreCase
+	public static class LanguageIndex {
+
+		private final List<Language> languages;
+
+		private final List<String> languageKeywords;
+
+		// indexes of languages by caseless first part
+		private final Map<String, List<Integer>> firstParts = new HashMap<>();
+
+		private final List<List<String>> partsCaseless = new ArrayList<>();
+
+		private final List<Integer> notAscii = new ArrayList<>();
+
+		private final Set<String> keywords = new HashSet<>();
+
+		private final List<String> keywordsNotAscii = new ArrayList<>();
+
+		// caseless search parts that R, PYTHON and JAVA can match, which they can match only ignoring ASCII case
+		private final Set<String> special = new HashSet<>();
+
+		private static final String[] SPECIAL = { "bioconductor", "bioconductor.org", "www.bioconductor.org", "shiny", "cran", "cran.r",
+			"pypi", "pypi.org", "pypi.python.org", "ipython", "numpy", "scipy", "django", "python2", "python3",
+			"apps.cytoscape.org", "biojava" };
+
+		public LanguageIndex(List<Language> languages, List<String> languageKeywords) {
+			this.languages = languages;
+			this.languageKeywords = languageKeywords;
+			for (int l = 0; l < languages.size(); ++l) {
+				Language language = languages.get(l);
+				if (language.parts.stream().allMatch(LanguageIndex::isAscii)) {
+					List<String> languagePartsCaseless = language.parts.stream().map(LanguageIndex::caseless).collect(Collectors.toList());
+					partsCaseless.add(languagePartsCaseless);
+					List<Integer> indexes = firstParts.get(languagePartsCaseless.get(0));
+					if (indexes == null) {
+						indexes = new ArrayList<>();
+						firstParts.put(languagePartsCaseless.get(0), indexes);
+					}
+					indexes.add(l);
+				} else {
+					partsCaseless.add(null);
+					notAscii.add(l);
+				}
+			}
+			for (String languageKeyword : languageKeywords) {
+				if (isAscii(languageKeyword)) {
+					keywords.add(caseless(languageKeyword));
+				} else {
+					keywordsNotAscii.add(languageKeyword);
+				}
+			}
+			for (String s : SPECIAL) {
+				special.add(s);
+			}
+		}
+
+		private static boolean isAscii(String s) {
+			return s.chars().allMatch(c -> c < 128);
+		}
+
+		// equal for strings equal with equalsIgnoreCase, at least if one of them is in ASCII
+		private static String caseless(String s) {
+			char[] chars = s.toCharArray();
+			for (int i = 0; i < chars.length; ++i) {
+				chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+			}
+			return new String(chars);
+		}
+
+		private boolean isKeyword(String part, String partCaseless) {
+			if (keywords.contains(partCaseless)) {
+				return true;
+			}
+			for (String languageKeyword : keywordsNotAscii) {
+				if (languageKeyword.equalsIgnoreCase(part)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		// for each language, the same index as Language.match() would return
+		private int[] match(LanguageSearch languageSearch, boolean definitelyContainsLanguage) {
+			int[] indexes = new int[languages.size()];
+			Arrays.fill(indexes, -1);
+			for (int l : notAscii) {
+				indexes[l] = languages.get(l).match(languageSearch, definitelyContainsLanguage, languageKeywords);
+			}
+			List<String> searchParts = languageSearch.parts;
+			List<String> searchPartsCaseless = searchParts.stream().map(LanguageIndex::caseless).collect(Collectors.toList());
+			for (int i = 0; i < searchParts.size(); ++i) {
+				String searchPart = searchParts.get(i);
+				String searchPartCaseless = searchPartsCaseless.get(i);
+				List<Integer> candidates = firstParts.get(searchPartCaseless);
+				if (candidates != null) {
+					for (int l : candidates) {
+						if (indexes[l] > -1) continue;
+						Language language = languages.get(l);
+						String languagePart = language.parts.get(0);
+						if (languagePart.equals("Other")) continue;
+						if (languagePart.equals("Scheme") && !searchPart.equals(languagePart)) continue;
+						List<String> languagePartsCaseless = partsCaseless.get(l);
+						int j = 1;
+						for (; j < languagePartsCaseless.size(); ++j) {
+							if (i + j >= searchParts.size() || !searchPartsCaseless.get(i + j).equals(languagePartsCaseless.get(j))) {
+								break;
+							}
+						}
+						if (j < languagePartsCaseless.size()) continue;
+						if (!definitelyContainsLanguage && KEYWORD_REQUIRED.matcher(languagePart).matches()) {
+							for (int k = (i - 4 < 0 ? 0 : i - 4); k < (i + j + 4 > searchParts.size() ? searchParts.size() : i + j + 4); ++k) {
+								if (k >= i && k < i + j) continue;
+								if (isKeyword(searchParts.get(k), searchPartsCaseless.get(k))) {
+									indexes[l] = i;
+									break;
+								}
+							}
+						} else {
+							indexes[l] = i;
+						}
+					}
+				}
+				if (special.contains(searchPartCaseless)) {
+					for (int l = 0; l < languages.size(); ++l) {
+						if (indexes[l] > -1 || partsCaseless.get(l) == null) continue;
+						String languagePart = languages.get(l).parts.get(0);
+						if (languagePart.equals("R") && R.matcher(searchPart).matches()
+								|| languagePart.equals("Python") && PYTHON.matcher(searchPart).matches()
+								|| languagePart.equals("Java") && JAVA.matcher(searchPart).matches()) {
+							indexes[l] = i;
+						}
+					}
+				}
+			}
+			return indexes;
+		}
 	}
 
 	private final String original;
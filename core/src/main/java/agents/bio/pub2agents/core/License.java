@@ -20,7 +20,11 @@
 package agents.bio.pub2agents.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -107,6 +111,15 @@ public class License {
 		}
 
 		public License bestMatch(List<License> licenses, boolean definitelyContainsLicense) {
+			return bestMatch((Iterable<License>) licenses, definitelyContainsLicense);
+		}
+
+		// same result as with the list of licenses the index was made from, but only candidate licenses are tried
+		public License bestMatch(LicenseIndex licenseIndex, boolean definitelyContainsLicense) {
+			return bestMatch(licenseIndex.getCandidates(this, definitelyContainsLicense), definitelyContainsLicense);
+		}
+
+		private License bestMatch(Iterable<License> licenses, boolean definitelyContainsLicense) {
 			License bestLicense = null;
 			Match bestMatch = new Match();
 			for (License license : licenses) {
@@ -151,6 +164,86 @@ public class License {
 		}
 	}
 
+	// A license can only match a search if its first part equals (ignoring case) some part of the search
+	// or, if the search definitely contains a license, an acronym made from the first parts of the search
+	public static class LicenseIndex {
+
+		private final List<License> licenses;
+
+		private final Map<String, List<Integer>> firstParts = new HashMap<>();
+
+		private final Map<String, List<Integer>> firstPartsCaseless = new HashMap<>();
+
+		// licenses with first part not in ASCII are always candidates, as for these caseless() might not be the same as equalsIgnoreCase
+		private final List<Integer> always = new ArrayList<>();
+
+		public LicenseIndex(List<License> licenses) {
+			this.licenses = licenses;
+			for (int i = 0; i < licenses.size(); ++i) {
+				License license = licenses.get(i);
+				if (license.parts.isEmpty()) continue;
+				String firstPart = license.parts.get(0);
+				if (firstPart.chars().allMatch(c -> c < 128)) {
+					put(firstParts, firstPart, i);
+					put(firstPartsCaseless, caseless(firstPart), i);
+				} else {
+					always.add(i);
+				}
+			}
+		}
+
+		private static void put(Map<String, List<Integer>> map, String key, int i) {
+			List<Integer> indexes = map.get(key);
+			if (indexes == null) {
+				indexes = new ArrayList<>();
+				map.put(key, indexes);
+			}
+			indexes.add(i);
+		}
+
+		private static void add(Set<Integer> indexes, Map<String, List<Integer>> map, String key) {
+			List<Integer> mapIndexes = map.get(key);
+			if (mapIndexes != null) {
+				indexes.addAll(mapIndexes);
+			}
+		}
+
+		// equal for strings equal with equalsIgnoreCase, at least if one of them is in ASCII
+		private static String caseless(String s) {
+			char[] chars = s.toCharArray();
+			for (int i = 0; i < chars.length; ++i) {
+				chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+			}
+			return new String(chars);
+		}
+
+		// in the same order as in the list of licenses, as the order matters for bestMatch
+		List<License> getCandidates(LicenseSearch licenseSearch, boolean definitelyContainsLicense) {
+			Set<Integer> indexes = new TreeSet<>(always);
+			for (String part : licenseSearch.parts) {
+				add(indexes, firstPartsCaseless, caseless(part));
+			}
+			if (definitelyContainsLicense) {
+				// acronyms as built in match()
+				String acronym = "";
+				for (String part : licenseSearch.parts) {
+					Matcher acronymMatcher = ACRONYM.matcher(part);
+					if (!acronymMatcher.find()) break;
+					acronym += acronymMatcher.group(1);
+					if (acronym.length() > 7) break;
+					if (acronym.length() >= 3) {
+						add(indexes, firstParts, acronym);
+					}
+				}
+			}
+			List<License> candidates = new ArrayList<>();
+			for (int i : indexes) {
+				candidates.add(licenses.get(i));
+			}
+			return candidates;
+		}
+	}
+
 	private static class Match {
 		private int matches = 0;
 		private int versionMatches = 0;
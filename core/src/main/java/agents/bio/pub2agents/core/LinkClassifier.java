@@ -0,0 +1,316 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.edamontology.edammap.core.input.json.DocumentationType;
+import org.edamontology.edammap.core.input.json.DownloadType;
+import org.edamontology.edammap.core.input.json.LinkType;
+
+// Gives a link a LinkType, DownloadType or DocumentationType
+// The link is lowercased and its host found once, then rules are tried in priority order, but the pattern of a rule is tried only if the host of the link is in the host table of the rule or one of the keywords of the rule is found in the link
+final class LinkClassifier {
+
+	enum Kind {
+		LINK,
+		DOWNLOAD,
+		DOCUMENTATION
+	}
+
+	// Exactly one of linkType, downloadType and documentationType is not null, as given by kind
+	// There is one Result per type, so results can be compared by reference
+	static final class Result {
+		final Kind kind;
+		final LinkType linkType;
+		final DownloadType downloadType;
+		final DocumentationType documentationType;
+		private Result(Kind kind, LinkType linkType, DownloadType downloadType, DocumentationType documentationType) {
+			this.kind = kind;
+			this.linkType = linkType;
+			this.downloadType = downloadType;
+			this.documentationType = documentationType;
+		}
+		@Override
+		public String toString() {
+			switch (kind) {
+			case LINK:
+				return linkType.toString();
+			case DOWNLOAD:
+				return downloadType.toString();
+			default:
+				return documentationType.toString();
+			}
+		}
+	}
+
+	private static final Map<LinkType, Result> LINK_RESULTS = new EnumMap<>(LinkType.class);
+	private static final Map<DownloadType, Result> DOWNLOAD_RESULTS = new EnumMap<>(DownloadType.class);
+	private static final Map<DocumentationType, Result> DOCUMENTATION_RESULTS = new EnumMap<>(DocumentationType.class);
+	static {
+		for (LinkType type : LinkType.values()) {
+			LINK_RESULTS.put(type, new Result(Kind.LINK, type, null, null));
+		}
+		for (DownloadType type : DownloadType.values()) {
+			DOWNLOAD_RESULTS.put(type, new Result(Kind.DOWNLOAD, null, type, null));
+		}
+		for (DocumentationType type : DocumentationType.values()) {
+			DOCUMENTATION_RESULTS.put(type, new Result(Kind.DOCUMENTATION, null, null, type));
+		}
+	}
+
+	private static Result result(LinkType type) {
+		return LINK_RESULTS.get(type);
+	}
+	private static Result result(DownloadType type) {
+		return DOWNLOAD_RESULTS.get(type);
+	}
+	private static Result result(DocumentationType type) {
+		return DOCUMENTATION_RESULTS.get(type);
+	}
+
+	private static final class Rule {
+		private final Pattern pattern;
+		private final Result type;
+		private final String[] hosts;
+		private final String[] keywords;
+		private Rule(Pattern pattern, Result type, String[] hosts, String[] keywords) {
+			this.pattern = pattern;
+			this.type = type;
+			this.hosts = hosts;
+			this.keywords = keywords;
+		}
+	}
+
+	private static final class Link {
+		private final String link;
+		private final String lower;
+		private final String host;
+		private final String hostWww;
+		private Link(String link) {
+			this.link = link;
+			StringBuilder sb = new StringBuilder(link.length());
+			for (int i = 0; i < link.length(); ++i) {
+				char c = link.charAt(i);
+				// patterns are case-insensitive for US-ASCII only
+				sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+			}
+			this.lower = sb.toString();
+			String host = lower;
+			if (host.startsWith("http://")) {
+				host = host.substring(7);
+			} else if (host.startsWith("https://")) {
+				host = host.substring(8);
+			}
+			this.hostWww = host;
+			if (host.startsWith("www.")) {
+				host = host.substring(4);
+			}
+			this.host = host;
+		}
+		private boolean matches(Rule rule) {
+			boolean candidate = false;
+			if (rule.hosts != null) {
+				for (String h : rule.hosts) {
+					if (host.startsWith(h) || hostWww.startsWith(h)) {
+						candidate = true;
+						break;
+					}
+				}
+			}
+			if (!candidate && rule.keywords != null) {
+				for (String keyword : rule.keywords) {
+					if (lower.contains(keyword)) {
+						candidate = true;
+						break;
+					}
+				}
+			}
+			return candidate && rule.pattern.matcher(link).find();
+		}
+	}
+
+	private static final String[] HOSTS_CODE = new String[] { "github.com", "sourceforge.net", "code.google.com", "bitbucket.org" };
+
+	private static final Rule SOFTWARE_CATALOGUE = new Rule(Common.LINK_SOFTWARE_CATALOGUE, result(LinkType.SOFTWARE_CATALOGUE), new String[] { "mybiosoftware.com", "biocatalogue.org" }, null);
+
+	private static final Rule DOCUMENTATION_EXT = new Rule(Common.DOCUMENTATION_EXT, result(DocumentationType.USER_MANUAL), null, new String[] { ".pdf", ".ps", ".doc", ".ppt" });
+
+	private static final List<Rule> DOWNLOAD = new ArrayList<>();
+	static {
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_EXT_PKG, result(DownloadType.SOFTWARE_PACKAGE), null, new String[] { ".gz", ".zip", ".bz2", ".tar", ".tgz", ".7z", ".rar", ".xz" }));
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_EXT_BIN, result(DownloadType.BINARIES), null, new String[] { ".jar", ".exe" }));
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_API, result(DownloadType.API_SPECIFICATION), null, new String[] { ".wsdl" }));
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_CWL, result(DownloadType.TOOL_WRAPPER_CWL), null, new String[] { ".cwl" }));
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_CONTAINER, result(DownloadType.CONTAINER_FILE), null, new String[] { "docker" }));
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_FTP, result(DownloadType.BINARIES), null, new String[] { "ftp://" }));
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_PKG, result(DownloadType.SOFTWARE_PACKAGE), new String[] { "github.com", "sourceforge.net", "code.google.com", "bitbucket.org", "apps.cytoscape.org" }, null));
+		DOWNLOAD.add(new Rule(Common.DOWNLOAD_SRC_CODE, result(DownloadType.SOURCE_CODE), new String[] { "git.bioconductor.org", "github.com", "sourceforge.net", "code.google.com", "bitbucket.org" }, null));
+	}
+
+	private static final List<Rule> DOCUMENTATION = new ArrayList<>();
+	static {
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_API, result(DocumentationType.API_DOCUMENTATION), null, new String[] { "api" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_FAQ, result(DocumentationType.FAQ), null, new String[] { "faq" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_TRAINING, result(DocumentationType.TRAINING_MATERIAL), null, new String[] { "training", "exercise" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_TUTORIAL, result(DocumentationType.TRAINING_MATERIAL), null, new String[] { "demo", "tour", "tutorial", "example" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_INSTALL, result(DocumentationType.INSTALLATION_INSTRUCTIONS), null, new String[] { "install" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_QUICK, result(DocumentationType.QUICK_START_GUIDE), null, new String[] { "quick", "getting", "beginner", "start" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION, result(DocumentationType.USER_MANUAL), null, new String[] { "usage", "guide", "how", "use", "help", "doc", "intro", "vignette", "manual", "instruction" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_GENERAL, result(DocumentationType.GENERAL), null, new String[] { "about", "read", "information", "overview", "description", "features" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_CITE, result(DocumentationType.CITATION_INSTRUCTIONS), null, new String[] { "references", "cite", "citation", "citing" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_TERMS, result(DocumentationType.TERMS_OF_USE), null, new String[] { "terms", "conditions", "legal", "license", "copyright", "copying" }));
+		DOCUMENTATION.add(new Rule(Common.DOCUMENTATION_WIKI, result(DocumentationType.USER_MANUAL), HOSTS_CODE, null));
+	}
+
+	private static final List<Rule> LINK = new ArrayList<>();
+	static {
+		LINK.add(new Rule(Common.LINK_ISSUES, result(LinkType.ISSUE_TRACKER), HOSTS_CODE, null));
+		LINK.add(new Rule(Common.LINK_LIST_ADDR, result(LinkType.MAILING_LIST), new String[] { "sourceforge.net" }, null));
+		LINK.add(new Rule(Common.LINK_FORUM, result(LinkType.DISCUSSION_FORUM), new String[] { "groups.google.com", "gitter.im", "sourceforge.net" }, null));
+		LINK.add(new Rule(Common.LINK_REPOSITORY, result(LinkType.REPOSITORY), new String[] { "bioconductor.org", "github.com", "sourceforge.net", "code.google.com", "cran.r-project.org", "bitbucket.org", "gitlab.com", "pypi.", "apps.cytoscape.org" }, null));
+		LINK.add(new Rule(Common.LINK_LIST_BOTH, result(LinkType.MAILING_LIST), null, new String[] { "mailman", "listinfo", "mailing" }));
+		LINK.add(new Rule(Common.LINK_HELPDESK, result(LinkType.HELPDESK), null, new String[] { "contact", "help" }));
+		LINK.add(new Rule(Common.LINK_SOCIAL, result(LinkType.SOCIAL_MEDIA), new String[] { "twitter.com", "facebook.com" }, null));
+		LINK.add(new Rule(Common.DOWNLOAD_PAGE, result(DownloadType.DOWNLOADS_PAGE), null, new String[] { "download" }));
+	}
+
+	private static Result classify(Link link, List<Rule> rules) {
+		for (Rule rule : rules) {
+			if (link.matches(rule)) {
+				return rule.type;
+			}
+		}
+		return null;
+	}
+
+	// null if link is empty, same result as classifyCascade
+	static Result classify(String linkString) {
+		Link link = new Link(linkString);
+		if (link.matches(SOFTWARE_CATALOGUE)) {
+			return SOFTWARE_CATALOGUE.type;
+		}
+		if (link.matches(DOCUMENTATION_EXT)) {
+			Result type = classify(link, DOCUMENTATION);
+			return (type != null ? type : DOCUMENTATION_EXT.type);
+		}
+		Result type = classify(link, DOWNLOAD);
+		if (type != null) {
+			return type;
+		}
+		type = classify(link, DOCUMENTATION);
+		if (type != null) {
+			return type;
+		}
+		type = classify(link, LINK);
+		if (type != null) {
+			return type;
+		}
+		if (!linkString.isEmpty()) {
+			return result(LinkType.OTHER);
+		}
+		return null;
+	}
+
+	private static DocumentationType documentationTypeCascade(String link) {
+		if (Common.DOCUMENTATION_API.matcher(link).find()) {
+			return DocumentationType.API_DOCUMENTATION;
+		} else if (Common.DOCUMENTATION_FAQ.matcher(link).find()) {
+			return DocumentationType.FAQ;
+		} else if (Common.DOCUMENTATION_TRAINING.matcher(link).find()) {
+			return DocumentationType.TRAINING_MATERIAL;
+		} else if (Common.DOCUMENTATION_TUTORIAL.matcher(link).find()) {
+			return DocumentationType.TRAINING_MATERIAL;
+		} else if (Common.DOCUMENTATION_INSTALL.matcher(link).find()) {
+			return DocumentationType.INSTALLATION_INSTRUCTIONS;
+		} else if (Common.DOCUMENTATION_QUICK.matcher(link).find()) {
+			return DocumentationType.QUICK_START_GUIDE;
+		} else if (Common.DOCUMENTATION.matcher(link).find()) {
+			return DocumentationType.USER_MANUAL;
+		} else if (Common.DOCUMENTATION_GENERAL.matcher(link).find()) {
+			return DocumentationType.GENERAL;
+		} else if (Common.DOCUMENTATION_CITE.matcher(link).find()) {
+			return DocumentationType.CITATION_INSTRUCTIONS;
+		} else if (Common.DOCUMENTATION_TERMS.matcher(link).find()) {
+			return DocumentationType.TERMS_OF_USE;
+		} else if (Common.DOCUMENTATION_WIKI.matcher(link).find()) {
+			return DocumentationType.USER_MANUAL;
+		} else {
+			return null;
+		}
+	}
+
+	// trying all patterns one after the other
+	static Result classifyCascade(String link) {
+		DocumentationType documentationType = null;
+		if (Common.LINK_SOFTWARE_CATALOGUE.matcher(link).find()) {
+			return result(LinkType.SOFTWARE_CATALOGUE);
+		} else if (Common.DOCUMENTATION_EXT.matcher(link).find()) {
+			documentationType = documentationTypeCascade(link);
+			if (documentationType != null) {
+				return result(documentationType);
+			} else {
+				return result(DocumentationType.USER_MANUAL);
+			}
+		} else if (Common.DOWNLOAD_EXT_PKG.matcher(link).find()) {
+			return result(DownloadType.SOFTWARE_PACKAGE);
+		} else if (Common.DOWNLOAD_EXT_BIN.matcher(link).find()) {
+			return result(DownloadType.BINARIES);
+		} else if (Common.DOWNLOAD_API.matcher(link).find()) {
+			return result(DownloadType.API_SPECIFICATION);
+		} else if (Common.DOWNLOAD_CWL.matcher(link).find()) {
+			return result(DownloadType.TOOL_WRAPPER_CWL);
+		} else if (Common.DOWNLOAD_CONTAINER.matcher(link).find()) {
+			return result(DownloadType.CONTAINER_FILE);
+		} else if (Common.DOWNLOAD_FTP.matcher(link).find()) {
+			return result(DownloadType.BINARIES);
+		} else if (Common.DOWNLOAD_PKG.matcher(link).find()) {
+			return result(DownloadType.SOFTWARE_PACKAGE);
+		} else if (Common.DOWNLOAD_SRC_CODE.matcher(link).find()) {
+			return result(DownloadType.SOURCE_CODE);
+		} else if ((documentationType = documentationTypeCascade(link)) != null) {
+			return result(documentationType);
+		} else if (Common.LINK_ISSUES.matcher(link).find()) {
+			return result(LinkType.ISSUE_TRACKER);
+		} else if (Common.LINK_LIST_ADDR.matcher(link).find()) {
+			return result(LinkType.MAILING_LIST);
+		} else if (Common.LINK_FORUM.matcher(link).find()) {
+			return result(LinkType.DISCUSSION_FORUM);
+		} else if (Common.LINK_REPOSITORY.matcher(link).find()) {
+			return result(LinkType.REPOSITORY);
+		} else if (Common.LINK_LIST_BOTH.matcher(link).find()) {
+			return result(LinkType.MAILING_LIST);
+		} else if (Common.LINK_HELPDESK.matcher(link).find()) {
+			return result(LinkType.HELPDESK);
+		} else if (Common.LINK_SOCIAL.matcher(link).find()) {
+			return result(LinkType.SOCIAL_MEDIA);
+		} else if (Common.DOWNLOAD_PAGE.matcher(link).find()) {
+			return result(DownloadType.DOWNLOADS_PAGE);
+		} else if (!link.isEmpty()) {
+			return result(LinkType.OTHER);
+		} else {
+			return null;
+		}
+	}
+}
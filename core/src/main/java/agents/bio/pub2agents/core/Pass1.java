@@ -35,19 +35,30 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 import org.apache.logging.log4j.LogManager;
@@ -156,7 +167,7 @@ public final class Pass1 {
 	private static final Pattern FIX_LINK_EMAIL3 = Pattern.compile("[.]?[^/.]+\\.[^/.]+\\.[^/.]+@[^/]+\\.[^/]+$");
 	private static final Pattern URL_FIX = Pattern.compile("^([-\\p{L}\\p{N};/:@&=+$,_.!~*'()%]+(\\?[-\\p{L}\\p{N};/?:@&=+$,_.!~*'()%]*)?(#[-\\p{L}\\p{N};/?:@&=+$,_.!~*'()%]*)?)");
 
-	private static List<Integer> acronyms(String sentence, PreProcessor preProcessor) {
+	private static List<Integer> acronyms(String sentence, CachedPreProcessor preProcessor) {
 		List<Integer> acronyms = new ArrayList<>();
 		int previousEnd = 0;
 		int index = 0;
@@ -200,7 +211,7 @@ public final class Pass1 {
 		return acronyms;
 	}
 
-	private static Integer firstAcronymIndex(String sentence, PreProcessor preProcessor) {
+	private static Integer firstAcronymIndex(String sentence, CachedPreProcessor preProcessor) {
 		List<Integer> acronyms = acronyms(sentence, preProcessor);
 		if (!acronyms.isEmpty()) {
 			int acronym = acronyms.get(0); // first acronym
@@ -211,7 +222,7 @@ public final class Pass1 {
 		}
 	}
 
-	private static boolean agentTitleScore(String agentTitle, PreProcessor preProcessor, Map<String, Double> scores, Map<String, String> processedToExtracted, boolean pruned) {
+	private static boolean agentTitleScore(String agentTitle, CachedPreProcessor preProcessor, Map<String, Double> scores, Map<String, String> processedToExtracted, boolean pruned) {
 		if (agentTitle.isEmpty()) {
 			return false;
 		}
@@ -263,7 +274,7 @@ public final class Pass1 {
 		scores.put(key, scores.get(key) * multiplier);
 	}
 
-	private static List<String> breakLinks(List<String> links, List<String> allLinks) {
+	static List<String> breakLinks(List<String> links, List<String> allLinks) {
 		for (int i = 0; i < links.size(); ++i) {
 			String link = links.get(i);
 			String linkStart = "";
@@ -304,7 +315,7 @@ public final class Pass1 {
 		return links;
 	}
 
-	private static String fromLink(String link, PreProcessor preProcessor, Idf queryIdf, List<String> hostIgnore) {
+	static String fromLink(String link, CachedPreProcessor preProcessor, Idf queryIdf, List<String> hostIgnore) {
 		int schema = link.indexOf("://");
 		if (schema > -1) {
 			link = link.substring(schema + 3);
@@ -426,7 +437,7 @@ public final class Pass1 {
 		}
 	}
 
-	private static boolean agentTitleMatch(String agentTitle, PreProcessor preProcessor, List<String> matchedKeys, boolean linkTwoPart, String linkProcessed, String fromLink, String link, Map<String, List<String>> links) {
+	private static boolean agentTitleMatch(String agentTitle, CachedPreProcessor preProcessor, List<String> matchedKeys, boolean linkTwoPart, String linkProcessed, String fromLink, String link, Map<String, List<String>> links) {
 		if (agentTitle.isEmpty()) {
 			return false;
 		}
@@ -512,7 +523,7 @@ public final class Pass1 {
 		return matches;
 	}
 
-	private static Map<String, List<String>> links(List<String> partLinks, PreProcessor preProcessor, Idf queryIdf, List<String> hostIgnore,
+	private static Map<String, List<String>> links(List<String> partLinks, CachedPreProcessor preProcessor, Idf queryIdf, List<String> hostIgnore,
 			Set<String> keys, Map<String, String> processedToExtracted, List<List<String>> processed, String titleWithoutLinks, String abstractWithoutLinks,
 			String agentTitle, String agentTitlePruned, String agentTitleAcronym) {
 		Map<String, List<String>> links = new LinkedHashMap<>();
@@ -718,7 +729,7 @@ public final class Pass1 {
 	}
 
 	private static Suggestion1 makeSuggestion(String processed, double score, String pubIdsString, Map<String, String> processedToExtracted,
-			Map<String, List<String>> linksAbstract, Map<String, List<String>> linksFulltext, List<String> fromAbstractLinks, PreProcessor preProcessor) {
+			Map<String, List<String>> linksAbstract, Map<String, List<String>> linksFulltext, List<String> fromAbstractLinks, CachedPreProcessor preProcessor) {
 		Suggestion1 suggestion = new Suggestion1();
 		suggestion.setScore(score);
 		String suggestionExtractedOriginal = processedToExtracted.get(processed);
@@ -762,7 +773,7 @@ public final class Pass1 {
 		return suggestion;
 	}
 
-	private static List<String> makeFixLinks(List<String> links) {
+	static List<String> makeFixLinks(List<String> links) {
 		for (int i = 0; i < links.size(); ++i) {
 			String link = links.get(i);
 			Matcher fixLink = FIX_LINK.matcher(link);
@@ -829,7 +840,7 @@ public final class Pass1 {
 	private static void makeResult(List<Result1> results, Publication publication,
 			String title, String titleRest,	int agentTitleSize, String agentTitleExtractedOriginal, String agentTitle, String agentTitlePruned, String agentTitleAcronym, List<String> agentTitleOthers, List<String> agentTitleProcessedOthers,
 			List<String> hostIgnore, List<String> beforeTier1, List<String> beforeTier2, List<String> beforeTier3, List<String> afterTier1, List<String> afterTier2, List<String> afterTier3,
-			PreProcessor preProcessor, Idf idf, String nameProvided, List<String> webpageUrlsProvided) {
+			CachedPreProcessor preProcessor, Idf idf, String nameProvided, List<String> webpageUrlsProvided) {
 		String theAbstract = publication.getAbstract().getContent();
 		if (webpageUrlsProvided != null && !webpageUrlsProvided.isEmpty()) {
 			theAbstract = String.join(" ", webpageUrlsProvided) + " . " + theAbstract;
@@ -848,8 +859,9 @@ public final class Pass1 {
 		List<List<String>> processed = new ArrayList<>();
 
 		for (String sentence : titleAbstractSentences) {
-			List<String> sentenceExtracted = preProcessor.extract(sentence);
-			List<String> sentenceProcessed = preProcessor.process(sentence, sentenceExtracted);
+			// sentences are rarely repeated, so not cached
+			List<String> sentenceExtracted = preProcessor.getPreProcessor().extract(sentence);
+			List<String> sentenceProcessed = preProcessor.getPreProcessor().process(sentence, sentenceExtracted);
 			extracted.add(sentenceExtracted);
 			processed.add(sentenceProcessed);
 		}
@@ -1458,212 +1470,390 @@ public final class Pass1 {
 		results.add(result);
 	}
 
+	static List<Result1> makePublicationResults(Publication publication, boolean checkLength,
+			List<String> hostIgnore, List<String> beforeTier1, List<String> beforeTier2, List<String> beforeTier3, List<String> afterTier1, List<String> afterTier2, List<String> afterTier3,
+			CachedPreProcessor preProcessor, Idf idf, String nameProvided, List<String> webpageUrlsProvided) {
+		List<Result1> results = new ArrayList<>();
+
+		if (publication.getAbstract().getSize() > ABSTRACT_MAX_LENGTH && checkLength) {
+			logger.info("Skipping publication {}, as length of abstract ({}) is larger than allowed ({})", publication.toStringId(), publication.getAbstract().getSize(), ABSTRACT_MAX_LENGTH);
+			return results;
+		}
+		if (publication.getFulltext().getSize() > FULLTEXT_MAX_LENGTH && checkLength) {
+			logger.info("Skipping publication {}, as length of fulltext ({}) is larger than allowed ({})", publication.toStringId(), publication.getFulltext().getSize(), FULLTEXT_MAX_LENGTH);
+			return results;
+		}
+
+		List<String> agentTitleExtractedOriginal = new ArrayList<>();
+		List<String> agentTitle = new ArrayList<>();
+		List<String> agentTitlePruned = new ArrayList<>();
+		String agentTitleAcronym = null;
+		long agentTitleWordsTotal = 0;
+
+		String title = publication.getTitle().getContent();
+		String titleRest = title;
+
+		int from = 0;
+		Matcher matcher = Common.TITLE_SEPARATOR.matcher(title);
+
+		while (from < title.length() && matcher.find(from)) {
+			String currentAgentTitleString = title.substring(from, matcher.start()).trim();
+			if (TOOL_TITLE_INVALID.matcher(currentAgentTitleString).matches()) {
+				from = matcher.end();
+				continue;
+			}
+
+			List<String> currentAgentTitleExtractedOriginal = new ArrayList<>();
+			List<String> currentAgentTitle = new ArrayList<>();
+			List<String> currentAgentTitlePruned = new ArrayList<>();
+			String currentAgentTitleAcronym = null;
+			long currentAgentTitleWordsTotal = 0;
+
+			Integer firstAcronymIndex = firstAcronymIndex(currentAgentTitleString, preProcessor);
+			if (!TOOL_TITLE_SEPARATOR.matcher(currentAgentTitleString).find() || firstAcronymIndex != null || currentAgentTitleString.split(" ").length > TOOL_TITLE_SEPARATOR_MAX_WORDS) {
+				List<String> currentAgentTitleExtracted = preProcessor.extract(currentAgentTitleString);
+				currentAgentTitleExtractedOriginal.add(String.join(" ", currentAgentTitleExtracted));
+				preProcessor.process(currentAgentTitleString, currentAgentTitleExtracted); // align indexes
+				if (firstAcronymIndex != null) {
+					currentAgentTitleAcronym = currentAgentTitleExtracted.remove(firstAcronymIndex.intValue());
+				}
+				currentAgentTitle.add(String.join(" ", currentAgentTitleExtracted));
+				currentAgentTitlePruned.add(Common.agentTitlePrune(currentAgentTitleExtracted));
+				currentAgentTitleWordsTotal += currentAgentTitleExtracted.size();
+			} else {
+				for (String currentAgentTitleStringPart : TOOL_TITLE_SEPARATOR_ALL.split(currentAgentTitleString)) {
+					List<String> currentAgentTitleExtracted = preProcessor.extract(currentAgentTitleStringPart);
+					currentAgentTitleExtractedOriginal.add(String.join(" ", currentAgentTitleExtracted));
+					preProcessor.process(currentAgentTitleStringPart, currentAgentTitleExtracted); // align indexes
+					currentAgentTitle.add(String.join(" ", currentAgentTitleExtracted));
+					currentAgentTitlePruned.add(Common.agentTitlePrune(currentAgentTitleExtracted));
+					currentAgentTitleWordsTotal += currentAgentTitleExtracted.size();
+				}
+			}
+
+			if (currentAgentTitleWordsTotal < agentTitleWordsTotal || agentTitle.isEmpty()) {
+				agentTitleExtractedOriginal = currentAgentTitleExtractedOriginal;
+				agentTitle = currentAgentTitle;
+				agentTitlePruned = currentAgentTitlePruned;
+				agentTitleAcronym = currentAgentTitleAcronym;
+				agentTitleWordsTotal = currentAgentTitleWordsTotal;
+				titleRest = title.substring(0, from).trim() + " " + title.substring(matcher.start()).trim();
+			}
+
+			from = matcher.end();
+		}
+
+		if (from == 0) {
+			List<String> agentTitleExtractedStandalone = preProcessor.extract(title);
+			String agentTitleExtractedOriginalStandalone = String.join(" ", agentTitleExtractedStandalone);
+			preProcessor.process(title, agentTitleExtractedStandalone); // align indexes
+			String agentTitlePrunedStandalone = Common.agentTitlePrune(agentTitleExtractedStandalone);
+			if (agentTitlePrunedStandalone.length() <= TOOL_TITLE_STANDALONE_MAX_CHARS) {
+				agentTitleExtractedOriginal.add(agentTitleExtractedOriginalStandalone);
+				agentTitle.add(String.join(" ", agentTitleExtractedStandalone));
+				agentTitlePruned.add(agentTitlePrunedStandalone);
+				titleRest = "";
+			}
+		}
+
+		if (!agentTitle.isEmpty()) {
+			List<String> agentTitleProcessed = new ArrayList<>();
+			for (int i = 0; i < agentTitle.size(); ++i) {
+				agentTitleProcessed.add(String.join(" ", preProcessor.process(agentTitle.get(i))));
+			}
+			List<String> agentTitleProcessedDone = new ArrayList<>();
+			for (int i = 0; i < agentTitleProcessed.size(); ++i) {
+				if (!agentTitleProcessedDone.contains(agentTitleProcessed.get(i))) {
+					List<String> agentTitleOthers = new ArrayList<>();
+					for (int j = 0; j < agentTitle.size(); ++j) {
+						if (!agentTitle.get(i).equals(agentTitle.get(j))) {
+							agentTitleOthers.add(agentTitle.get(j));
+						}
+					}
+					List<String> agentTitleProcessedOthers = new ArrayList<>();
+					for (int j = 0; j < agentTitleProcessed.size(); ++j) {
+						if (!agentTitleProcessed.get(i).equals(agentTitleProcessed.get(j))) {
+							agentTitleProcessedOthers.add(agentTitleProcessed.get(j));
+						}
+					}
+					makeResult(results, publication,
+						title, titleRest, agentTitle.size(), agentTitleExtractedOriginal.get(i), agentTitle.get(i), agentTitlePruned.get(i), agentTitleAcronym, agentTitleOthers, agentTitleProcessedOthers,
+						hostIgnore, beforeTier1, beforeTier2, beforeTier3, afterTier1, afterTier2, afterTier3,
+						preProcessor, idf, nameProvided, webpageUrlsProvided);
+					agentTitleProcessedDone.add(agentTitleProcessed.get(i));
+				}
+			}
+		} else {
+			makeResult(results, publication,
+				title, titleRest, 0, null, null, null, null, null, null,
+				hostIgnore, beforeTier1, beforeTier2, beforeTier3, afterTier1, afterTier2, afterTier3,
+				preProcessor, idf, nameProvided, webpageUrlsProvided);
+		}
+
+		return results;
+	}
+
+	private static Writer newWriter(Path path) throws IOException {
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+		encoder.onMalformedInput(CodingErrorAction.REPLACE);
+		encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), encoder));
+	}
+
+	private static String schemaLink(String link) {
+		if (!Common.SCHEMA_START.matcher(link).find()) {
+			return "http://" + link;
+		}
+		return link;
+	}
+
 	private static void writeLinks(Writer writer, List<String> links) throws IOException {
 		for (String link : links) {
-			if (!Common.SCHEMA_START.matcher(link).find()) {
-				writer.write("http://");
-			}
-			writer.write(link);
+			writer.write(schemaLink(link));
 			writer.write("\n");
 		}
 	}
 
 	public static void run(Path outputPath, PreProcessor preProcessor, String logPrefix, Idf idfProvided, List<Publication> publicationsProvided, String nameProvided, List<String> webpageUrlsProvided) throws IOException {
-		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
-
-		List<String> hostIgnore = PubFetcher.getResource(Pass1.class, "pass1/host_ignore.txt");
-		List<String> beforeTier1 = PubFetcher.getResource(Pass1.class, "pass1/before_tier1.txt");
-		List<String> beforeTier2 = PubFetcher.getResource(Pass1.class, "pass1/before_tier2.txt");
-		List<String> beforeTier3 = PubFetcher.getResource(Pass1.class, "pass1/before_tier3.txt");
-		List<String> afterTier1 = PubFetcher.getResource(Pass1.class, "pass1/after_tier1.txt");
-		List<String> afterTier2 = PubFetcher.getResource(Pass1.class, "pass1/after_tier2.txt");
-		List<String> afterTier3 = PubFetcher.getResource(Pass1.class, "pass1/after_tier3.txt");
+		run(new Pass1Engine(), outputPath, Collections.singletonList(preProcessor), 0, logPrefix, idfProvided, publicationsProvided, nameProvided, webpageUrlsProvided);
+	}
 
-		Idf idf;
+	private static Idf getIdf(Path outputPath, Idf idfProvided, String logPrefix) throws IOException {
 		if (idfProvided != null) {
-			idf = idfProvided;
+			return idfProvided;
 		} else {
 			String idfFile = outputPath.resolve(Common.IDF_FILE).toString();
-			logger.info(mainMarker, "{}Loading IDF from {}", logPrefix, idfFile);
-			idf = new Idf(idfFile);
+			logger.info(MarkerManager.getMarker(Common.MAIN_MARKER), "{}Loading IDF from {}", logPrefix, idfFile);
+			return new Idf(idfFile);
 		}
+	}
 
-		Set<Publication> publications;
-		if (publicationsProvided != null) {
-			publications = new LinkedHashSet<>(publicationsProvided);
-		} else {
-			String pubFile = outputPath.resolve(Common.PUB_FILE).toString();
-			String dbFile = outputPath.resolve(Common.DB_FILE).toString();
-			logger.info(mainMarker, "{}Loading publications from {} for IDs found in {}", logPrefix, dbFile, pubFile);
-			publications = new LinkedHashSet<>(PubFetcher.getPublications(dbFile, Collections.singletonList(pubFile), Common.PUB_FILE));
+	private static void divideLinks(Result1 result, List<String> webpages, List<String> docs) {
+		for (Suggestion1 suggestion : result.getSuggestions()) {
+			List<BioagentsLink<LinkType>> linkLinks = new ArrayList<>();
+			List<BioagentsLink<DownloadType>> downloadLinks = new ArrayList<>();
+			List<BioagentsLink<DocumentationType>> documentationLinks = new ArrayList<>();
+			Common.makeBioagentsLinks(suggestion.getLinksAbstract(), linkLinks, downloadLinks, documentationLinks);
+			Common.makeBioagentsLinks(suggestion.getLinksFulltext(), linkLinks, downloadLinks, documentationLinks);
+			linkLinks.forEach(link -> webpages.add(link.getUrl()));
+			downloadLinks.forEach(link -> webpages.add(link.getUrl()));
+			documentationLinks.forEach(link -> docs.add(link.getUrl()));
 		}
+	}
 
-		Path webPath = PubFetcher.outputPath(outputPath.resolve(Common.WEB_FILE).toString());
-		Path docPath = PubFetcher.outputPath(outputPath.resolve(Common.DOC_FILE).toString());
-		Path pass1Path = PubFetcher.outputPath(outputPath.resolve(Common.PASS1_FILE).toString());
+	// one thread per given PreProcessor, at most around chunkSize results kept in memory (if chunkSize > 0)
+	// results of unchanged publications are taken from store and results of new or changed publications are saved there, if store is not null
+	public static void run(Pass1Engine engine, Path outputPath, List<PreProcessor> preProcessors, int chunkSize, String logPrefix, Idf idfProvided, List<Publication> publicationsProvided, String nameProvided, List<String> webpageUrlsProvided, Pass1Store store) throws IOException {
+		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
 
-		List<Result1> results = new ArrayList<>();
+		Idf idf = getIdf(outputPath, idfProvided, logPrefix);
 
-		logger.info(mainMarker, "{}Making results from {} publications", logPrefix, publications.size());
+		if (publicationsProvided != null) {
+			List<Publication> publicationList = new ArrayList<>(new LinkedHashSet<>(publicationsProvided));
+			logger.info(mainMarker, "{}Making results from {} publications", logPrefix, publicationList.size());
+			int blockSize = (chunkSize > 0 ? chunkSize : Math.max(publicationList.size(), 1));
+			List<List<Publication>> blocks = new ArrayList<>();
+			for (int blockStart = 0; blockStart < publicationList.size(); blockStart += blockSize) {
+				blocks.add(publicationList.subList(blockStart, Math.min(blockStart + blockSize, publicationList.size())));
+			}
+			run(engine, outputPath, preProcessors, chunkSize, logPrefix, idf, blocks.iterator(), publicationList.size(), null, false, nameProvided, webpageUrlsProvided, null, null, store);
+			return;
+		}
+
+		// with chunkSize, publications are loaded from the database in blocks, so that only one block of publications and its results at a time need to be kept in memory before adding to the sorter
+		Path pubPath = outputPath.resolve(Common.PUB_FILE);
+		String dbFile = outputPath.resolve(Common.DB_FILE).toString();
+		List<String> pubLines = new ArrayList<>(new LinkedHashSet<>(Files.readAllLines(pubPath, StandardCharsets.UTF_8).stream()
+			.filter(l -> !l.trim().isEmpty() && !l.trim().startsWith("#")).collect(Collectors.toList())));
+		logger.info(mainMarker, "{}Making results from {} publications loaded from {} for IDs found in {}", logPrefix, pubLines.size(), dbFile, pubPath.toString());
+
+		int blockSize = (chunkSize > 0 ? chunkSize : Math.max(pubLines.size(), 1));
+		Iterator<List<Publication>> blocks = new Iterator<List<Publication>>() {
+			private int blockStart = 0;
+			@Override
+			public boolean hasNext() {
+				return blockStart < pubLines.size();
+			}
+			@Override
+			public List<Publication> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				List<String> block = pubLines.subList(blockStart, Math.min(blockStart + blockSize, pubLines.size()));
+				blockStart += blockSize;
+				try {
+					Path blockPath = Files.createTempFile(outputPath, "pub_", ".txt");
+					try {
+						Files.write(blockPath, block, StandardCharsets.UTF_8);
+						return PubFetcher.getPublications(dbFile, Collections.singletonList(blockPath.toString()), Common.PUB_FILE);
+					} finally {
+						Files.deleteIfExists(blockPath);
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
 
-		CharsetEncoder webEncoder = StandardCharsets.UTF_8.newEncoder();
-		webEncoder.onMalformedInput(CodingErrorAction.REPLACE);
-		webEncoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		// publications of different IDs can be the same publication, so publicationsDone is used for removing publications already in previous blocks
+		run(engine, outputPath, preProcessors, chunkSize, logPrefix, idf, blocks, pubLines.size(), new HashSet<>(), true, nameProvided, webpageUrlsProvided, null, null, store);
+	}
 
-		CharsetEncoder docEncoder = StandardCharsets.UTF_8.newEncoder();
-		docEncoder.onMalformedInput(CodingErrorAction.REPLACE);
-		docEncoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	// results and webpage and doc URLs are returned instead of written to pass1.json, web.txt and doc.txt, unless outputPath is not null
+	public static Pass1Output run(Pass1Engine engine, PreProcessor preProcessor, String logPrefix, Idf idf, List<Publication> publicationsProvided, String nameProvided, List<String> webpageUrlsProvided, Path outputPath) throws IOException {
+		List<Publication> publicationList = new ArrayList<>(new LinkedHashSet<>(publicationsProvided));
 
-		CharsetEncoder pass1Encoder = StandardCharsets.UTF_8.newEncoder();
-		pass1Encoder.onMalformedInput(CodingErrorAction.REPLACE);
-		pass1Encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		logger.info(MarkerManager.getMarker(Common.MAIN_MARKER), "{}Making results from {} publications", logPrefix, publicationList.size());
 
-		try (BufferedWriter webWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(webPath), webEncoder));
-				BufferedWriter docWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(docPath), docEncoder));
-				BufferedWriter pass1Writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(pass1Path), pass1Encoder))) {
+		Pass1Output output = new Pass1Output();
+		run(engine, outputPath, Collections.singletonList(preProcessor), 0, logPrefix, idf, Collections.singletonList(publicationList).iterator(), publicationList.size(), null, false, nameProvided, webpageUrlsProvided, null, output, null);
+		return output;
+	}
 
-			int publicationIndex = 0;
-			long start = System.currentTimeMillis();
-			for (Publication publication : publications) {
-				++publicationIndex;
-				System.err.print(PubFetcher.progress(publicationIndex, publications.size(), start) + "  \r");
+	// publications are taken from publicationBlocks one block at a time (next() can wait until the next block is available), so that processing can start before all publications are fetched
+	// webpage and doc URLs of the results of each processed block are given to blockLinks, so that fetching them can also start early
+	public static void run(Pass1Engine engine, Path outputPath, List<PreProcessor> preProcessors, int chunkSize, String logPrefix, Iterator<List<Publication>> publicationBlocks, int publicationsSize, BiConsumer<List<String>, List<String>> blockLinks, Pass1Store store) throws IOException {
+		Idf idf = getIdf(outputPath, null, logPrefix);
 
-				if (publication.getAbstract().getSize() > ABSTRACT_MAX_LENGTH && publicationsProvided == null) {
-					logger.info("Skipping publication {}, as length of abstract ({}) is larger than allowed ({})", publication.toStringId(), publication.getAbstract().getSize(), ABSTRACT_MAX_LENGTH);
-					continue;
-				}
-				if (publication.getFulltext().getSize() > FULLTEXT_MAX_LENGTH && publicationsProvided == null) {
-					logger.info("Skipping publication {}, as length of fulltext ({}) is larger than allowed ({})", publication.toStringId(), publication.getFulltext().getSize(), FULLTEXT_MAX_LENGTH);
-					continue;
-				}
+		logger.info(MarkerManager.getMarker(Common.MAIN_MARKER), "{}Making results from publications as they are fetched", logPrefix);
 
-				List<String> agentTitleExtractedOriginal = new ArrayList<>();
-				List<String> agentTitle = new ArrayList<>();
-				List<String> agentTitlePruned = new ArrayList<>();
-				String agentTitleAcronym = null;
-				long agentTitleWordsTotal = 0;
+		run(engine, outputPath, preProcessors, chunkSize, logPrefix, idf, publicationBlocks, publicationsSize, new HashSet<>(), true, null, null, blockLinks, null, store);
+	}
 
-				String title = publication.getTitle().getContent();
-				String titleRest = title;
+	// publicationsDone is for removing publications already in previous blocks, if blocks are not made from a set of publications
+	// files are written if outputPath is not null and results are added to output if it is not null
+	private static void run(Pass1Engine engine, Path outputPath, List<PreProcessor> preProcessors, int chunkSize, String logPrefix, Idf idf, Iterator<List<Publication>> publicationBlocks, int publicationsSize, Set<PubIds> publicationsDone,
+			boolean checkLength, String nameProvided, List<String> webpageUrlsProvided, BiConsumer<List<String>, List<String>> blockLinks, Pass1Output output, Pass1Store store) throws IOException {
+		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
 
-				int from = 0;
-				Matcher matcher = Common.TITLE_SEPARATOR.matcher(title);
+		Path webPath = (outputPath != null ? PubFetcher.outputPath(outputPath.resolve(Common.WEB_FILE).toString()) : null);
+		Path docPath = (outputPath != null ? PubFetcher.outputPath(outputPath.resolve(Common.DOC_FILE).toString()) : null);
+		Path pass1Path = (outputPath != null ? PubFetcher.outputPath(outputPath.resolve(Common.PASS1_FILE).toString()) : null);
 
-				while (from < title.length() && matcher.find(from)) {
-					String currentAgentTitleString = title.substring(from, matcher.start()).trim();
-					if (TOOL_TITLE_INVALID.matcher(currentAgentTitleString).matches()) {
-						from = matcher.end();
-						continue;
-					}
+		try (Writer webWriter = (webPath != null ? newWriter(webPath) : Writer.nullWriter());
+				Writer docWriter = (docPath != null ? newWriter(docPath) : Writer.nullWriter());
+				Writer pass1Writer = (pass1Path != null ? newWriter(pass1Path) : Writer.nullWriter());
+				Result1Sorter sorter = new Result1Sorter(chunkSize, outputPath)) {
 
-					List<String> currentAgentTitleExtractedOriginal = new ArrayList<>();
-					List<String> currentAgentTitle = new ArrayList<>();
-					List<String> currentAgentTitlePruned = new ArrayList<>();
-					String currentAgentTitleAcronym = null;
-					long currentAgentTitleWordsTotal = 0;
-
-					Integer firstAcronymIndex = firstAcronymIndex(currentAgentTitleString, preProcessor);
-					if (!TOOL_TITLE_SEPARATOR.matcher(currentAgentTitleString).find() || firstAcronymIndex != null || currentAgentTitleString.split(" ").length > TOOL_TITLE_SEPARATOR_MAX_WORDS) {
-						List<String> currentAgentTitleExtracted = preProcessor.extract(currentAgentTitleString);
-						currentAgentTitleExtractedOriginal.add(String.join(" ", currentAgentTitleExtracted));
-						preProcessor.process(currentAgentTitleString, currentAgentTitleExtracted); // align indexes
-						if (firstAcronymIndex != null) {
-							currentAgentTitleAcronym = currentAgentTitleExtracted.remove(firstAcronymIndex.intValue());
-						}
-						currentAgentTitle.add(String.join(" ", currentAgentTitleExtracted));
-						currentAgentTitlePruned.add(Common.agentTitlePrune(currentAgentTitleExtracted));
-						currentAgentTitleWordsTotal += currentAgentTitleExtracted.size();
-					} else {
-						for (String currentAgentTitleStringPart : TOOL_TITLE_SEPARATOR_ALL.split(currentAgentTitleString)) {
-							List<String> currentAgentTitleExtracted = preProcessor.extract(currentAgentTitleStringPart);
-							currentAgentTitleExtractedOriginal.add(String.join(" ", currentAgentTitleExtracted));
-							preProcessor.process(currentAgentTitleStringPart, currentAgentTitleExtracted); // align indexes
-							currentAgentTitle.add(String.join(" ", currentAgentTitleExtracted));
-							currentAgentTitlePruned.add(Common.agentTitlePrune(currentAgentTitleExtracted));
-							currentAgentTitleWordsTotal += currentAgentTitleExtracted.size();
-						}
-					}
+			AtomicInteger publicationDone = new AtomicInteger();
+			long start = System.currentTimeMillis();
 
-					if (currentAgentTitleWordsTotal < agentTitleWordsTotal || agentTitle.isEmpty()) {
-						agentTitleExtractedOriginal = currentAgentTitleExtractedOriginal;
-						agentTitle = currentAgentTitle;
-						agentTitlePruned = currentAgentTitlePruned;
-						agentTitleAcronym = currentAgentTitleAcronym;
-						agentTitleWordsTotal = currentAgentTitleWordsTotal;
-						titleRest = title.substring(0, from).trim() + " " + title.substring(matcher.start()).trim();
+			if (preProcessors.size() > 1) {
+				logger.info(mainMarker, "{}Using {} threads", logPrefix, preProcessors.size());
+			}
+			PreProcessorCache preProcessorCache = new PreProcessorCache(Common.PREPROCESSOR_CACHE_SIZE);
+			List<CachedPreProcessor> cachedPreProcessors = new ArrayList<>();
+			for (PreProcessor preProcessor : preProcessors) {
+				cachedPreProcessors.add(new CachedPreProcessor(preProcessor, preProcessorCache));
+			}
+			BlockingQueue<CachedPreProcessor> freePreProcessors = new ArrayBlockingQueue<>(cachedPreProcessors.size(), false, cachedPreProcessors);
+			ExecutorService executor = Executors.newFixedThreadPool(preProcessors.size());
+			try {
+				while (publicationBlocks.hasNext()) {
+					List<Publication> blockNext = publicationBlocks.next();
+					List<Publication> block = (publicationsDone == null ? blockNext : blockNext.stream()
+						.filter(p -> publicationsDone.add(new PubIds(p.getPmid().getContent(), p.getPmcid().getContent(), p.getDoi().getContent())))
+						.collect(Collectors.toList()));
+					List<Future<List<Result1>>> futures = new ArrayList<>();
+					for (Publication publication : block) {
+						futures.add(executor.submit(() -> {
+							CachedPreProcessor preProcessor = freePreProcessors.take();
+							try {
+								List<Result1> results = null;
+								String hash = null;
+								PubIds pubIds = null;
+								if (store != null) {
+									hash = store.hash(publication, checkLength, nameProvided, webpageUrlsProvided);
+									pubIds = Pass1Store.pubIds(publication);
+									results = store.get(hash, pubIds);
+									if (results != null) {
+										Pass1Store.setVolatile(results, publication);
+									}
+								}
+								if (results == null) {
+									results = makePublicationResults(publication, checkLength,
+										engine.hostIgnore, engine.beforeTier1, engine.beforeTier2, engine.beforeTier3, engine.afterTier1, engine.afterTier2, engine.afterTier3,
+										preProcessor, idf, nameProvided, webpageUrlsProvided);
+									if (store != null) {
+										store.put(hash, pubIds, results);
+									}
+								}
+								return results;
+							} finally {
+								freePreProcessors.put(preProcessor);
+							}
+						}));
 					}
-
-					from = matcher.end();
-				}
-
-				if (from == 0) {
-					List<String> agentTitleExtractedStandalone = preProcessor.extract(title);
-					String agentTitleExtractedOriginalStandalone = String.join(" ", agentTitleExtractedStandalone);
-					preProcessor.process(title, agentTitleExtractedStandalone); // align indexes
-					String agentTitlePrunedStandalone = Common.agentTitlePrune(agentTitleExtractedStandalone);
-					if (agentTitlePrunedStandalone.length() <= TOOL_TITLE_STANDALONE_MAX_CHARS) {
-						agentTitleExtractedOriginal.add(agentTitleExtractedOriginalStandalone);
-						agentTitle.add(String.join(" ", agentTitleExtractedStandalone));
-						agentTitlePruned.add(agentTitlePrunedStandalone);
-						titleRest = "";
+					// results are taken in publication order and progress is printed only from here
+					List<List<Result1>> publicationResults = new ArrayList<>();
+					for (Future<List<Result1>> future : futures) {
+						try {
+							publicationResults.add(future.get());
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							throw new RuntimeException(e);
+						} catch (ExecutionException e) {
+							if (e.getCause() instanceof RuntimeException) {
+								throw (RuntimeException) e.getCause();
+							} else {
+								throw new RuntimeException(e.getCause());
+							}
+						}
+						System.err.print(PubFetcher.progress(publicationDone.incrementAndGet(), publicationsSize, start) + "  \r");
 					}
-				}
-
-				if (!agentTitle.isEmpty()) {
-					List<String> agentTitleProcessed = new ArrayList<>();
-					for (int i = 0; i < agentTitle.size(); ++i) {
-						agentTitleProcessed.add(String.join(" ", preProcessor.process(agentTitle.get(i))));
+					// add in publication order, so that sorting gives the same result as a sequential run
+					for (List<Result1> publicationResult : publicationResults) {
+						sorter.addAll(publicationResult);
 					}
-					List<String> agentTitleProcessedDone = new ArrayList<>();
-					for (int i = 0; i < agentTitleProcessed.size(); ++i) {
-						if (!agentTitleProcessedDone.contains(agentTitleProcessed.get(i))) {
-							List<String> agentTitleOthers = new ArrayList<>();
-							for (int j = 0; j < agentTitle.size(); ++j) {
-								if (!agentTitle.get(i).equals(agentTitle.get(j))) {
-									agentTitleOthers.add(agentTitle.get(j));
-								}
+					if (blockLinks != null) {
+						List<String> webpages = new ArrayList<>();
+						List<String> docs = new ArrayList<>();
+						for (List<Result1> publicationResult : publicationResults) {
+							for (Result1 result : publicationResult) {
+								divideLinks(result, webpages, docs);
 							}
-							List<String> agentTitleProcessedOthers = new ArrayList<>();
-							for (int j = 0; j < agentTitleProcessed.size(); ++j) {
-								if (!agentTitleProcessed.get(i).equals(agentTitleProcessed.get(j))) {
-									agentTitleProcessedOthers.add(agentTitleProcessed.get(j));
-								}
-							}
-							makeResult(results, publication,
-								title, titleRest, agentTitle.size(), agentTitleExtractedOriginal.get(i), agentTitle.get(i), agentTitlePruned.get(i), agentTitleAcronym, agentTitleOthers, agentTitleProcessedOthers,
-								hostIgnore, beforeTier1, beforeTier2, beforeTier3, afterTier1, afterTier2, afterTier3,
-								preProcessor, idf, nameProvided, webpageUrlsProvided);
-							agentTitleProcessedDone.add(agentTitleProcessed.get(i));
 						}
+						blockLinks.accept(webpages, docs);
 					}
-				} else {
-					makeResult(results, publication,
-						title, titleRest, 0, null, null, null, null, null, null,
-						hostIgnore, beforeTier1, beforeTier2, beforeTier3, afterTier1, afterTier2, afterTier3,
-						preProcessor, idf, nameProvided, webpageUrlsProvided);
 				}
+			} finally {
+				executor.shutdownNow();
 			}
 
-			logger.info(mainMarker, "{}Made {} results from {} publications", logPrefix, results.size(), publications.size());
+			logger.info(mainMarker, "{}Made {} results from {} publications", logPrefix, sorter.size(), publicationDone.get());
+			if (store != null) {
+				logger.info(mainMarker, "{}Results of {} unchanged publications were taken from the pass1 store, results of {} new or changed publications were made", logPrefix, store.getHits(), store.getMisses());
+			}
+			logger.info(mainMarker, "{}PreProcessor cache had {} hits and {} misses, {} entries kept", logPrefix, preProcessorCache.getHits(), preProcessorCache.getMisses(), preProcessorCache.size());
 
-			logger.info(mainMarker, "{}Sorting results", logPrefix);
-			Collections.sort(results);
+			if (sorter.getRunsSize() > 0) {
+				logger.info(mainMarker, "{}Sorting results by merging {} sorted runs", logPrefix, sorter.getRunsSize() + 1);
+			} else {
+				logger.info(mainMarker, "{}Sorting results", logPrefix);
+			}
+			Iterator<Result1> results = sorter.iterator();
 
 			List<String> webpages = new ArrayList<>();
 			List<String> docs = new ArrayList<>();
 
-			logger.info(mainMarker, "{}Dividing links to webpages and docs", logPrefix);
-			for (Result1 result : results) {
-				for (Suggestion1 suggestion : result.getSuggestions()) {
-					List<BioagentsLink<LinkType>> linkLinks = new ArrayList<>();
-					List<BioagentsLink<DownloadType>> downloadLinks = new ArrayList<>();
-					List<BioagentsLink<DocumentationType>> documentationLinks = new ArrayList<>();
-					Common.makeBioagentsLinks(suggestion.getLinksAbstract(), linkLinks, downloadLinks, documentationLinks);
-					Common.makeBioagentsLinks(suggestion.getLinksFulltext(), linkLinks, downloadLinks, documentationLinks);
-					linkLinks.forEach(link -> webpages.add(link.getUrl()));
-					downloadLinks.forEach(link -> webpages.add(link.getUrl()));
-					documentationLinks.forEach(link -> docs.add(link.getUrl()));
+			if (outputPath != null) {
+				logger.info(mainMarker, "{}Dividing links to webpages and docs and writing {} pass1 results to {}", logPrefix, sorter.size(), pass1Path.toString());
+			} else {
+				logger.info(mainMarker, "{}Dividing links to webpages and docs of {} pass1 results", logPrefix, sorter.size());
+			}
+			ObjectMapper mapper = new ObjectMapper();
+			mapper.enable(SerializationFeature.INDENT_OUTPUT);
+			mapper.enable(SerializationFeature.CLOSE_CLOSEABLE);
+			SequenceWriter pass1SequenceWriter = (outputPath != null ? mapper.writer().writeValuesAsArray(pass1Writer) : null);
+			while (results.hasNext()) {
+				Result1 result = results.next();
+				if (pass1SequenceWriter != null) {
+					pass1SequenceWriter.write(result);
+				}
+				if (output != null) {
+					output.getResults().add(result);
 				}
+				divideLinks(result, webpages, docs);
 			}
 			if (webpageUrlsProvided != null && !webpageUrlsProvided.isEmpty()) {
 				List<String> webpageUrlsProvidedNotAdded = new ArrayList<>();
@@ -1699,16 +1889,25 @@ public final class Pass1 {
 				}
 			}
 
-			logger.info(mainMarker, "{}Writing {} webpage URLs to {}", logPrefix, webpages.size(), webPath.toString());
-			writeLinks(webWriter, webpages);
-			logger.info(mainMarker, "{}Writing {} doc URLs to {}", logPrefix, docs.size(), docPath.toString());
-			writeLinks(docWriter, docs);
+			if (outputPath != null) {
+				logger.info(mainMarker, "{}Writing {} webpage URLs to {}", logPrefix, webpages.size(), webPath.toString());
+				writeLinks(webWriter, webpages);
+				logger.info(mainMarker, "{}Writing {} doc URLs to {}", logPrefix, docs.size(), docPath.toString());
+				writeLinks(docWriter, docs);
+			}
+			if (output != null) {
+				webpages.forEach(link -> output.getWebpages().add(schemaLink(link)));
+				docs.forEach(link -> output.getDocs().add(schemaLink(link)));
+			}
+
+			if (pass1SequenceWriter != null) {
+				pass1SequenceWriter.close();
+			}
 
-			logger.info(mainMarker, "{}Writing {} pass1 results to {}", logPrefix, results.size(), pass1Path.toString());
-			ObjectMapper mapper = new ObjectMapper();
-			mapper.enable(SerializationFeature.INDENT_OUTPUT);
-			mapper.enable(SerializationFeature.CLOSE_CLOSEABLE);
-			mapper.writeValue(pass1Writer, results);
+			if (store != null) {
+				int storeSize = store.save();
+				logger.info(mainMarker, "{}Saved results of {} publications to pass1 store {}", logPrefix, storeSize, store.getPath().toString());
+			}
 		}
 	}
 }
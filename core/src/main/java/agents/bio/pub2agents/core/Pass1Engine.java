@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.edamontology.pubfetcher.core.common.PubFetcher;
+
+// Resources of pass1, loaded once and then only read, so that one instance can be shared by runs in different threads
+public final class Pass1Engine {
+
+	final List<String> hostIgnore;
+	final List<String> beforeTier1;
+	final List<String> beforeTier2;
+	final List<String> beforeTier3;
+	final List<String> afterTier1;
+	final List<String> afterTier2;
+	final List<String> afterTier3;
+
+	public Pass1Engine() {
+		hostIgnore = Collections.unmodifiableList(PubFetcher.getResource(Pass1.class, "pass1/host_ignore.txt"));
+		beforeTier1 = Collections.unmodifiableList(PubFetcher.getResource(Pass1.class, "pass1/before_tier1.txt"));
+		beforeTier2 = Collections.unmodifiableList(PubFetcher.getResource(Pass1.class, "pass1/before_tier2.txt"));
+		beforeTier3 = Collections.unmodifiableList(PubFetcher.getResource(Pass1.class, "pass1/before_tier3.txt"));
+		afterTier1 = Collections.unmodifiableList(PubFetcher.getResource(Pass1.class, "pass1/after_tier1.txt"));
+		afterTier2 = Collections.unmodifiableList(PubFetcher.getResource(Pass1.class, "pass1/after_tier2.txt"));
+		afterTier3 = Collections.unmodifiableList(PubFetcher.getResource(Pass1.class, "pass1/after_tier3.txt"));
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Pass1 results and webpage and doc URLs kept in memory, the same content that is otherwise written to pass1.json, web.txt and doc.txt
+public final class Pass1Output {
+
+	private final List<Result1> results = new ArrayList<>();
+
+	private final List<String> webpages = new ArrayList<>();
+
+	private final List<String> docs = new ArrayList<>();
+
+	Pass1Output() {
+	}
+
+	public List<Result1> getResults() {
+		return results;
+	}
+
+	public List<String> getWebpages() {
+		return webpages;
+	}
+
+	public List<String> getDocs() {
+		return docs;
+	}
+}
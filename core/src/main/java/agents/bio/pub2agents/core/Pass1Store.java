@@ -0,0 +1,328 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.edamontology.pubfetcher.core.common.Arg;
+import org.edamontology.pubfetcher.core.db.publication.Publication;
+
+import org.edamontology.edammap.core.preprocessing.PreProcessorArgs;
+
+// Pass1 results of publications from previous runs, so that only new or changed publications have to be processed again
+// Results of a publication are reused only if all its fields used in pass1, the pass1 resources, the IDF file, the preprocessing arguments and the version are the same
+// Each line of the store file contains the hash, the PMID, PMCID and DOI and the results in JSON, separated by tabs
+// Only the location of each line in the store file is kept in memory, results made in a run are written to a temporary file as they are made
+public final class Pass1Store {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final String FORMAT = "2";
+
+	private static final class Entry {
+		private final PubIds pubIds;
+		private final long offset;
+		private final int length;
+		private Entry(PubIds pubIds, long offset, int length) {
+			this.pubIds = pubIds;
+			this.offset = offset;
+			this.length = length;
+		}
+	}
+
+	private final Path path;
+
+	private final byte[] resourcesHash;
+
+	// not modified after the constructor
+	private final Map<String, Entry> loaded = new HashMap<>();
+
+	private final FileChannel channel;
+
+	private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+	private Path addedPath = null;
+
+	private Writer addedWriter = null;
+
+	private final Set<PubIds> pubIdsDone = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private final AtomicInteger misses = new AtomicInteger();
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	public Pass1Store(Path path, Pass1Engine engine, Path idfPath, PreProcessorArgs preProcessorArgs, String version) throws IOException {
+		this.path = path;
+
+		MessageDigest digest = newDigest();
+		update(digest, FORMAT);
+		update(digest, version);
+		for (List<String> resource : Arrays.asList(engine.hostIgnore, engine.beforeTier1, engine.beforeTier2, engine.beforeTier3, engine.afterTier1, engine.afterTier2, engine.afterTier3)) {
+			update(digest, String.join("\n", resource));
+		}
+		update(digest, Files.readAllBytes(idfPath));
+		for (Arg<?, ?> arg : preProcessorArgs.getArgs()) {
+			update(digest, arg.getId() + "=" + arg.getValue());
+		}
+		resourcesHash = digest.digest();
+
+		if (Files.exists(path)) {
+			try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+				long offset = 0;
+				String line;
+				while ((line = reader.readLine()) != null) {
+					int length = line.getBytes(StandardCharsets.UTF_8).length;
+					int[] tabs = tabs(line);
+					if (tabs == null) {
+						logger.warn("Skipping invalid line in pass1 store {}", path.toString());
+					} else {
+						loaded.put(line.substring(0, tabs[0]), new Entry(new PubIds(line.substring(tabs[0] + 1, tabs[1]), line.substring(tabs[1] + 1, tabs[2]), line.substring(tabs[2] + 1, tabs[3])), offset, length));
+					}
+					offset += length + 1;
+				}
+			}
+			channel = FileChannel.open(path, StandardOpenOption.READ);
+		} else {
+			channel = null;
+		}
+	}
+
+	// indexes of the first four tabs of a store line, null if there are less
+	private static int[] tabs(String line) {
+		int[] tabs = new int[4];
+		int from = 0;
+		for (int i = 0; i < tabs.length; ++i) {
+			tabs[i] = line.indexOf('\t', from);
+			if (tabs[i] < 0) {
+				return null;
+			}
+			from = tabs[i] + 1;
+		}
+		return tabs;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	// fields are prefixed with their length, so that different fields can't give the same bytes
+	private static void update(MessageDigest digest, byte[] bytes) {
+		digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+		digest.update(bytes);
+	}
+
+	private static void update(MessageDigest digest, String s) {
+		update(digest, (s != null ? s : "\0").getBytes(StandardCharsets.UTF_8));
+	}
+
+	static PubIds pubIds(Publication publication) {
+		return new PubIds(publication.getPmid().getContent(), publication.getPmcid().getContent(), publication.getDoi().getContent());
+	}
+
+	// must be called before making results, as making results modifies the corresponding authors of the publication
+	// the publication date and citations are not part of the hash, as they change with every refetch and are only copied to results (see setVolatile)
+	String hash(Publication publication, boolean checkLength, String nameProvided, List<String> webpageUrlsProvided) {
+		MessageDigest digest = newDigest();
+		digest.update(resourcesHash);
+		update(digest, String.valueOf(checkLength));
+		update(digest, nameProvided);
+		update(digest, webpageUrlsProvided != null ? String.join("\n", webpageUrlsProvided) : null);
+		update(digest, publication.getPmid().getContent());
+		update(digest, publication.getPmid().getUrl());
+		update(digest, publication.getPmcid().getContent());
+		update(digest, publication.getPmcid().getUrl());
+		update(digest, publication.getDoi().getContent());
+		update(digest, publication.getDoi().getUrl());
+		update(digest, publication.getTitle().getContent());
+		update(digest, publication.getAbstract().getContent());
+		update(digest, publication.getFulltext().getContent());
+		update(digest, String.valueOf(publication.isOA()));
+		update(digest, String.valueOf(publication.isPreprint()));
+		update(digest, publication.getJournalTitle());
+		try {
+			update(digest, mapper.writeValueAsString(publication.getCorrespAuthor()));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	// results taken from the store get the current publication date and citations of the publication, as these are not part of the hash
+	static void setVolatile(List<Result1> results, Publication publication) {
+		for (Result1 result : results) {
+			result.setPubDate(publication.getPubDate());
+			result.setPubDateHuman(publication.getPubDateHuman());
+			result.setCitationsCount(publication.getCitationsCount());
+			result.setCitationsTimestamp(publication.getCitationsTimestamp());
+			result.setCitationsTimestampHuman(publication.getCitationsTimestampHuman());
+		}
+	}
+
+	// null if results for the publication with the given hash are not in the store
+	List<Result1> get(String hash, PubIds pubIds) {
+		pubIdsDone.add(pubIds);
+		Entry entry = loaded.get(hash);
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		used.add(hash);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, entry.offset + buffer.position()) < 0) {
+					throw new IOException("Unexpected end of pass1 store " + path.toString());
+				}
+			}
+			String line = new String(buffer.array(), StandardCharsets.UTF_8);
+			return mapper.readValue(line.substring(tabs(line)[3] + 1), new TypeReference<List<Result1>>() {});
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	void put(String hash, PubIds pubIds, List<Result1> results) {
+		try {
+			String json = mapper.writeValueAsString(results);
+			synchronized (this) {
+				if (addedWriter == null) {
+					addedPath = Files.createTempFile(path.toAbsolutePath().getParent(), "pass1_store_", ".txt");
+					addedPath.toFile().deleteOnExit();
+					addedWriter = Files.newBufferedWriter(addedPath, StandardCharsets.UTF_8);
+				}
+				write(addedWriter, hash, pubIds, json);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	int getHits() {
+		return hits.get();
+	}
+
+	int getMisses() {
+		return misses.get();
+	}
+
+	// results of publications of this run are kept only for their current hash, results of other publications are kept as they were
+	// old lines are copied from the store file and new lines from the temporary file, so that results are not kept in memory
+	int save() throws IOException {
+		int size = 0;
+		Path tempPath = Files.createTempFile(path.toAbsolutePath().getParent(), "pass1_store_", ".txt");
+		try {
+			try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+				if (channel != null) {
+					channel.close();
+					try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+						long offset = 0;
+						String line;
+						while ((line = reader.readLine()) != null) {
+							int tab = line.indexOf('\t');
+							Entry entry = (tab >= 0 ? loaded.get(line.substring(0, tab)) : null);
+							// a duplicated hash is written only once
+							if (entry != null && entry.offset == offset && (used.contains(line.substring(0, tab)) || !pubIdsDone.contains(entry.pubIds))) {
+								writer.write(line);
+								writer.write("\n");
+								++size;
+							}
+							offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+						}
+					}
+				}
+				synchronized (this) {
+					if (addedWriter != null) {
+						addedWriter.close();
+						try (BufferedReader reader = Files.newBufferedReader(addedPath, StandardCharsets.UTF_8)) {
+							String line;
+							while ((line = reader.readLine()) != null) {
+								writer.write(line);
+								writer.write("\n");
+								++size;
+							}
+						}
+					}
+				}
+			}
+			Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempPath);
+			synchronized (this) {
+				if (addedPath != null) {
+					Files.deleteIfExists(addedPath);
+				}
+			}
+		}
+		return size;
+	}
+
+	private static void write(Writer writer, String hash, PubIds pubIds, String results) throws IOException {
+		writer.write(hash);
+		writer.write("\t");
+		writer.write(pubIds.getPmid());
+		writer.write("\t");
+		writer.write(pubIds.getPmcid());
+		writer.write("\t");
+		writer.write(pubIds.getDoi());
+		writer.write("\t");
+		writer.write(results);
+		writer.write("\n");
+	}
+}
@@ -22,6 +22,7 @@ package agents.bio.pub2agents.core;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
@@ -29,9 +30,11 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.ParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -42,12 +45,18 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
@@ -62,8 +71,6 @@ import org.edamontology.pubfetcher.core.db.Database;
 import org.edamontology.pubfetcher.core.db.publication.CorrespAuthor;
 import org.edamontology.pubfetcher.core.db.publication.Publication;
 import org.edamontology.pubfetcher.core.db.publication.PublicationIds;
-import org.edamontology.pubfetcher.core.db.webpage.Webpage;
-import org.edamontology.pubfetcher.core.scrape.Scrape;
 
 import org.edamontology.edammap.core.idf.Idf;
 import org.edamontology.edammap.core.input.Json;
@@ -78,7 +85,9 @@ import org.edamontology.edammap.core.input.json.Agent;
 import org.edamontology.edammap.core.preprocessing.PreProcessor;
 import org.edamontology.edammap.core.query.QueryType;
 
+import agents.bio.pub2agents.core.Language.LanguageIndex;
 import agents.bio.pub2agents.core.Language.LanguageSearch;
+import agents.bio.pub2agents.core.License.LicenseIndex;
 import agents.bio.pub2agents.core.License.LicenseSearch;
 
 public final class Pass2 {
@@ -145,11 +154,11 @@ public final class Pass2 {
 		"current_license", "modify_license", "current_languages", "add_languages", "current_credits", "modify_credits", "add_credits" };
 	private static final String DOCS_OUTPUT = "https://pub2agents.readthedocs.io/en/latest/output.html#";
 
-	private static boolean isBroken(String url, Database db) {
-		if (db.getWebpage(url, false) != null && !db.getWebpage(url, false).isBroken()) {
+	private static boolean isBroken(String url, WebpageCache webpageCache) {
+		if (webpageCache.getWebpage(url, false) != null && !webpageCache.getWebpage(url, false).isBroken()) {
 			return false;
 		}
-		if (db.getDoc(url, false) != null && !db.getDoc(url, false).isBroken()) {
+		if (webpageCache.getDoc(url, false) != null && !webpageCache.getDoc(url, false).isBroken()) {
 			return false;
 		}
 		return true;
@@ -171,23 +180,9 @@ public final class Pass2 {
 		return false;
 	}
 
-	private static String removeLowestSubdomain(String urlTrimmed) {
-		int slash = urlTrimmed.indexOf('/');
-		int firstDot = urlTrimmed.indexOf('.');
-		if (firstDot >= 0) {
-			int secondDot = urlTrimmed.indexOf('.', firstDot + 1);
-			if (secondDot >= 0) {
-				if (slash < 0 || secondDot < slash) {
-					return urlTrimmed.substring(firstDot + 1);
-				}
-			}
-		}
-		return urlTrimmed;
-	}
-
-	private static void linksMatch(Map<Integer, List<String>> linkMatchMap, String suggestionLink, Suggestion2 suggestion, List<List<String>> queryLinks) {
+	private static void linksMatch(Map<Integer, List<String>> linkMatchMap, String suggestionLink, Suggestion2 suggestion, List<List<String>> queryLinks, BioagentsIndex bioagentsIndex) {
 		suggestionLink = Common.trimUrl(suggestionLink);
-		for (int j = 0; j < queryLinks.size(); ++j) {
+		for (int j : bioagentsIndex.getLink(suggestionLink)) {
 			if (suggestion.getPublicationAndNameExisting() != null && suggestion.getPublicationAndNameExisting().contains(j)
 					|| suggestion.getNameExistingSomePublicationDifferent() != null && suggestion.getNameExistingSomePublicationDifferent().contains(j)
 					|| suggestion.getSomePublicationExistingNameDifferent() != null && suggestion.getSomePublicationExistingNameDifferent().contains(j)) {
@@ -201,8 +196,8 @@ public final class Pass2 {
 					}
 					matchedLinks.add(suggestionLink);
 				} else {
-					String suggestionLinkTrimmed = removeLowestSubdomain(suggestionLink);
-					String queryLinkTrimmed = removeLowestSubdomain(queryLink);
+					String suggestionLinkTrimmed = Common.removeLowestSubdomain(suggestionLink);
+					String queryLinkTrimmed = Common.removeLowestSubdomain(queryLink);
 					String rest = null;
 					String matchedLink = null;
 					if (suggestionLinkTrimmed.startsWith(queryLinkTrimmed)) {
@@ -237,18 +232,18 @@ public final class Pass2 {
 		}
 	}
 
-	private static <T> void removeBroken(List<BioagentsLink<T>> links, Set<BioagentsLink<?>> broken, Database db, boolean doc, String name) {
+	private static <T> void removeBroken(List<BioagentsLink<T>> links, Set<BioagentsLink<?>> broken, WebpageCache webpageCache, boolean doc, String name) {
 		for (Iterator<BioagentsLink<T>> it = links.iterator(); it.hasNext(); ) {
 			BioagentsLink<T> link = it.next();
 			boolean removed = false;
 			if (!doc) {
-				if (db.getWebpage(link.getUrl(), true) == null || db.getWebpage(link.getUrl(), true).isBroken()) {
+				if (webpageCache.getWebpage(link.getUrl(), true) == null || webpageCache.getWebpage(link.getUrl(), true).isBroken()) {
 					broken.add(link);
 					it.remove();
 					removed = true;
 				}
 			} else {
-				if (db.getDoc(link.getUrl(), true) == null || db.getDoc(link.getUrl(), true).isBroken()) {
+				if (webpageCache.getDoc(link.getUrl(), true) == null || webpageCache.getDoc(link.getUrl(), true).isBroken()) {
 					broken.add(link);
 					it.remove();
 					removed = true;
@@ -263,7 +258,7 @@ public final class Pass2 {
 		}
 	}
 
-	private static String chooseHomepage(List<String> links, List<BioagentsLink<LinkType>> linkLinks, List<BioagentsLink<DocumentationType>> documentationLinks, Database db) {
+	private static String chooseHomepage(List<String> links, List<BioagentsLink<LinkType>> linkLinks, List<BioagentsLink<DocumentationType>> documentationLinks, WebpageCache webpageCache) {
 		for (Iterator<BioagentsLink<LinkType>> it = linkLinks.iterator(); it.hasNext(); ) {
 			BioagentsLink<LinkType> linkLink = it.next();
 			if (linkLink.getType() == LinkType.OTHER) {
@@ -299,7 +294,7 @@ public final class Pass2 {
 		}
 		for (String link : links) {
 			link = Common.prependHttp(link);
-			if (db.getWebpage(link, false) != null && !db.getWebpage(link, false).isBroken() || db.getDoc(link, false) != null && !db.getDoc(link, false).isBroken()) {
+			if (webpageCache.getWebpage(link, false) != null && !webpageCache.getWebpage(link, false).isBroken() || webpageCache.getDoc(link, false) != null && !webpageCache.getDoc(link, false).isBroken()) {
 				if (!Common.DOWNLOAD_EXT.matcher(link).find() && Common.BIOTOOLS_SCHEMA_URLFTP_PATTERN.matcher(link).matches()) {
 					return link;
 				}
@@ -325,12 +320,12 @@ public final class Pass2 {
 		return removeIndex;
 	}
 
-	private static String currentHomepage(Agent bioagent, Database db) {
+	private static String currentHomepage(Agent bioagent, WebpageCache webpageCache) {
 		String homepage = bioagent.getHomepage();
 		if (bioagent.getHomepage_status() != 0) {
 			homepage += " (homepage_status: " + bioagent.getHomepage_status() + ")";
 		}
-		Webpage webpage = db.getWebpage(bioagent.getHomepage(), false);
+		WebpageCache.Entry webpage = webpageCache.getWebpage(bioagent.getHomepage(), false);
 		if (webpage != null && webpage.isBroken()) {
 			homepage += " (broken)";
 		}
@@ -414,7 +409,8 @@ public final class Pass2 {
 		return result.getNameWordMatch().stream().map(e -> bioagents.get(e)).map(q -> q.getBioagentsID() + " (" + q.getName() + ")").collect(Collectors.toList());
 	}
 
-	private static List<Integer> addDiffAgent(Suggestion2 suggestion, boolean include, Result2 result, Database db, List<Agent> bioagents, PreProcessor preProcessor, List<Diff> diffs, List<Agent> agents,
+	// diffs are added in the order they are made, merging with diffs of other results is done later in a DiffList
+	private static List<Integer> addDiffAgent(Suggestion2 suggestion, boolean include, Result2 result, WebpageCache webpageCache, List<Agent> bioagents, CachedPreProcessor preProcessor, List<Diff> diffs, List<Agent> agents,
 			String name, String description, String homepage, boolean homepageBroken, boolean homepageMissing, Set<BioagentsLink<LinkType>> linkLinks, Set<BioagentsLink<DownloadType>> downloadLinks, Set<BioagentsLink<DocumentationType>> documentationLinks,
 			Provenance bestLicense, Provenance bestAbstractLicense, List<Provenance> allLanguages, List<Provenance> abstractLanguagesUnique, List<CorrespAuthor> credits, boolean includeAll) {
 		double scoreScore2 = suggestion.getScore2() < 0 ? suggestion.getScore() + 10000 : suggestion.getScore2();
@@ -515,9 +511,9 @@ public final class Pass2 {
 					continue;
 				}
 				if (suggestion.confident()) {
-					DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getPublicationAndNameExisting().get(i), result.getPubIds(), null, null, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, db));
+					diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getPublicationAndNameExisting().get(i), result.getPubIds(), null, null, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, webpageCache));
 				} else {
-					DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getPublicationAndNameExisting().get(i), result.getPubIds(), null, null, null, null, null, null, bestAbstractLicense, abstractLanguagesUnique, credits, db));
+					diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getPublicationAndNameExisting().get(i), result.getPubIds(), null, null, null, null, null, null, bestAbstractLicense, abstractLanguagesUnique, credits, webpageCache));
 				}
 				existing.add(suggestion.getPublicationAndNameExisting().get(i));
 			}
@@ -528,9 +524,9 @@ public final class Pass2 {
 					continue;
 				}
 				if (suggestion.confident()) {
-					DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getNameExistingSomePublicationDifferent().get(i), result.getPubIds(), suggestion.getNameExistingSomePublicationDifferentPubIds().get(i), null, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, db));
+					diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getNameExistingSomePublicationDifferent().get(i), result.getPubIds(), suggestion.getNameExistingSomePublicationDifferentPubIds().get(i), null, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, webpageCache));
 				} else {
-					DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getNameExistingSomePublicationDifferent().get(i), result.getPubIds(), suggestion.getNameExistingSomePublicationDifferentPubIds().get(i), null, null, null, null, null, bestAbstractLicense, abstractLanguagesUnique, credits, db));
+					diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getNameExistingSomePublicationDifferent().get(i), result.getPubIds(), suggestion.getNameExistingSomePublicationDifferentPubIds().get(i), null, null, null, null, null, bestAbstractLicense, abstractLanguagesUnique, credits, webpageCache));
 				}
 				existing.add(suggestion.getNameExistingSomePublicationDifferent().get(i));
 			}
@@ -541,20 +537,20 @@ public final class Pass2 {
 					continue;
 				}
 				if (suggestion.confident()) {
-					DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getSomePublicationExistingNameDifferent().get(i), result.getPubIds(), suggestion.getSomePublicationExistingNameDifferentPubIds().get(i), name, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, db));
+					diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getSomePublicationExistingNameDifferent().get(i), result.getPubIds(), suggestion.getSomePublicationExistingNameDifferentPubIds().get(i), name, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, webpageCache));
 				} else {
-					DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getSomePublicationExistingNameDifferent().get(i), result.getPubIds(), suggestion.getSomePublicationExistingNameDifferentPubIds().get(i), null, null, null, null, null, bestAbstractLicense, abstractLanguagesUnique, credits, db));
+					diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getSomePublicationExistingNameDifferent().get(i), result.getPubIds(), suggestion.getSomePublicationExistingNameDifferentPubIds().get(i), null, null, null, null, null, bestAbstractLicense, abstractLanguagesUnique, credits, webpageCache));
 				}
 				existing.add(suggestion.getSomePublicationExistingNameDifferent().get(i));
 			}
 		}
 
 		for (Integer i : nameExistingPublicationDifferentAddToDiff) {
-			DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getNameExistingPublicationDifferent().get(i), result.getPubIds(), suggestion.getNameExistingPublicationDifferentPubIds().get(i), null, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, db));
+			diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, suggestion.getNameExistingPublicationDifferent().get(i), result.getPubIds(), suggestion.getNameExistingPublicationDifferentPubIds().get(i), null, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, webpageCache));
 			existing.add(suggestion.getNameExistingPublicationDifferent().get(i));
 		}
 		for (Integer i : nameMatchAddToDiff) {
-			DiffGetter.addDiff(diffs, DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, result.getNameMatch().get(i), null, result.getPubIds(), name, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, db));
+			diffs.add(DiffGetter.makeDiff(scoreScore2, possiblyRelated, bioagents, result.getNameMatch().get(i), null, result.getPubIds(), name, homepage, linkLinks, downloadLinks, documentationLinks, bestLicense, allLanguages, credits, webpageCache));
 			existing.add(result.getNameMatch().get(i));
 		}
 
@@ -690,16 +686,32 @@ public final class Pass2 {
 		return conditions;
 	}
 
-	private static Pattern notPattern(String notString) {
+	static Pattern notPattern(String notString) {
 		notString = notString.replace(".", "\\.");
 		Pattern notPattern = Pattern.compile("(?i)([^\\p{L}\\p{N}]|^)"
 			+ Arrays.asList(notString.split(" ")).stream().filter(s -> !s.isEmpty()).collect(Collectors.joining("[^\\p{L}\\p{N}]+")) + "([^\\p{L}\\p{N}]|$)");
 		return notPattern;
 	}
 
-	private static void writeResult(Result2 result, Database db, Writer resultsWriter,
-			List<Agent> bioagents, List<License> licenses, List<Language> languages, List<String> languageKeywords, Scrape scrape, PreProcessor preProcessor,
-			List<Diff> diffs, List<Agent> agents, List<Pattern> notAbstract, List<Pattern> notTitle, boolean includeAll) throws IOException {
+	// the results row, diffs and agents of one result, made independently of other results
+	private static final class ResultOutput {
+		private final String row;
+		private final List<Diff> diffs;
+		private final List<Agent> agents;
+		private ResultOutput(String row, List<Diff> diffs, List<Agent> agents) {
+			this.row = row;
+			this.diffs = diffs;
+			this.agents = agents;
+		}
+	}
+
+	private static ResultOutput writeResult(Result2 result, WebpageCache webpageCache,
+			List<Agent> bioagents, LicenseIndex licenseIndex, LanguageIndex languageIndex, CachedPreProcessor preProcessor,
+			List<Pattern> notAbstract, List<Pattern> notTitle, boolean includeAll) throws IOException {
+
+		Writer resultsWriter = new StringWriter();
+		List<Diff> diffs = new ArrayList<>();
+		List<Agent> agents = new ArrayList<>();
 
 		final String name;
 		if (!result.getSuggestions().isEmpty()) {
@@ -749,23 +761,23 @@ public final class Pass2 {
 
 		String homepageLicense = null;
 		if (!homepage.isEmpty()) {
-			if (db.getWebpage(homepage, false) != null) {
-				homepageLicense = db.getWebpage(homepage, false).getLicense();
-			} else if (db.getDoc(homepage, false) != null) {
-				homepageLicense = db.getDoc(homepage, false).getLicense();
+			if (webpageCache.getWebpage(homepage, false) != null) {
+				homepageLicense = webpageCache.getWebpage(homepage, false).getLicense();
+			} else if (webpageCache.getDoc(homepage, false) != null) {
+				homepageLicense = webpageCache.getDoc(homepage, false).getLicense();
 			}
 			if (homepageLicense != null && !homepageLicense.isEmpty()) {
 				webpageLicenses.add(new Provenance(homepageLicense, homepage));
 			}
 		}
 
-		List<Provenance> linkLicenses = linkLinks.stream().map(l -> db.getWebpage(l.getUrl(), true) != null ? new Provenance(db.getWebpage(l.getUrl(), true).getLicense(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
+		List<Provenance> linkLicenses = linkLinks.stream().map(l -> webpageCache.getWebpage(l.getUrl(), true) != null ? new Provenance(webpageCache.getWebpage(l.getUrl(), true).getLicense(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
 		webpageLicenses.addAll(linkLicenses.stream().filter(p -> !p.isEmpty()).collect(Collectors.toList()));
 
-		List<Provenance> downloadLicenses = downloadLinks.stream().map(l -> db.getWebpage(l.getUrl(), true) != null ? new Provenance(db.getWebpage(l.getUrl(), true).getLicense(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
+		List<Provenance> downloadLicenses = downloadLinks.stream().map(l -> webpageCache.getWebpage(l.getUrl(), true) != null ? new Provenance(webpageCache.getWebpage(l.getUrl(), true).getLicense(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
 		webpageLicenses.addAll(downloadLicenses.stream().filter(p -> !p.isEmpty()).collect(Collectors.toList()));
 
-		List<Provenance> documentationLicenses = documentationLinks.stream().map(l -> db.getDoc(l.getUrl(), true) != null ? new Provenance(db.getDoc(l.getUrl(), true).getLicense(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
+		List<Provenance> documentationLicenses = documentationLinks.stream().map(l -> webpageCache.getDoc(l.getUrl(), true) != null ? new Provenance(webpageCache.getDoc(l.getUrl(), true).getLicense(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
 		webpageLicenses.addAll(documentationLicenses.stream().filter(p -> !p.isEmpty()).collect(Collectors.toList()));
 
 		List<List<Provenance>> abstractLicenses = new ArrayList<>();
@@ -773,7 +785,7 @@ public final class Pass2 {
 			List<String> abstractSentences = result.getAbstractSentences().get(i);
 			String provenance = result.getPubIds().get(i).toString();
 			abstractLicenses.add(abstractSentences.stream()
-				.map(s -> new LicenseSearch(s).bestMatch(licenses, false))
+				.map(s -> new LicenseSearch(s).bestMatch(licenseIndex, false))
 				.filter(l -> l != null)
 				.map(l -> new Provenance(l.getOriginal(), provenance))
 				.collect(Collectors.toList()));
@@ -781,7 +793,7 @@ public final class Pass2 {
 
 		List<Provenance> allLicenses = new ArrayList<>();
 		for (Provenance webpageLicense : webpageLicenses) {
-			License l = new LicenseSearch(webpageLicense.getObject()).bestMatch(licenses, true);
+			License l = new LicenseSearch(webpageLicense.getObject()).bestMatch(licenseIndex, true);
 			if (l != null) {
 				allLicenses.add(new Provenance(l.getOriginal(), webpageLicense.getProvenances()));
 			}
@@ -846,23 +858,23 @@ public final class Pass2 {
 
 		String homepageLanguage = null;
 		if (!homepage.isEmpty()) {
-			if (db.getWebpage(homepage, false) != null) {
-				homepageLanguage = db.getWebpage(homepage, false).getLanguage();
-			} else if (db.getDoc(homepage, false) != null) {
-				homepageLanguage = db.getDoc(homepage, false).getLanguage();
+			if (webpageCache.getWebpage(homepage, false) != null) {
+				homepageLanguage = webpageCache.getWebpage(homepage, false).getLanguage();
+			} else if (webpageCache.getDoc(homepage, false) != null) {
+				homepageLanguage = webpageCache.getDoc(homepage, false).getLanguage();
 			}
 			if (homepageLanguage != null && !homepageLanguage.isEmpty()) {
 				webpageLanguages.add(new Provenance(homepageLanguage, homepage));
 			}
 		}
 
-		List<Provenance> linkLanguages = linkLinks.stream().map(l -> db.getWebpage(l.getUrl(), true) != null ? new Provenance(db.getWebpage(l.getUrl(), true).getLanguage(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
+		List<Provenance> linkLanguages = linkLinks.stream().map(l -> webpageCache.getWebpage(l.getUrl(), true) != null ? new Provenance(webpageCache.getWebpage(l.getUrl(), true).getLanguage(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
 		webpageLanguages.addAll(linkLanguages.stream().filter(p -> !p.isEmpty()).collect(Collectors.toList()));
 
-		List<Provenance> downloadLanguages = downloadLinks.stream().map(l -> db.getWebpage(l.getUrl(), true) != null ? new Provenance(db.getWebpage(l.getUrl(), true).getLanguage(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
+		List<Provenance> downloadLanguages = downloadLinks.stream().map(l -> webpageCache.getWebpage(l.getUrl(), true) != null ? new Provenance(webpageCache.getWebpage(l.getUrl(), true).getLanguage(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
 		webpageLanguages.addAll(downloadLanguages.stream().filter(p -> !p.isEmpty()).collect(Collectors.toList()));
 
-		List<Provenance> documentationLanguages = documentationLinks.stream().map(l -> db.getDoc(l.getUrl(), true) != null ? new Provenance(db.getDoc(l.getUrl(), true).getLanguage(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
+		List<Provenance> documentationLanguages = documentationLinks.stream().map(l -> webpageCache.getDoc(l.getUrl(), true) != null ? new Provenance(webpageCache.getDoc(l.getUrl(), true).getLanguage(), l.getUrl()) : new Provenance()).collect(Collectors.toList());
 		webpageLanguages.addAll(documentationLanguages.stream().filter(p -> !p.isEmpty()).collect(Collectors.toList()));
 
 		List<List<Provenance>> abstractLanguages = new ArrayList<>();
@@ -870,7 +882,7 @@ public final class Pass2 {
 			List<String> abstractSentences = result.getAbstractSentences().get(i);
 			String provenance = result.getPubIds().get(i).toString();
 			abstractLanguages.add(abstractSentences.stream()
-				.map(s -> new LanguageSearch(s).getMatches(languages, false, languageKeywords))
+				.map(s -> new LanguageSearch(s).getMatches(languageIndex, false))
 				.flatMap(l -> l.stream().map(s -> new Provenance(s, provenance)))
 				.collect(Collectors.toList()));
 		}
@@ -892,7 +904,7 @@ public final class Pass2 {
 		}
 
 		webpageLanguages = webpageLanguages.stream()
-			.flatMap(s -> new LanguageSearch(s.getObject()).getMatches(languages, true, languageKeywords).stream().map(l -> new Provenance(l, s.getProvenances())))
+			.flatMap(s -> new LanguageSearch(s.getObject()).getMatches(languageIndex, true).stream().map(l -> new Provenance(l, s.getProvenances())))
 			.collect(Collectors.toList());
 		List<Provenance> allLanguages = new ArrayList<>();
 		for (Provenance l : webpageLanguages) {
@@ -1048,11 +1060,11 @@ public final class Pass2 {
 			}
 		}
 
-		final String description = DescriptionGetter.get(suggestion, include, homepageBroken, homepageMissing, bioagents, result, homepage, linkLinks, documentationLinks, downloadLinks, db, scrape, name, preProcessor);
+		final String description = DescriptionGetter.get(suggestion, include, homepageBroken, homepageMissing, bioagents, result, homepage, linkLinks, documentationLinks, downloadLinks, webpageCache, name, preProcessor.getPreProcessor());
 
 		List<Integer> existing = new ArrayList<>();
 		if (suggestion != null) {
-			existing = addDiffAgent(suggestion, include, result, db, bioagents, preProcessor, diffs, agents,
+			existing = addDiffAgent(suggestion, include, result, webpageCache, bioagents, preProcessor, diffs, agents,
 					name, description, homepage, homepageBroken, homepageMissing, linkLinks, downloadLinks, documentationLinks,
 					bestLicense, bestAbstractLicense, allLanguages, abstractLanguagesUnique, credits, includeAll);
 		}
@@ -1116,7 +1128,7 @@ public final class Pass2 {
 		writeField(resultsWriter, suggestion != null ? suggestion.getHomepage() : null);
 		writeField(resultsWriter, String.valueOf(homepageBroken));
 		writeField(resultsWriter, String.valueOf(homepageMissing));
-		writeField(resultsWriter, existing.stream().map(e -> bioagents.get(e)).map(q -> currentHomepage(q, db)).collect(Collectors.joining(" | ")));
+		writeField(resultsWriter, existing.stream().map(e -> bioagents.get(e)).map(q -> currentHomepage(q, webpageCache)).collect(Collectors.joining(" | ")));
 
 		writeField(resultsWriter, linkLinks.stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | ")));
 		writeField(resultsWriter, existing.stream().map(e -> bioagents.get(e)).map(t -> (t.getLink() == null ? "" : t.getLink().stream().map(l -> l.getUrl() + " (" + l.toStringType() + ")").collect(Collectors.joining(" ; ")))).collect(Collectors.joining(" | ")));
@@ -1245,22 +1257,98 @@ public final class Pass2 {
 		writeField(resultsWriter, existing.stream().map(e -> bioagents.get(e)).map(t -> (t.getCredit() == null ? "" : t.getCredit().stream().map(c -> (c.getUrl() == null ? "" : c.getUrl())).collect(Collectors.joining(" ; ")))).collect(Collectors.joining(" | ")));
 
 		writeField(resultsWriter, credits.stream().map(ca -> ca.toString()).collect(Collectors.joining(" | ")), true);
+
+		return new ResultOutput(resultsWriter.toString(), diffs, agents);
 	}
 
 	@SuppressWarnings("unchecked")
+	private static void mergeResults(Result2 resultI, Result2 resultJ) {
+		resultI.addPubIds(resultJ.getPubIds().get(0));
+
+		resultI.addTitle(resultJ.getTitle().get(0));
+		resultI.addAgentTitleOthers(resultJ.getAgentTitleOthers().get(0));
+		resultI.addAgentTitleExtractedOriginal(resultJ.getAgentTitleExtractedOriginal().get(0));
+		resultI.addAgentTitle(resultJ.getAgentTitle().get(0));
+		resultI.addAgentTitlePruned(resultJ.getAgentTitlePruned().get(0));
+		resultI.addAgentTitleAcronym(resultJ.getAgentTitleAcronym().get(0));
+		resultI.addAbstractSentences(resultJ.getAbstractSentences().get(0));
+		resultI.addOa(resultJ.isOa().get(0));
+		resultI.addPreprint(resultJ.isPreprint().get(0));
+		resultI.addJournalTitle(resultJ.getJournalTitle().get(0));
+		resultI.addPubDate(resultJ.getPubDate().get(0));
+		resultI.addPubDateHuman(resultJ.getPubDateHuman().get(0));
+		resultI.addCitationsCount(resultJ.getCitationsCount().get(0));
+		resultI.addCitationsTimestamp(resultJ.getCitationsTimestamp().get(0));
+		resultI.addCitationsTimestampHuman(resultJ.getCitationsTimestampHuman().get(0));
+
+		resultI.addCorrespAuthor(resultJ.getCorrespAuthor().get(0));
+
+		for (Iterator<Suggestion2> iterI = resultI.getSuggestions().iterator(); iterI.hasNext(); ) {
+			Suggestion2 suggestionI = iterI.next();
+			for (Iterator<Suggestion2> iterJ = resultJ.getSuggestions().iterator(); iterJ.hasNext(); ) {
+				Suggestion2 suggestionJ = iterJ.next();
+				if (suggestionI.getExtracted().equals(suggestionJ.getExtracted())) {
+					if (suggestionI.compareTo(suggestionJ) > 0) {
+						suggestionJ.addLinksAbstract(suggestionI.getLinksAbstract());
+						suggestionJ.addLinksFulltext(suggestionI.getLinksFulltext());
+						iterI.remove();
+					} else {
+						suggestionI.addLinksAbstract(suggestionJ.getLinksAbstract());
+						suggestionI.addLinksFulltext(suggestionJ.getLinksFulltext());
+						iterJ.remove();
+					}
+					break;
+				}
+			}
+		}
+		for (Suggestion2 suggestionJ : resultJ.getSuggestions()) {
+			resultI.addSuggestion(suggestionJ);
+		}
+		Collections.sort(resultI.getSuggestions());
+
+		resultI.addLeftoverLinksAbstract(resultJ.getLeftoverLinksAbstract().get(0));
+		resultI.addLeftoverLinksFulltext(resultJ.getLeftoverLinksFulltext().get(0));
+	}
+
 	public static List<Agent> run(Path outputPath, PreProcessor preProcessor, FetcherArgs fetcherArgs, String logPrefix, Idf idfProvided, List<Agent> bioagentsProvided, Database dbProvided, boolean includeAll, List<Publication> publicationsProvided, String nameProvided, List<String> webpageUrlsProvided) throws IOException, ParseException {
-		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
+		return run(new Pass2Engine(fetcherArgs.getPrivateArgs()), outputPath, Collections.singletonList(preProcessor), fetcherArgs, logPrefix, idfProvided, bioagentsProvided, dbProvided, includeAll, publicationsProvided, nameProvided, webpageUrlsProvided);
+	}
 
-		List<String> license = PubFetcher.getResource(Pass2.class, "pass2/license.txt");
-		List<License> licenses = license.stream().map(l -> new License(l)).collect(Collectors.toList());
-		List<String> language = PubFetcher.getResource(Pass2.class, "pass2/language.txt");
-		List<String> languageKeywords = PubFetcher.getResource(Pass2.class, "pass2/language_keywords.txt");
-		List<Language> languages = language.stream().map(l -> new Language(l)).collect(Collectors.toList());
+	// results are written using as many threads as there are preProcessors
+	public static List<Agent> run(Pass2Engine engine, Path outputPath, List<PreProcessor> preProcessors, FetcherArgs fetcherArgs, String logPrefix, Idf idfProvided, List<Agent> bioagentsProvided, Database dbProvided, boolean includeAll, List<Publication> publicationsProvided, String nameProvided, List<String> webpageUrlsProvided) throws IOException, ParseException {
+		return run(engine, outputPath, null, preProcessors, fetcherArgs, logPrefix, idfProvided, bioagentsProvided, dbProvided, includeAll, publicationsProvided, nameProvided, webpageUrlsProvided);
+	}
 
-		List<Pattern> notAbstract = PubFetcher.getResource(SelectPub.class, "select/not_abstract.txt").stream().map(s -> notPattern(s)).collect(Collectors.toList());
-		List<Pattern> notTitle = PubFetcher.getResource(SelectPub.class, "select/not_title.txt").stream().map(s -> notPattern(s)).collect(Collectors.toList());
+	// pass1 results and webpage and doc URLs are taken from pass1Output instead of pass1.json, web.txt and doc.txt
+	// results.csv, diff.csv and new.json are written only if outputPath is not null
+	public static List<Agent> run(Pass2Engine engine, Pass1Output pass1Output, PreProcessor preProcessor, FetcherArgs fetcherArgs, String logPrefix, Idf idf, List<Agent> bioagents, Database db, boolean includeAll, List<Publication> publicationsProvided, String nameProvided, List<String> webpageUrlsProvided, Path outputPath) throws IOException, ParseException {
+		return run(engine, outputPath, pass1Output, Collections.singletonList(preProcessor), fetcherArgs, logPrefix, idf, bioagents, db, includeAll, publicationsProvided, nameProvided, webpageUrlsProvided);
+	}
+
+	private static ResultOutput getResultOutput(Future<ResultOutput> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+	}
+
+	private static Writer newWriter(Path path) throws IOException {
+		CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+		encoder.onMalformedInput(CodingErrorAction.REPLACE);
+		encoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), encoder));
+	}
 
-		Scrape scrape = new Scrape(fetcherArgs.getPrivateArgs().getJournalsYaml(), fetcherArgs.getPrivateArgs().getWebpagesYaml());
+	private static List<Agent> run(Pass2Engine engine, Path outputPath, Pass1Output pass1Output, List<PreProcessor> preProcessors, FetcherArgs fetcherArgs, String logPrefix, Idf idfProvided, List<Agent> bioagentsProvided, Database dbProvided, boolean includeAll, List<Publication> publicationsProvided, String nameProvided, List<String> webpageUrlsProvided) throws IOException, ParseException {
+		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
 
 		Idf idf;
 		if (idfProvided != null) {
@@ -1280,39 +1368,57 @@ public final class Pass2 {
 			bioagents = (List<Agent>) Json.load(bioagentsFile, QueryType.bioagents, fetcherArgs.getTimeout(), fetcherArgs.getPrivateArgs().getUserAgent());
 		}
 
-		Path pass1Path = outputPath.resolve(Common.PASS1_FILE);
-		logger.info(mainMarker, "{}Loading pass1 results from {}", logPrefix, pass1Path.toString());
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.enable(SerializationFeature.CLOSE_CLOSEABLE);
-		List<Result1> results1 = mapper.readValue(pass1Path.toFile(), new TypeReference<List<Result1>>() {});
-
-		Path resultsPath = PubFetcher.outputPath(outputPath.resolve(Common.RESULTS_FILE).toString());
-		Path diffPath = PubFetcher.outputPath(outputPath.resolve(Common.DIFF_FILE).toString());
-		Path newPath = PubFetcher.outputPath(outputPath.resolve(Common.NEW_FILE).toString());
+		PreProcessorCache preProcessorCache = new PreProcessorCache(Common.PREPROCESSOR_CACHE_SIZE);
+		List<CachedPreProcessor> cachedPreProcessors = new ArrayList<>();
+		for (PreProcessor preProcessor : preProcessors) {
+			cachedPreProcessors.add(new CachedPreProcessor(preProcessor, preProcessorCache));
+		}
+		CachedPreProcessor cachedPreProcessor = cachedPreProcessors.get(0);
 
 		List<Result2> results = new ArrayList<>();
-		for (Result1 result1 : results1) {
-			results.add(new Result2(result1));
+		if (pass1Output != null) {
+			for (Result1 result1 : pass1Output.getResults()) {
+				results.add(new Result2(result1));
+			}
+		} else {
+			Path pass1Path = outputPath.resolve(Common.PASS1_FILE);
+			logger.info(mainMarker, "{}Loading pass1 results from {}", logPrefix, pass1Path.toString());
+			ObjectMapper mapper = new ObjectMapper();
+			mapper.enable(SerializationFeature.CLOSE_CLOSEABLE);
+			// pass1 results are read one at a time, so that all of them are not kept in memory twice
+			try (MappingIterator<Result1> results1 = mapper.readerFor(Result1.class).readValues(pass1Path.toFile())) {
+				while (results1.hasNextValue()) {
+					results.add(new Result2(results1.nextValue()));
+				}
+			}
 		}
+		int results1Size = results.size();
 
-		logger.info(mainMarker, "{}Making pass2 results from {} pass1 results", logPrefix, results1.size());
-
-		CharsetEncoder resultsEncoder = StandardCharsets.UTF_8.newEncoder();
-		resultsEncoder.onMalformedInput(CodingErrorAction.REPLACE);
-		resultsEncoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		Path resultsPath = (outputPath != null ? PubFetcher.outputPath(outputPath.resolve(Common.RESULTS_FILE).toString()) : null);
+		Path diffPath = (outputPath != null ? PubFetcher.outputPath(outputPath.resolve(Common.DIFF_FILE).toString()) : null);
+		Path newPath = (outputPath != null ? PubFetcher.outputPath(outputPath.resolve(Common.NEW_FILE).toString()) : null);
 
-		CharsetEncoder diffEncoder = StandardCharsets.UTF_8.newEncoder();
-		diffEncoder.onMalformedInput(CodingErrorAction.REPLACE);
-		diffEncoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
-
-		CharsetEncoder newEncoder = StandardCharsets.UTF_8.newEncoder();
-		newEncoder.onMalformedInput(CodingErrorAction.REPLACE);
-		newEncoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		logger.info(mainMarker, "{}Making pass2 results from {} pass1 results", logPrefix, results1Size);
 
 		Database db = (dbProvided != null ? dbProvided : new Database(outputPath.resolve(Common.DB_FILE).toString()));
-		try (BufferedWriter resultsWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(resultsPath), resultsEncoder));
-				BufferedWriter diffWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(diffPath), diffEncoder));
-				BufferedWriter newWriter = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(newPath), newEncoder))) {
+		try (Writer resultsWriter = (resultsPath != null ? newWriter(resultsPath) : Writer.nullWriter());
+				Writer diffWriter = (diffPath != null ? newWriter(diffPath) : Writer.nullWriter());
+				Writer newWriter = (newPath != null ? newWriter(newPath) : Writer.nullWriter())) {
+
+			WebpageCache webpageCache = new WebpageCache(db, engine.scrape);
+			if (pass1Output != null) {
+				logger.info(mainMarker, "{}Loading webpages and docs from database for URLs found in pass1", logPrefix);
+				webpageCache.prefetch(pass1Output.getWebpages(), pass1Output.getDocs());
+				logger.info(mainMarker, "{}Loaded {} webpages and docs", logPrefix, webpageCache.size());
+			} else {
+				Path webPath = outputPath.resolve(Common.WEB_FILE);
+				Path docPath = outputPath.resolve(Common.DOC_FILE);
+				if (Files.exists(webPath) && Files.exists(docPath)) {
+					logger.info(mainMarker, "{}Loading webpages and docs from database for URLs found in {} and {}", logPrefix, webPath.toString(), docPath.toString());
+					webpageCache.prefetch(PubFetcher.webFile(Collections.singletonList(webPath.toString())), PubFetcher.webFile(Collections.singletonList(docPath.toString())));
+					logger.info(mainMarker, "{}Loaded {} webpages and docs", logPrefix, webpageCache.size());
+				}
+			}
 
 			resultsWriter.write(Arrays.stream(RESULTS_HEADER).collect(Collectors.joining("\t")) + "\n");
 			resultsWriter.write(Arrays.stream(RESULTS_HEADER).map(s -> DOCS_OUTPUT + s.replaceAll("_", "-")).collect(Collectors.joining("\t")) + "\n");
@@ -1329,7 +1435,7 @@ public final class Pass2 {
 						Suggestion2 suggestion = result.getSuggestions().get(i);
 						boolean increased = false;
 						for (String url : suggestion.getLinksAbstract()) {
-							if (!isBroken(url, db)) {
+							if (!isBroken(url, webpageCache)) {
 								if (suggestion.getScore2() < 0) {
 									suggestion.setScore2(suggestion.getScore());
 								}
@@ -1355,7 +1461,7 @@ public final class Pass2 {
 						}
 						if (!increased) {
 							for (String url : suggestion.getLinksFulltext()) {
-								if (!isBroken(url, db)) {
+								if (!isBroken(url, webpageCache)) {
 									if (suggestion.getScore2() < 0) {
 										suggestion.setScore2(suggestion.getScore());
 									}
@@ -1374,14 +1480,14 @@ public final class Pass2 {
 					}
 
 					if (result.getSuggestions().size() > 0) {
-						List<String> agentTitlePrunedProcessed = preProcessor.process(result.getAgentTitlePruned().get(0));
+						List<String> agentTitlePrunedProcessed = cachedPreProcessor.process(result.getAgentTitlePruned().get(0));
 						String agentTitlePrunedProcessedString = String.join(" ", agentTitlePrunedProcessed);
-						String agentTitleAcronymProcessedString = String.join(" ", preProcessor.process(result.getAgentTitleAcronym().get(0)));
+						String agentTitleAcronymProcessedString = String.join(" ", cachedPreProcessor.process(result.getAgentTitleAcronym().get(0)));
 						String agentTitleExtractedOriginal = result.getAgentTitleExtractedOriginal().get(0);
 						int agentTitleExtractedOriginalSize = agentTitleExtractedOriginal.split(" ").length;
 						for (Suggestion2 suggestion : result.getSuggestions()) {
 							List<String> suggestionExtracted = new ArrayList<>(Arrays.asList(suggestion.getExtracted().split(" ")));
-							String suggestionPrunedProcessed = String.join(" ", preProcessor.process(Common.agentTitlePrune(suggestionExtracted)));
+							String suggestionPrunedProcessed = String.join(" ", cachedPreProcessor.process(Common.agentTitlePrune(suggestionExtracted)));
 							int match = 0;
 							if (suggestionPrunedProcessed.length() > 2) {
 								if (agentTitlePrunedProcessedString.equals(suggestionPrunedProcessed)) {
@@ -1510,112 +1616,94 @@ public final class Pass2 {
 			Collections.sort(results);
 
 			logger.info(mainMarker, "{}Merging results based on same suggestions", logPrefix);
-			TreeSet<Integer> removeResult = new TreeSet<>();
+			Set<Integer> removeResult = new HashSet<>();
 			Set<String> publicationsProvidedMerged = new HashSet<>();
-			for (int i = 0; i < results.size() - 1; ++i) {
-				if (removeResult.contains(i)) {
-					continue;
+			int mergeFrom = 0;
+			if (publicationsProvided != null && results.size() > 1) {
+				Result2 resultI = results.get(0);
+				PubIds pubIdsI = resultI.getPubIds().get(0);
+				for (Publication publicationProvided : publicationsProvided) {
+					if (pubIdsI.getPmid().equals(publicationProvided.getPmid().getContent()) || pubIdsI.getPmcid().equals(publicationProvided.getPmcid().getContent()) || pubIdsI.getDoi().equals(publicationProvided.getDoi().getContent())) {
+						publicationsProvidedMerged.add(pubIdsI.toString());
+						break;
+					}
 				}
-				Result2 resultI = results.get(i);
-				boolean publicationsProvidedMerge = (publicationsProvided != null && i == 0);
-				if (publicationsProvidedMerge) {
-					PubIds pubIds = resultI.getPubIds().get(0);
+				for (int j = 1; j < results.size(); ++j) {
+					Result2 resultJ = results.get(j);
+					boolean publicationProvidedMerge = false;
+					PubIds pubIds = resultJ.getPubIds().get(0);
 					for (Publication publicationProvided : publicationsProvided) {
 						if (pubIds.getPmid().equals(publicationProvided.getPmid().getContent()) || pubIds.getPmcid().equals(publicationProvided.getPmcid().getContent()) || pubIds.getDoi().equals(publicationProvided.getDoi().getContent())) {
-							publicationsProvidedMerged.add(pubIds.toString());
+							if (!publicationsProvidedMerged.contains(pubIds.toString())) {
+								publicationsProvidedMerged.add(pubIds.toString());
+								publicationProvidedMerge = true;
+							}
 							break;
 						}
 					}
+					if (publicationProvidedMerge || resultI.getSuggestions().get(0).getExtracted().equals(resultJ.getSuggestions().get(0).getExtracted())) {
+						mergeResults(resultI, resultJ);
+						removeResult.add(j);
+					}
+				}
+				mergeFrom = 1;
+			}
+			// only results up to the first one with a non-confident suggestion are merged, group these by the first suggestion
+			int mergeTo = mergeFrom;
+			Map<String, TreeSet<Integer>> sameExtracted = new HashMap<>();
+			for (; mergeTo < results.size(); ++mergeTo) {
+				if (removeResult.contains(mergeTo)) {
+					continue;
 				}
-				if (publicationsProvidedMerge || !resultI.getSuggestions().isEmpty()) {
-					if (!publicationsProvidedMerge && !resultI.getSuggestions().get(0).confident()) {
+				Result2 result = results.get(mergeTo);
+				if (!result.getSuggestions().isEmpty()) {
+					if (!result.getSuggestions().get(0).confident()) {
 						break;
 					}
-					for (int j = i + 1; j < results.size(); ++j) {
-						if (removeResult.contains(j)) {
-							continue;
-						}
-						Result2 resultJ = results.get(j);
-						if (publicationsProvidedMerge || !resultJ.getSuggestions().isEmpty()) {
-							if (!publicationsProvidedMerge && !resultJ.getSuggestions().get(0).confident()) {
-								break;
-							}
-							boolean publicationProvidedMerge = false;
-							if (publicationsProvidedMerge) {
-								PubIds pubIds = resultJ.getPubIds().get(0);
-								for (Publication publicationProvided : publicationsProvided) {
-									if (pubIds.getPmid().equals(publicationProvided.getPmid().getContent()) || pubIds.getPmcid().equals(publicationProvided.getPmcid().getContent()) || pubIds.getDoi().equals(publicationProvided.getDoi().getContent())) {
-										if (!publicationsProvidedMerged.contains(pubIds.toString())) {
-											publicationsProvidedMerged.add(pubIds.toString());
-											publicationProvidedMerge = true;
-										}
-										break;
-									}
-								}
-							}
-							if (publicationProvidedMerge || resultI.getSuggestions().get(0).getExtracted().equals(resultJ.getSuggestions().get(0).getExtracted())) {
-								resultI.addPubIds(resultJ.getPubIds().get(0));
-
-								resultI.addTitle(resultJ.getTitle().get(0));
-								resultI.addAgentTitleOthers(resultJ.getAgentTitleOthers().get(0));
-								resultI.addAgentTitleExtractedOriginal(resultJ.getAgentTitleExtractedOriginal().get(0));
-								resultI.addAgentTitle(resultJ.getAgentTitle().get(0));
-								resultI.addAgentTitlePruned(resultJ.getAgentTitlePruned().get(0));
-								resultI.addAgentTitleAcronym(resultJ.getAgentTitleAcronym().get(0));
-								resultI.addAbstractSentences(resultJ.getAbstractSentences().get(0));
-								resultI.addOa(resultJ.isOa().get(0));
-								resultI.addPreprint(resultJ.isPreprint().get(0));
-								resultI.addJournalTitle(resultJ.getJournalTitle().get(0));
-								resultI.addPubDate(resultJ.getPubDate().get(0));
-								resultI.addPubDateHuman(resultJ.getPubDateHuman().get(0));
-								resultI.addCitationsCount(resultJ.getCitationsCount().get(0));
-								resultI.addCitationsTimestamp(resultJ.getCitationsTimestamp().get(0));
-								resultI.addCitationsTimestampHuman(resultJ.getCitationsTimestampHuman().get(0));
-
-								resultI.addCorrespAuthor(resultJ.getCorrespAuthor().get(0));
-
-								for (Iterator<Suggestion2> iterI = resultI.getSuggestions().iterator(); iterI.hasNext(); ) {
-									Suggestion2 suggestionI = iterI.next();
-									for (Iterator<Suggestion2> iterJ = resultJ.getSuggestions().iterator(); iterJ.hasNext(); ) {
-										Suggestion2 suggestionJ = iterJ.next();
-										if (suggestionI.getExtracted().equals(suggestionJ.getExtracted())) {
-											if (suggestionI.compareTo(suggestionJ) > 0) {
-												suggestionJ.addLinksAbstract(suggestionI.getLinksAbstract());
-												suggestionJ.addLinksFulltext(suggestionI.getLinksFulltext());
-												iterI.remove();
-											} else {
-												suggestionI.addLinksAbstract(suggestionJ.getLinksAbstract());
-												suggestionI.addLinksFulltext(suggestionJ.getLinksFulltext());
-												iterJ.remove();
-											}
-											break;
-										}
-									}
-								}
-								for (Suggestion2 suggestionJ : resultJ.getSuggestions()) {
-									resultI.addSuggestion(suggestionJ);
-								}
-								Collections.sort(resultI.getSuggestions());
-
-								resultI.addLeftoverLinksAbstract(resultJ.getLeftoverLinksAbstract().get(0));
-								resultI.addLeftoverLinksFulltext(resultJ.getLeftoverLinksFulltext().get(0));
-
-								removeResult.add(j);
-							}
-						}
+					TreeSet<Integer> same = sameExtracted.get(result.getSuggestions().get(0).getExtracted());
+					if (same == null) {
+						same = new TreeSet<>();
+						sameExtracted.put(result.getSuggestions().get(0).getExtracted(), same);
 					}
+					same.add(mergeTo);
 				}
 			}
-			for (Iterator<Integer> it = removeResult.descendingIterator(); it.hasNext(); ) {
-				results.remove(it.next().intValue());
+			for (int i = mergeFrom; i < mergeTo && i < results.size() - 1; ++i) {
+				if (removeResult.contains(i)) {
+					continue;
+				}
+				Result2 resultI = results.get(i);
+				if (resultI.getSuggestions().isEmpty()) {
+					continue;
+				}
+				// first suggestion of resultI can change after each merge
+				int j = i;
+				TreeSet<Integer> same;
+				Integer next;
+				while ((same = sameExtracted.get(resultI.getSuggestions().get(0).getExtracted())) != null && (next = same.higher(j)) != null) {
+					j = next;
+					mergeResults(resultI, results.get(j));
+					removeResult.add(j);
+					same.remove(j);
+				}
+			}
+			if (!removeResult.isEmpty()) {
+				List<Result2> resultsMerged = new ArrayList<>();
+				for (int i = 0; i < results.size(); ++i) {
+					if (!removeResult.contains(i)) {
+						resultsMerged.add(results.get(i));
+					}
+				}
+				results.clear();
+				results.addAll(resultsMerged);
 			}
-			logger.info(mainMarker, "{}Merged {} pass1 results to {} pass2 results", logPrefix, results1.size(), results.size());
+			logger.info(mainMarker, "{}Merged {} pass1 results to {} pass2 results", logPrefix, results1Size, results.size());
 
 			if (!results.isEmpty()) {
 				Result2 result = results.get(0);
 				if (!result.getSuggestions().isEmpty()) {
 					if (nameProvided != null && !nameProvided.isEmpty()) {
-						String nameProvidedProcessed = String.join(" ", preProcessor.process(nameProvided));
+						String nameProvidedProcessed = String.join(" ", cachedPreProcessor.process(nameProvided));
 						int toFirst = -1;
 						for (int i = 0; i < result.getSuggestions().size(); ++i) {
 							if (result.getSuggestions().get(i).getProcessed().equals(nameProvidedProcessed)) {
@@ -1651,16 +1739,24 @@ public final class Pass2 {
 				}
 			}
 
-			logger.info(mainMarker, "{}Filling same suggestions field for non-merged results", logPrefix, results1.size(), results.size());
-			for (int i = 0; i < results.size() - 1; ++i) {
-				Result2 resultI = results.get(i);
-				if (!resultI.getSuggestions().isEmpty()) {
-					for (int j = i + 1; j < results.size(); ++j) {
-						Result2 resultJ = results.get(j);
-						if (!resultJ.getSuggestions().isEmpty()) {
-							if (resultI.getSuggestions().get(0).getExtracted().equals(resultJ.getSuggestions().get(0).getExtracted())) {
+			logger.info(mainMarker, "{}Filling same suggestions field for non-merged results", logPrefix, results1Size, results.size());
+			Map<String, List<Result2>> sameSuggestions = new HashMap<>();
+			for (Result2 result : results) {
+				if (!result.getSuggestions().isEmpty()) {
+					List<Result2> same = sameSuggestions.get(result.getSuggestions().get(0).getExtracted());
+					if (same == null) {
+						same = new ArrayList<>();
+						sameSuggestions.put(result.getSuggestions().get(0).getExtracted(), same);
+					}
+					same.add(result);
+				}
+			}
+			for (List<Result2> same : sameSuggestions.values()) {
+				if (same.size() > 1) {
+					for (Result2 resultI : same) {
+						for (Result2 resultJ : same) {
+							if (resultJ != resultI) {
 								resultI.addSameSuggestion(resultJ.getPubIds().get(0));
-								resultJ.addSameSuggestion(resultI.getPubIds().get(0));
 							}
 						}
 					}
@@ -1670,12 +1766,14 @@ public final class Pass2 {
 			logger.info(mainMarker, "{}Processing bio.agents names and links", logPrefix);
 			List<List<String>> queryNamesExtracted = new ArrayList<>();
 			List<String> queryNamesProcessed = new ArrayList<>();
+			List<String> queryIdsCompare = new ArrayList<>();
 			List<List<String>> queryLinks = new ArrayList<>();
 			for (Agent bioagent : bioagents) {
-				List<String> queryNameExtracted = preProcessor.extract(bioagent.getName());
-				List<String> queryNameProcessed = preProcessor.process(bioagent.getName(), queryNameExtracted);
+				List<String> queryNameExtracted = cachedPreProcessor.extract(bioagent.getName());
+				List<String> queryNameProcessed = cachedPreProcessor.process(bioagent.getName(), queryNameExtracted);
 				queryNamesExtracted.add(Arrays.asList(Common.BIOTOOLS_EXTRACTED_VERSION_TRIM.matcher(String.join(" ", queryNameExtracted)).replaceFirst("").split(" ")));
 				queryNamesProcessed.add(Common.BIOTOOLS_PROCESSED_VERSION_TRIM.matcher(String.join(" ", queryNameProcessed)).replaceFirst(""));
+				queryIdsCompare.add(bioagent.getBioagentsID() != null ? NOT_ALPHANUM.matcher(Common.BIOTOOLS_PROCESSED_VERSION_TRIM.matcher(bioagent.getBioagentsID().toLowerCase(Locale.ROOT)).replaceFirst("")).replaceAll("") : null);
 				List<String> links = new ArrayList<>();
 				links.add(bioagent.getHomepage());
 				if (bioagent.getLink() != null) {
@@ -1692,6 +1790,7 @@ public final class Pass2 {
 					.filter(l -> !l.isEmpty())
 					.collect(Collectors.toList()));
 			}
+			BioagentsIndex bioagentsIndex = new BioagentsIndex(bioagents, queryNamesExtracted, queryNamesProcessed, queryIdsCompare, queryLinks);
 
 			logger.info(mainMarker, "{}Finding existing bio.agents entries", logPrefix);
 
@@ -1701,39 +1800,13 @@ public final class Pass2 {
 				++resultIndex;
 				System.err.print(PubFetcher.progress(resultIndex, results.size(), start) + "  \r");
 
-				List<Boolean> oneMatches = new ArrayList<>();
-				List<Boolean> allMatches = new ArrayList<>();
-				List<Set<PubIds>> notMatches = new ArrayList<>();
-				for (int i = 0; i < bioagents.size(); ++i) {
-					Agent bioagent = bioagents.get(i);
-					boolean oneMatch = false;
-					boolean allMatch = true;
-					Set<PubIds> notMatch = null;
-					for (PubIds pubIds : result.getPubIds()) {
-						boolean match = false;
-						if (bioagent.getPublication() != null) {
-							for (org.edamontology.edammap.core.input.json.Publication publicationIds : bioagent.getPublication()) {
-								if (!pubIds.getPmid().isEmpty() && publicationIds.getPmid() != null && publicationIds.getPmid().trim().equals(pubIds.getPmid())
-										|| !pubIds.getPmcid().isEmpty() && publicationIds.getPmcid() != null && publicationIds.getPmcid().trim().equals(pubIds.getPmcid())
-										|| !pubIds.getDoi().isEmpty() && publicationIds.getDoi() != null && PubFetcher.normaliseDoi(publicationIds.getDoi().trim()).equals(pubIds.getDoi())) {
-									match = true;
-									break;
-								}
-							}
-						}
-						if (match) {
-							oneMatch = true;
-						} else {
-							allMatch = false;
-							if (notMatch == null) {
-								notMatch = new LinkedHashSet<>();
-							}
-							notMatch.add(pubIds);
-						}
-					}
-					oneMatches.add(oneMatch);
-					allMatches.add(allMatch);
-					notMatches.add(notMatch);
+				// entries not in pubMatches have no publication match
+				List<Set<Integer>> pubMatches = new ArrayList<>();
+				Set<Integer> oneMatches = new TreeSet<>();
+				for (PubIds pubIds : result.getPubIds()) {
+					Set<Integer> pubMatch = bioagentsIndex.getPublication(pubIds);
+					pubMatches.add(pubMatch);
+					oneMatches.addAll(pubMatch);
 				}
 				for (int i = 0; i < result.getSuggestions().size(); ++i) {
 					Suggestion2 suggestion = result.getSuggestions().get(i);
@@ -1744,15 +1817,28 @@ public final class Pass2 {
 					List<Set<PubIds>> somePublicationExistingNameDifferentPubIds = null;
 					List<Integer> nameExistingPublicationDifferent = null;
 					List<Set<PubIds>> nameExistingPublicationDifferentPubIds = null;
-					for (int j = 0; j < bioagents.size(); ++j) {
+					Set<Integer> existingCandidates = new TreeSet<>(oneMatches);
+					existingCandidates.addAll(bioagentsIndex.getName(suggestion.getExtracted()));
+					for (int j : existingCandidates) {
 						Agent bioagent = bioagents.get(j);
+						boolean allMatch = true;
+						Set<PubIds> notMatch = null;
+						for (int k = 0; k < result.getPubIds().size(); ++k) {
+							if (!pubMatches.get(k).contains(j)) {
+								allMatch = false;
+								if (notMatch == null) {
+									notMatch = new LinkedHashSet<>();
+								}
+								notMatch.add(result.getPubIds().get(k));
+							}
+						}
 						if (suggestion.getExtracted().equals(bioagent.getName())) {
-							if (allMatches.get(j)) {
+							if (allMatch) {
 								if (publicationAndNameExisting == null) {
 									publicationAndNameExisting = new ArrayList<>();
 								}
 								publicationAndNameExisting.add(j);
-							} else if (oneMatches.get(j)) {
+							} else if (oneMatches.contains(j)) {
 								if (nameExistingSomePublicationDifferent == null) {
 									nameExistingSomePublicationDifferent = new ArrayList<>();
 								}
@@ -1760,7 +1846,7 @@ public final class Pass2 {
 								if (nameExistingSomePublicationDifferentPubIds == null) {
 									nameExistingSomePublicationDifferentPubIds = new ArrayList<>();
 								}
-								nameExistingSomePublicationDifferentPubIds.add(notMatches.get(j));
+								nameExistingSomePublicationDifferentPubIds.add(notMatch);
 							} else {
 								if (nameExistingPublicationDifferent == null) {
 									nameExistingPublicationDifferent = new ArrayList<>();
@@ -1769,9 +1855,9 @@ public final class Pass2 {
 								if (nameExistingPublicationDifferentPubIds == null) {
 									nameExistingPublicationDifferentPubIds = new ArrayList<>();
 								}
-								nameExistingPublicationDifferentPubIds.add(notMatches.get(j));
+								nameExistingPublicationDifferentPubIds.add(notMatch);
 							}
-						} else if (oneMatches.get(j)) {
+						} else if (oneMatches.contains(j)) {
 							if (somePublicationExistingNameDifferent == null) {
 								somePublicationExistingNameDifferent = new ArrayList<>();
 							}
@@ -1779,7 +1865,7 @@ public final class Pass2 {
 							if (somePublicationExistingNameDifferentPubIds == null) {
 								somePublicationExistingNameDifferentPubIds = new ArrayList<>();
 							}
-							somePublicationExistingNameDifferentPubIds.add(notMatches.get(j));
+							somePublicationExistingNameDifferentPubIds.add(notMatch);
 						}
 					}
 					suggestion.setPublicationAndNameExisting(publicationAndNameExisting);
@@ -1794,9 +1880,8 @@ public final class Pass2 {
 						String suggestionProcessed = Common.BIOTOOLS_PROCESSED_VERSION_TRIM.matcher(result.getSuggestions().get(i).getProcessed()).replaceFirst("");
 						String suggestionProcessedCompare = NOT_ALPHANUM.matcher(suggestionProcessed).replaceAll("");
 						if (!suggestionProcessed.isEmpty()) {
-							for (int j = 0; j < queryNamesProcessed.size(); ++j) {
-								String bioagentsIdCompare = NOT_ALPHANUM.matcher(Common.BIOTOOLS_PROCESSED_VERSION_TRIM.matcher(bioagents.get(j).getBioagentsID().toLowerCase(Locale.ROOT)).replaceFirst("")).replaceAll("");
-								if (suggestionProcessed.equals(queryNamesProcessed.get(j)) || suggestionProcessedCompare.equals(bioagentsIdCompare)) {
+							for (int j : bioagentsIndex.getNameProcessed(suggestionProcessed, suggestionProcessedCompare)) {
+								if (suggestionProcessed.equals(queryNamesProcessed.get(j)) || suggestionProcessedCompare.equals(queryIdsCompare.get(j))) {
 									if ((publicationAndNameExisting == null || !publicationAndNameExisting.contains(j))
 											&& (nameExistingSomePublicationDifferent == null || !nameExistingSomePublicationDifferent.contains(j))
 											&& (somePublicationExistingNameDifferent == null || !somePublicationExistingNameDifferent.contains(j))
@@ -1808,10 +1893,10 @@ public final class Pass2 {
 						}
 						LinkedHashMap<Integer, List<String>> linkMatchMap = new LinkedHashMap<>();
 						for (String suggestionLink : result.getSuggestions().get(i).getLinksAbstract()) {
-							linksMatch(linkMatchMap, suggestionLink, suggestion, queryLinks);
+							linksMatch(linkMatchMap, suggestionLink, suggestion, queryLinks, bioagentsIndex);
 						}
 						for (String suggestionLink : result.getSuggestions().get(i).getLinksFulltext()) {
-							linksMatch(linkMatchMap, suggestionLink, suggestion, queryLinks);
+							linksMatch(linkMatchMap, suggestionLink, suggestion, queryLinks, bioagentsIndex);
 						}
 						for (Map.Entry<Integer, List<String>> linkMatchEntry : linkMatchMap.entrySet()) {
 							result.addLinkMatch(linkMatchEntry.getKey(), linkMatchEntry.getValue());
@@ -1820,7 +1905,7 @@ public final class Pass2 {
 						if (!suggestionExtracted.isEmpty()) {
 							for (String suggestionExtractedWord : suggestionExtracted.split(" ")) {
 								List<Integer> nameWordMatchPart = new ArrayList<>();
-								for (int j = 0; j < queryNamesExtracted.size(); ++j) {
+								for (int j : bioagentsIndex.getNameWord(suggestionExtractedWord)) {
 									if (queryNamesExtracted.get(j).contains(suggestionExtractedWord)) {
 										if ((publicationAndNameExisting == null || !publicationAndNameExisting.contains(j))
 												&& (nameExistingSomePublicationDifferent == null || !nameExistingSomePublicationDifferent.contains(j))
@@ -1850,19 +1935,19 @@ public final class Pass2 {
 					List<BioagentsLink<DownloadType>> downloadLinksAbstract = new ArrayList<>();
 					List<BioagentsLink<DocumentationType>> documentationLinksAbstract = new ArrayList<>();
 					Common.makeBioagentsLinks(suggestion.getLinksAbstract(), linkLinksAbstract, downloadLinksAbstract, documentationLinksAbstract);
-					removeBroken(linkLinksAbstract, suggestion.getBrokenLinks(), db, false, name);
-					removeBroken(downloadLinksAbstract, suggestion.getBrokenLinks(), db, false, name);
-					removeBroken(documentationLinksAbstract, suggestion.getBrokenLinks(), db, true, name);
-					String homepage = chooseHomepage(suggestion.getLinksAbstract(), linkLinksAbstract, documentationLinksAbstract, db);
+					removeBroken(linkLinksAbstract, suggestion.getBrokenLinks(), webpageCache, false, name);
+					removeBroken(downloadLinksAbstract, suggestion.getBrokenLinks(), webpageCache, false, name);
+					removeBroken(documentationLinksAbstract, suggestion.getBrokenLinks(), webpageCache, true, name);
+					String homepage = chooseHomepage(suggestion.getLinksAbstract(), linkLinksAbstract, documentationLinksAbstract, webpageCache);
 					List<BioagentsLink<LinkType>> linkLinksFulltext = new ArrayList<>();
 					List<BioagentsLink<DownloadType>> downloadLinksFulltext = new ArrayList<>();
 					List<BioagentsLink<DocumentationType>> documentationLinksFulltext = new ArrayList<>();
 					Common.makeBioagentsLinks(suggestion.getLinksFulltext(), linkLinksFulltext, downloadLinksFulltext, documentationLinksFulltext);
-					removeBroken(linkLinksFulltext, suggestion.getBrokenLinks(), db, false, name);
-					removeBroken(downloadLinksFulltext, suggestion.getBrokenLinks(), db, false, name);
-					removeBroken(documentationLinksFulltext, suggestion.getBrokenLinks(), db, true, name);
+					removeBroken(linkLinksFulltext, suggestion.getBrokenLinks(), webpageCache, false, name);
+					removeBroken(downloadLinksFulltext, suggestion.getBrokenLinks(), webpageCache, false, name);
+					removeBroken(documentationLinksFulltext, suggestion.getBrokenLinks(), webpageCache, true, name);
 					if (homepage == null) {
-						homepage = chooseHomepage(suggestion.getLinksFulltext(), linkLinksFulltext, documentationLinksFulltext, db);
+						homepage = chooseHomepage(suggestion.getLinksFulltext(), linkLinksFulltext, documentationLinksFulltext, webpageCache);
 					}
 					if (homepage == null) {
 						for (String link : suggestion.getLinksAbstract()) {
@@ -1911,100 +1996,149 @@ public final class Pass2 {
 				}
 			}
 
-			List<Diff> diffs = new ArrayList<>();
+			DiffList diffs = new DiffList();
 			List<Agent> agents = new ArrayList<>();
 
-			logger.info(mainMarker, "{}Writing {} pass2 results to {}", logPrefix, results.size(), resultsPath.toString());
-			resultIndex = 0;
-			start = System.currentTimeMillis();
-			for (Result2 result : results) {
-				++resultIndex;
-				System.err.print(PubFetcher.progress(resultIndex, results.size(), start) + "  \r");
-				writeResult(result, db, resultsWriter, bioagents, licenses, languages, languageKeywords, scrape, preProcessor, diffs, agents, notAbstract, notTitle, includeAll);
+			if (resultsPath != null) {
+				logger.info(mainMarker, "{}Writing {} pass2 results to {}", logPrefix, results.size(), resultsPath.toString());
+			} else {
+				logger.info(mainMarker, "{}Making agents from {} pass2 results", logPrefix, results.size());
+			}
+			if (cachedPreProcessors.size() > 1) {
+				logger.info(mainMarker, "{}Using {} threads", logPrefix, cachedPreProcessors.size());
+			}
+			// results are made in parallel, but written out in the original order, so that output is the same as in a sequential run
+			ExecutorService executor = (cachedPreProcessors.size() > 1 ? Executors.newFixedThreadPool(cachedPreProcessors.size()) : null);
+			try {
+				// at most twice the number of threads results are submitted ahead of the one being written, so that outputs of only these are kept in memory
+				Deque<Future<ResultOutput>> futures = new ArrayDeque<>();
+				BlockingQueue<CachedPreProcessor> freePreProcessors = (executor != null ? new ArrayBlockingQueue<>(cachedPreProcessors.size(), false, cachedPreProcessors) : null);
+				int window = 2 * cachedPreProcessors.size();
+				int submitted = 0;
+				start = System.currentTimeMillis();
+				for (int i = 0; i < results.size(); ++i) {
+					ResultOutput output;
+					if (executor != null) {
+						for (; submitted < results.size() && submitted < i + window; ++submitted) {
+							Result2 result = results.get(submitted);
+							futures.add(executor.submit(() -> {
+								CachedPreProcessor preProcessor = freePreProcessors.take();
+								try {
+									return writeResult(result, webpageCache, bioagents, engine.licenseIndex, engine.languageIndex, preProcessor, engine.notAbstract, engine.notTitle, includeAll);
+								} finally {
+									freePreProcessors.put(preProcessor);
+								}
+							}));
+						}
+						output = getResultOutput(futures.remove());
+					} else {
+						output = writeResult(results.get(i), webpageCache, bioagents, engine.licenseIndex, engine.languageIndex, cachedPreProcessor, engine.notAbstract, engine.notTitle, includeAll);
+					}
+					System.err.print(PubFetcher.progress(i + 1, results.size(), start) + "  \r");
+					resultsWriter.write(output.row);
+					for (Diff diff : output.diffs) {
+						diffs.add(diff);
+					}
+					agents.addAll(output.agents);
+				}
+			} finally {
+				if (executor != null) {
+					executor.shutdownNow();
+				}
 			}
 
-			logger.info(mainMarker, "{}Writing {} bio.agents diffs to {}", logPrefix, diffs.size(), diffPath.toString());
-			for (Diff diff : diffs) {
-				if (!diff.include()) {
-					continue;
+			if (diffPath != null) {
+				logger.info(mainMarker, "{}Writing {} bio.agents diffs to {}", logPrefix, diffs.size(), diffPath.toString());
+				for (Diff diff : diffs) {
+					if (!diff.include()) {
+						continue;
+					}
+					Agent bioagent = bioagents.get(diff.getExisting());
+					writeField(diffWriter, bioagent.getBioagentsID());
+					writeField(diffWriter, String.valueOf(diff.getScoreScore2()));
+					String publicationBioagents = null;
+					if (bioagent.getPublication() != null && (!diff.getModifyPublications().isEmpty() || diff.getAddPublications() != null && !diff.getAddPublications().isEmpty() || diff.getModifyName() != null && !diff.getModifyName().isEmpty())) {
+						publicationBioagents = bioagent.getPublication().stream().map(pubIds -> "[" + PublicationIds.toString(pubIds.getPmid(), pubIds.getPmcid(), pubIds.getDoi(), false) + "]").collect(Collectors.joining(" | "));
+					}
+					writeField(diffWriter, publicationBioagents);
+					writeField(diffWriter, diff.getModifyPublications().stream().map(pubIds -> pubIds.toString()).collect(Collectors.joining(" | ")));
+					writeField(diffWriter, diff.getAddPublications() != null ? diff.getAddPublications().stream().map(pubIds -> pubIds.toString()).collect(Collectors.joining(" | ")) : null);
+					writeField(diffWriter, diff.getModifyName() != null && !diff.getModifyName().isEmpty() ? bioagent.getName() : null);
+					writeField(diffWriter, diff.getModifyName());
+					writeField(diffWriter, diff.getPossiblyRelated() != null ? diff.getPossiblyRelated().stream().map(e -> bioagents.get(e)).map(q -> q.getBioagentsID() + " (" + q.getName() + ")").collect(Collectors.joining(" | ")) : null);
+					writeField(diffWriter, diff.getModifyHomepage() != null && !diff.getModifyHomepage().isEmpty() ? currentHomepage(bioagent, webpageCache) : null);
+					writeField(diffWriter, diff.getModifyHomepage());
+					String linkBioagents = null;
+					if (bioagent.getLink() != null && !diff.getAddLinks().isEmpty()) {
+						linkBioagents = bioagent.getLink().stream().map(l -> l.getUrl() + " (" + l.toStringType() + ")").collect(Collectors.joining(" | "));
+					}
+					writeField(diffWriter, linkBioagents);
+					writeField(diffWriter, diff.getAddLinks().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | ")));
+					String downloadBioagents = null;
+					if (bioagent.getDownload() != null && !diff.getAddDownloads().isEmpty()) {
+						downloadBioagents = bioagent.getDownload().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | "));
+					}
+					writeField(diffWriter, downloadBioagents);
+					writeField(diffWriter, diff.getAddDownloads().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | ")));
+					String documentationBioagents = null;
+					if (bioagent.getDocumentation() != null && !diff.getAddDocumentations().isEmpty()) {
+						documentationBioagents = bioagent.getDocumentation().stream().map(l -> l.getUrl() + " (" + l.toStringType() + ")").collect(Collectors.joining(" | "));
+					}
+					writeField(diffWriter, documentationBioagents);
+					writeField(diffWriter, diff.getAddDocumentations().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | ")));
+					writeField(diffWriter, diff.getModifyLicense() != null && !diff.getModifyLicense().isEmpty() ? bioagent.getLicense() : null);
+					writeField(diffWriter, diff.getModifyLicense() != null ? diff.getModifyLicense().toString() : null);
+					String languageBioagents = null;
+					if (bioagent.getLanguage() != null && !diff.getAddLanguages().isEmpty()) {
+						languageBioagents = String.join(" | ", bioagent.getLanguage());
+					}
+					writeField(diffWriter, languageBioagents);
+					writeField(diffWriter, diff.getAddLanguages().stream().map(l -> l.toString()).collect(Collectors.joining(" | ")));
+					String creditBioagents = null;
+					if (bioagent.getCredit() != null && (!diff.getModifyCredits().isEmpty() || !diff.getAddCredits().isEmpty())) {
+						creditBioagents = bioagent.getCredit().stream().map(c -> Arrays.asList(c.getName(), c.getOrcidid(), c.getEmail(), c.getUrl()).stream().filter(e -> e != null && !e.isEmpty()).collect(Collectors.joining(", "))).collect(Collectors.joining(" | "));
+					}
+					writeField(diffWriter, creditBioagents);
+					writeField(diffWriter, diff.getModifyCredits().stream().map(c -> c.toString()).collect(Collectors.joining(" | ")));
+					writeField(diffWriter, diff.getAddCredits().stream().map(c -> c.toString()).collect(Collectors.joining(" | ")), true);
 				}
-				Agent bioagent = bioagents.get(diff.getExisting());
-				writeField(diffWriter, bioagent.getBioagentsID());
-				writeField(diffWriter, String.valueOf(diff.getScoreScore2()));
-				String publicationBioagents = null;
-				if (bioagent.getPublication() != null && (!diff.getModifyPublications().isEmpty() || diff.getAddPublications() != null && !diff.getAddPublications().isEmpty() || diff.getModifyName() != null && !diff.getModifyName().isEmpty())) {
-					publicationBioagents = bioagent.getPublication().stream().map(pubIds -> "[" + PublicationIds.toString(pubIds.getPmid(), pubIds.getPmcid(), pubIds.getDoi(), false) + "]").collect(Collectors.joining(" | "));
-				}
-				writeField(diffWriter, publicationBioagents);
-				writeField(diffWriter, diff.getModifyPublications().stream().map(pubIds -> pubIds.toString()).collect(Collectors.joining(" | ")));
-				writeField(diffWriter, diff.getAddPublications() != null ? diff.getAddPublications().stream().map(pubIds -> pubIds.toString()).collect(Collectors.joining(" | ")) : null);
-				writeField(diffWriter, diff.getModifyName() != null && !diff.getModifyName().isEmpty() ? bioagent.getName() : null);
-				writeField(diffWriter, diff.getModifyName());
-				writeField(diffWriter, diff.getPossiblyRelated() != null ? diff.getPossiblyRelated().stream().map(e -> bioagents.get(e)).map(q -> q.getBioagentsID() + " (" + q.getName() + ")").collect(Collectors.joining(" | ")) : null);
-				writeField(diffWriter, diff.getModifyHomepage() != null && !diff.getModifyHomepage().isEmpty() ? currentHomepage(bioagent, db) : null);
-				writeField(diffWriter, diff.getModifyHomepage());
-				String linkBioagents = null;
-				if (bioagent.getLink() != null && !diff.getAddLinks().isEmpty()) {
-					linkBioagents = bioagent.getLink().stream().map(l -> l.getUrl() + " (" + l.toStringType() + ")").collect(Collectors.joining(" | "));
-				}
-				writeField(diffWriter, linkBioagents);
-				writeField(diffWriter, diff.getAddLinks().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | ")));
-				String downloadBioagents = null;
-				if (bioagent.getDownload() != null && !diff.getAddDownloads().isEmpty()) {
-					downloadBioagents = bioagent.getDownload().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | "));
-				}
-				writeField(diffWriter, downloadBioagents);
-				writeField(diffWriter, diff.getAddDownloads().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | ")));
-				String documentationBioagents = null;
-				if (bioagent.getDocumentation() != null && !diff.getAddDocumentations().isEmpty()) {
-					documentationBioagents = bioagent.getDocumentation().stream().map(l -> l.getUrl() + " (" + l.toStringType() + ")").collect(Collectors.joining(" | "));
-				}
-				writeField(diffWriter, documentationBioagents);
-				writeField(diffWriter, diff.getAddDocumentations().stream().map(l -> l.getUrl() + " (" + l.getType() + ")").collect(Collectors.joining(" | ")));
-				writeField(diffWriter, diff.getModifyLicense() != null && !diff.getModifyLicense().isEmpty() ? bioagent.getLicense() : null);
-				writeField(diffWriter, diff.getModifyLicense() != null ? diff.getModifyLicense().toString() : null);
-				String languageBioagents = null;
-				if (bioagent.getLanguage() != null && !diff.getAddLanguages().isEmpty()) {
-					languageBioagents = String.join(" | ", bioagent.getLanguage());
-				}
-				writeField(diffWriter, languageBioagents);
-				writeField(diffWriter, diff.getAddLanguages().stream().map(l -> l.toString()).collect(Collectors.joining(" | ")));
-				String creditBioagents = null;
-				if (bioagent.getCredit() != null && (!diff.getModifyCredits().isEmpty() || !diff.getAddCredits().isEmpty())) {
-					creditBioagents = bioagent.getCredit().stream().map(c -> Arrays.asList(c.getName(), c.getOrcidid(), c.getEmail(), c.getUrl()).stream().filter(e -> e != null && !e.isEmpty()).collect(Collectors.joining(", "))).collect(Collectors.joining(" | "));
-				}
-				writeField(diffWriter, creditBioagents);
-				writeField(diffWriter, diff.getModifyCredits().stream().map(c -> c.toString()).collect(Collectors.joining(" | ")));
-				writeField(diffWriter, diff.getAddCredits().stream().map(c -> c.toString()).collect(Collectors.joining(" | ")), true);
 			}
 
+			// a new agent is omitted if an already kept agent has the same name and some same publication
 			List<Agent> agentsUniq = new ArrayList<>();
+			Map<String, Set<PubIds>> agentsUniqPubIds = new HashMap<>();
 			for (Agent agent : agents) {
+				List<PubIds> pubIdsAgent = new ArrayList<>();
+				for (org.edamontology.edammap.core.input.json.Publication publicationAgent : agent.getPublication()) {
+					pubIdsAgent.add(new PubIds(publicationAgent.getPmid(), publicationAgent.getPmcid(), publicationAgent.getDoi()));
+				}
+				Set<PubIds> pubIdsUniq = agentsUniqPubIds.get(agent.getName());
+				if (pubIdsUniq == null) {
+					pubIdsUniq = new HashSet<>();
+					agentsUniqPubIds.put(agent.getName(), pubIdsUniq);
+				}
 				boolean existing = false;
-				for (Agent agentUniq : agentsUniq) {
-					if (agent.getName().equals(agentUniq.getName())) {
-						for (org.edamontology.edammap.core.input.json.Publication publicationAgent : agent.getPublication()) {
-							PubIds pubIdsAgent = new PubIds(publicationAgent.getPmid(), publicationAgent.getPmcid(), publicationAgent.getDoi());
-							for (org.edamontology.edammap.core.input.json.Publication publicationAgentUniq : agentUniq.getPublication()) {
-								PubIds pubIdsAgentUniq = new PubIds(publicationAgentUniq.getPmid(), publicationAgentUniq.getPmcid(), publicationAgentUniq.getDoi());
-								if (pubIdsAgent.equals(pubIdsAgentUniq)) {
-									existing = true;
-								}
-							}
-						}
-						if (existing) {
-							logger.warn("New agent {} ({}) already proposed, omitting", agent.getName(), agent.getPublication().stream().map(p -> "[" + PublicationIds.toString(p.getPmid(), p.getPmcid(), p.getDoi(), false) + "]").collect(Collectors.joining(", ")));
-							break;
-						}
+				for (PubIds pubIds : pubIdsAgent) {
+					if (pubIdsUniq.contains(pubIds)) {
+						existing = true;
+						break;
 					}
 				}
-				if (!existing) {
+				if (existing) {
+					logger.warn("New agent {} ({}) already proposed, omitting", agent.getName(), agent.getPublication().stream().map(p -> "[" + PublicationIds.toString(p.getPmid(), p.getPmcid(), p.getDoi(), false) + "]").collect(Collectors.joining(", ")));
+				} else {
 					agentsUniq.add(agent);
+					pubIdsUniq.addAll(pubIdsAgent);
 				}
 			}
 
-			logger.info(mainMarker, "{}Writing {} new bio.agents entries to {}", logPrefix, agentsUniq.size(), newPath.toString());
-			org.edamontology.edammap.core.output.Json.outputBioagents(newWriter, agentsUniq);
+			if (newPath != null) {
+				logger.info(mainMarker, "{}Writing {} new bio.agents entries to {}", logPrefix, agentsUniq.size(), newPath.toString());
+				org.edamontology.edammap.core.output.Json.outputBioagents(newWriter, agentsUniq);
+			}
+
+			logger.info(mainMarker, "{}PreProcessor cache had {} hits and {} misses, {} entries kept", logPrefix, preProcessorCache.getHits(), preProcessorCache.getMisses(), preProcessorCache.size());
+			logger.info(mainMarker, "{}Loaded {} webpages and docs from database in total", logPrefix, webpageCache.getLoads());
 
 			return agentsUniq;
 		} finally {
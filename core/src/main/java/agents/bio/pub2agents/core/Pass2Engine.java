@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
+import org.edamontology.pubfetcher.core.common.PubFetcher;
+import org.edamontology.pubfetcher.core.scrape.Scrape;
+
+import agents.bio.pub2agents.core.Language.LanguageIndex;
+import agents.bio.pub2agents.core.License.LicenseIndex;
+
+// Resources of pass2, loaded once and then only read, so that one instance can be shared by runs in different threads
+public final class Pass2Engine {
+
+	final LicenseIndex licenseIndex;
+
+	final LanguageIndex languageIndex;
+
+	final List<Pattern> notAbstract;
+	final List<Pattern> notTitle;
+
+	final Scrape scrape;
+
+	public Pass2Engine(FetcherPrivateArgs fetcherPrivateArgs) throws IOException, ParseException {
+		List<License> licenses = PubFetcher.getResource(Pass2.class, "pass2/license.txt").stream().map(l -> new License(l)).collect(Collectors.toList());
+		licenseIndex = new LicenseIndex(licenses);
+		List<Language> languages = PubFetcher.getResource(Pass2.class, "pass2/language.txt").stream().map(l -> new Language(l)).collect(Collectors.toList());
+		List<String> languageKeywords = PubFetcher.getResource(Pass2.class, "pass2/language_keywords.txt");
+		languageIndex = new LanguageIndex(languages, languageKeywords);
+
+		notAbstract = Collections.unmodifiableList(PubFetcher.getResource(SelectPub.class, "select/not_abstract.txt").stream().map(s -> Pass2.notPattern(s)).collect(Collectors.toList()));
+		notTitle = Collections.unmodifiableList(PubFetcher.getResource(SelectPub.class, "select/not_title.txt").stream().map(s -> Pass2.notPattern(s)).collect(Collectors.toList()));
+
+		scrape = new Scrape(fetcherPrivateArgs.getJournalsYaml(), fetcherPrivateArgs.getWebpagesYaml());
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Least recently used results of PreProcessor calls, shared by all CachedPreProcessor of a run
+// All PreProcessor using the same cache must have been created with the same arguments
+final class PreProcessorCache {
+
+	enum Mode {
+		extract,
+		process,
+		processAligned
+	}
+
+	private static final class Key {
+		private final Mode mode;
+		private final String input;
+		private final int hash;
+		private Key(Mode mode, String input) {
+			this.mode = mode;
+			this.input = input;
+			this.hash = 31 * mode.hashCode() + input.hashCode();
+		}
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (!(o instanceof Key)) return false;
+			Key other = (Key) o;
+			return mode == other.mode && input.equals(other.input);
+		}
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	static final class Value {
+		final List<String> processed;
+		final List<String> extracted;
+		private Value(List<String> processed, List<String> extracted) {
+			this.processed = processed;
+			this.extracted = extracted;
+		}
+	}
+
+	// the cache is divided into stripes by key hash, each with its own lock and least recently used order, so that threads seldom wait for each other
+	private static final int STRIPES = 16;
+
+	private final List<Map<Key, Value>> stripes = new ArrayList<>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	PreProcessorCache(int maxSize) {
+		int stripeMaxSize = (maxSize + STRIPES - 1) / STRIPES;
+		for (int i = 0; i < STRIPES; ++i) {
+			stripes.add(new LinkedHashMap<Key, Value>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<Key, Value> eldest) {
+					return size() > stripeMaxSize;
+				}
+			});
+		}
+	}
+
+	private Map<Key, Value> stripe(Key key) {
+		int hash = key.hash ^ (key.hash >>> 16);
+		return stripes.get(Math.floorMod(hash, STRIPES));
+	}
+
+	Value get(Mode mode, String input) {
+		Key key = new Key(mode, input);
+		Map<Key, Value> stripe = stripe(key);
+		Value value;
+		synchronized (stripe) {
+			value = stripe.get(key);
+		}
+		if (value != null) {
+			hits.incrementAndGet();
+		} else {
+			misses.incrementAndGet();
+		}
+		return value;
+	}
+
+	// extracted can be null, if mode is not processAligned
+	void put(Mode mode, String input, List<String> processed, List<String> extracted) {
+		Key key = new Key(mode, input);
+		Value value = new Value(
+			(processed != null ? Collections.unmodifiableList(processed) : null),
+			(extracted != null ? Collections.unmodifiableList(extracted) : null));
+		Map<Key, Value> stripe = stripe(key);
+		synchronized (stripe) {
+			stripe.put(key, value);
+		}
+	}
+
+	long getHits() {
+		return hits.get();
+	}
+
+	long getMisses() {
+		return misses.get();
+	}
+
+	int size() {
+		int size = 0;
+		for (Map<Key, Value> stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package agents.bio.pub2agents.core;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// Sorts pass1 results, keeping at most chunkSize results in memory (if chunkSize > 0) and writing sorted runs to disk
+final class Result1Sorter implements Closeable {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private final int chunkSize;
+
+	private final Path tempDirectory;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final List<Result1> chunk = new ArrayList<>();
+
+	private final List<Path> runs = new ArrayList<>();
+
+	private final List<MappingIterator<Result1>> runIterators = new ArrayList<>();
+
+	private int size = 0;
+
+	private static final class Head {
+		private final Result1 result;
+		private final int run;
+		private Head(Result1 result, int run) {
+			this.result = result;
+			this.run = run;
+		}
+	}
+
+	Result1Sorter(int chunkSize, Path tempDirectory) {
+		this.chunkSize = chunkSize;
+		this.tempDirectory = tempDirectory;
+	}
+
+	int size() {
+		return size;
+	}
+
+	int getRunsSize() {
+		return runs.size();
+	}
+
+	void addAll(List<Result1> results) throws IOException {
+		chunk.addAll(results);
+		size += results.size();
+		if (chunkSize > 0 && chunk.size() >= chunkSize) {
+			writeRun();
+		}
+	}
+
+	private void writeRun() throws IOException {
+		Collections.sort(chunk);
+		Path run = Files.createTempFile(tempDirectory, "pass1_", ".json");
+		runs.add(run);
+		logger.debug("Writing run of {} pass1 results to {}", chunk.size(), run.toString());
+		CharsetEncoder runEncoder = StandardCharsets.UTF_8.newEncoder();
+		runEncoder.onMalformedInput(CodingErrorAction.REPLACE);
+		runEncoder.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		try (SequenceWriter runWriter = mapper.writer().withRootValueSeparator("\n").writeValues(new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(run), runEncoder)))) {
+			runWriter.writeAll(chunk);
+		}
+		chunk.clear();
+	}
+
+	// can be called only once, all results must have been added before
+	Iterator<Result1> iterator() throws IOException {
+		Collections.sort(chunk);
+		if (runs.isEmpty()) {
+			return chunk.iterator();
+		}
+
+		List<Iterator<Result1>> iterators = new ArrayList<>();
+		for (Path run : runs) {
+			MappingIterator<Result1> runIterator = mapper.readerFor(Result1.class).readValues(run.toFile());
+			runIterators.add(runIterator);
+			iterators.add(runIterator);
+		}
+		iterators.add(chunk.iterator());
+
+		// equal results are taken from earlier runs first, so that the merge is stable like Collections.sort
+		PriorityQueue<Head> heads = new PriorityQueue<>((a, b) -> {
+			int compare = a.result.compareTo(b.result);
+			return (compare != 0 ? compare : Integer.compare(a.run, b.run));
+		});
+		for (int i = 0; i < iterators.size(); ++i) {
+			if (iterators.get(i).hasNext()) {
+				heads.add(new Head(iterators.get(i).next(), i));
+			}
+		}
+
+		return new Iterator<Result1>() {
+			@Override
+			public boolean hasNext() {
+				return !heads.isEmpty();
+			}
+			@Override
+			public Result1 next() {
+				Head head = heads.poll();
+				if (head == null) {
+					throw new NoSuchElementException();
+				}
+				if (iterators.get(head.run).hasNext()) {
+					heads.add(new Head(iterators.get(head.run).next(), head.run));
+				}
+				return head.result;
+			}
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (MappingIterator<Result1> runIterator : runIterators) {
+			runIterator.close();
+		}
+		for (Path run : runs) {
+			Files.deleteIfExists(run);
+		}
+	}
+}
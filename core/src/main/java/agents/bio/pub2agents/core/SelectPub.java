@@ -26,11 +26,21 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -64,7 +74,8 @@ public class SelectPub {
 		return query;
 	}
 
-	private static List<PublicationIds> getIds(String type, String resultType, String date, String source, String search, String custom, String not, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException, URISyntaxException {
+	// log messages are added to log instead of being output, so that concurrent queries can be logged in a fixed order
+	private static List<PublicationIds> getIds(String type, String resultType, String date, String source, String search, String custom, String not, SelectPubCache cache, FetcherArgs fetcherArgs, String logPrefix, List<Runnable> log, boolean progress) throws IOException, ParseException, URISyntaxException {
 		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
 
 		List<PublicationIds> ids = new ArrayList<>();
@@ -77,8 +88,9 @@ public class SelectPub {
 		long start = System.currentTimeMillis();
 
 		try (Fetcher fetcher = new Fetcher(fetcherArgs.getPrivateArgs())) {
+			SelectPubCache.Pages pages = cache.pages(fetcher, fetcherArgs);
 			Map<String, String> query = getQuery(resultType, cursorMark, date, source, search, custom, not, fetcherArgs);
-			Document doc = fetcher.postDoc("https://www.ebi.ac.uk/europepmc/webservices/rest/searchPOST", query, fetcherArgs);
+			Document doc = pages.get(query);
 			if (doc == null) {
 				throw new RuntimeException("No Document returned for query " + query);
 			}
@@ -100,7 +112,8 @@ public class SelectPub {
 					if (hitCount != null) {
 						try {
 							expectedSize = Integer.parseInt(hitCount.text());
-							logger.info(mainMarker, "{}Getting {} results for {}", logPrefix, expectedSize, type);
+							int expectedSizeLog = expectedSize;
+							log.add(() -> logger.info(mainMarker, "{}Getting {} results for {}", logPrefix, expectedSizeLog, type));
 						} catch(NumberFormatException e) {
 							throw new RuntimeException("Tag hitCount does not contain an integer in " + doc.location());
 						}
@@ -120,30 +133,38 @@ public class SelectPub {
 						cursorMark = nextCursorMarkText;
 
 						++pageIndex;
-						System.err.print(PubFetcher.progress(pageIndex, (expectedSize - 1) / 1000 + 1, start) + "  \r");
+						if (progress) {
+							System.err.print(PubFetcher.progress(pageIndex, (expectedSize - 1) / 1000 + 1, start) + "  \r");
+						}
 
 						query = getQuery(resultType, cursorMark, date, source, search, custom, not, fetcherArgs);
-						doc = fetcher.postDoc("https://www.ebi.ac.uk/europepmc/webservices/rest/searchPOST", query, fetcherArgs);
+						doc = pages.get(query);
 					}
 				} else {
 					int expectedIndex = (expectedSize - 1) / 1000 + 1;
 					if (expectedIndex > 1 && pageIndex != expectedIndex) {
-						logger.error(mainMarker, "{}Tag nextCursorMark not found in {}", logPrefix, doc.location());
+						String location = doc.location();
+						log.add(() -> logger.error(mainMarker, "{}Tag nextCursorMark not found in {}", logPrefix, location));
 					}
 					break;
 				}
 				if (resultSize == initialSize) {
-					logger.error(mainMarker, "{}Result size did not increase in {}", logPrefix, doc.location());
+					String location = doc.location();
+					log.add(() -> logger.error(mainMarker, "{}Result size did not increase in {}", logPrefix, location));
 					break;
 				}
 			}
 
 			if (doc == null) {
-				logger.error(mainMarker, "{}No Document returned for query {}", logPrefix, query);
+				String queryLog = query.toString();
+				log.add(() -> logger.error(mainMarker, "{}No Document returned for query {}", logPrefix, queryLog));
 			}
 			if (resultSize < expectedSize) {
 				if (resultSize > 0) {
-					logger.error(mainMarker, "{}Less results have been returned ({}) than expected ({}) in {}", logPrefix, resultSize, expectedSize, doc.location());
+					int resultSizeLog = resultSize;
+					int expectedSizeLog = expectedSize;
+					String location = doc.location();
+					log.add(() -> logger.error(mainMarker, "{}Less results have been returned ({}) than expected ({}) in {}", logPrefix, resultSizeLog, expectedSizeLog, location));
 				} else {
 					throw new RuntimeException("Less results have been returned (" + resultSize + ") than expected (" + expectedSize + ") for query " + query);
 				}
@@ -152,6 +173,89 @@ public class SelectPub {
 		return ids;
 	}
 
+	// Queries run by at most threads threads at a time, with the pages of each query still got one after the other
+	// Results must be taken in the order queries were added, log messages of each query are output when its results are taken
+	// With one thread, progress is shown over the pages of the current query, otherwise over the finished queries
+	private static final class Queries {
+
+		private final int threads;
+
+		private final SelectPubCache cache;
+
+		private final ExecutorService executor;
+
+		private final List<Future<List<PublicationIds>>> futures = new ArrayList<>();
+
+		private final List<List<Runnable>> logs = new ArrayList<>();
+
+		private int taken = 0;
+
+		private final AtomicInteger added = new AtomicInteger();
+
+		private final AtomicInteger finished = new AtomicInteger();
+
+		private final long start = System.currentTimeMillis();
+
+		private Queries(int threads, SelectPubCache cache) {
+			this.threads = Math.max(threads, 1);
+			this.cache = cache;
+			this.executor = Executors.newFixedThreadPool(this.threads);
+		}
+
+		private void add(String type, String resultType, String date, String source, String search, String custom, String not, FetcherArgs fetcherArgs, String logPrefix) {
+			List<Runnable> log = Collections.synchronizedList(new ArrayList<>());
+			logs.add(log);
+			added.incrementAndGet();
+			futures.add(executor.submit(() -> {
+				List<PublicationIds> ids = getIds(type, resultType, date, source, search, custom, not, cache, fetcherArgs, logPrefix, log, threads == 1);
+				if (threads > 1) {
+					progress();
+				}
+				return ids;
+			}));
+		}
+
+		private synchronized void progress() {
+			System.err.print(PubFetcher.progress(finished.incrementAndGet(), added.get(), start) + "  \r");
+		}
+
+		private List<PublicationIds> take() throws IOException, ParseException, URISyntaxException {
+			Future<List<PublicationIds>> future = futures.get(taken);
+			List<Runnable> log = logs.get(taken);
+			futures.set(taken, null);
+			logs.set(taken, null);
+			++taken;
+			try {
+				return future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				} else if (e.getCause() instanceof ParseException) {
+					throw (ParseException) e.getCause();
+				} else if (e.getCause() instanceof URISyntaxException) {
+					throw (URISyntaxException) e.getCause();
+				} else if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				} else {
+					throw new RuntimeException(e.getCause());
+				}
+			} finally {
+				synchronized (log) {
+					for (Runnable message : log) {
+						message.run();
+					}
+				}
+			}
+		}
+
+		private void shutdown() {
+			executor.shutdownNow();
+		}
+	}
+
 	// plural is complex, this includes only what is necessary for select/agent.txt and select/agent_good.txt
 	private static String getPlural(String singular) {
 		if (singular.endsWith("x") || singular.endsWith("ch")) {
@@ -170,239 +274,219 @@ public class SelectPub {
 		return "(" + PubFetcher.getResource(SelectPub.class, "select/" + resource + ".txt").stream().map(s -> "ABSTRACT:\"" + s + "\" OR ABSTRACT:\"" + getPlural(s) + "\"").collect(Collectors.joining(" OR ")) + ")";
 	}
 
-	private static int findId(int from, int fromLast, List<List<PublicationIds>> agentIds, PublicationIds firstId) {
-		for (int i = from; i < agentIds.size() - fromLast; ++i) {
-			for (PublicationIds agentId : agentIds.get(i)) {
-				if (!agentId.getPmid().isEmpty() && agentId.getPmid().equals(firstId.getPmid())
-						|| !agentId.getPmcid().isEmpty() && agentId.getPmcid().equals(firstId.getPmcid())
-						|| !agentId.getDoi().isEmpty() && agentId.getDoi().equals(firstId.getDoi())) {
-					return i;
+	// For each PMID, PMCID and DOI in the lists of IDs got for some terms, the indexes of the lists containing it
+	// An ID is found in a list if some ID of the list has the same non-empty PMID, PMCID or DOI
+	private static final class TermIndex {
+
+		private final Map<String, BitSet> pmids = new HashMap<>();
+		private final Map<String, BitSet> pmcids = new HashMap<>();
+		private final Map<String, BitSet> dois = new HashMap<>();
+
+		private static void put(Map<String, BitSet> map, String key, int i) {
+			if (key.isEmpty()) return;
+			BitSet terms = map.get(key);
+			if (terms == null) {
+				terms = new BitSet();
+				map.put(key, terms);
+			}
+			terms.set(i);
+		}
+
+		private static void or(BitSet terms, Map<String, BitSet> map, String key) {
+			if (key.isEmpty()) return;
+			BitSet keyTerms = map.get(key);
+			if (keyTerms != null) {
+				terms.or(keyTerms);
+			}
+		}
+
+		private TermIndex(List<List<PublicationIds>> termsIds) {
+			for (int i = 0; i < termsIds.size(); ++i) {
+				for (PublicationIds termId : termsIds.get(i)) {
+					put(pmids, termId.getPmid(), i);
+					put(pmcids, termId.getPmcid(), i);
+					put(dois, termId.getDoi(), i);
 				}
 			}
 		}
-		return -1;
+
+		// the indexes of the lists where id is found
+		private BitSet get(PublicationIds id) {
+			BitSet terms = new BitSet();
+			or(terms, pmids, id.getPmid());
+			or(terms, pmcids, id.getPmcid());
+			or(terms, dois, id.getDoi());
+			return terms;
+		}
 	}
-	private static void findIdLast(int from, List<List<PublicationIds>> agentIds, PublicationIds firstId, List<PublicationIds> ids) {
-		for (int i = from; i < agentIds.size(); ++i) {
-			for (PublicationIds agentId : agentIds.get(i)) {
-				if (!agentId.getPmid().isEmpty() && agentId.getPmid().equals(firstId.getPmid())
-						|| !agentId.getPmcid().isEmpty() && agentId.getPmcid().equals(firstId.getPmcid())
-						|| !agentId.getDoi().isEmpty() && agentId.getDoi().equals(firstId.getDoi())) {
-					ids.add(firstId);
-					return;
-				}
+
+	// the IDs found in at least count different lists of index, in the order of ids
+	private static List<PublicationIds> inTerms(Collection<PublicationIds> ids, TermIndex index, int count) {
+		List<PublicationIds> found = new ArrayList<>();
+		for (PublicationIds id : ids) {
+			if (index.get(id).cardinality() >= count) {
+				found.add(id);
 			}
 		}
+		return found;
 	}
 
-	private static Set<PublicationIds> abstractQuery(String resultType, String date, String source, String custom, String not, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException, URISyntaxException {
+	// Phrases of the abstract query, read once from the select resources
+	private static final class Terms {
+
+		private final String excellent;
+		private final String good;
+		private final String mediocre1;
+		private final String mediocre2;
+		private final String http;
+		private final String agentGood;
+		private final String agent;
+
+		private final List<String> agentsGood;
+		private final List<String> agents;
+		private final List<String> mediocres;
+
+		private Terms() throws IOException {
+			excellent = getAbstractQuery("excellent");
+			good = getAbstractQuery("good");
+			mediocre1 = getAbstractQuery("mediocre1");
+			mediocre2 = getAbstractQuery("mediocre2");
+			http = getAbstractQuery("http");
+			agentGood = getAbstractQueryPlural("agent_good");
+			agent = getAbstractQueryPlural("agent");
+
+			agentsGood = PubFetcher.getResource(SelectPub.class, "select/agent_good.txt");
+			agents = PubFetcher.getResource(SelectPub.class, "select/agent.txt");
+			mediocres = PubFetcher.getResource(SelectPub.class, "select/mediocre1.txt");
+			mediocres.addAll(PubFetcher.getResource(SelectPub.class, "select/mediocre2.txt"));
+		}
+	}
+
+	// queries are added here and their results taken in abstractQuery in the same order, so that log messages and results are the same as when run one after the other
+	private static void addAbstractQuery(Queries queries, Terms terms, String resultType, String date, String source, String custom, String not, FetcherArgs fetcherArgs, String logPrefix) {
+		String excellent = terms.excellent;
+		String good = terms.good;
+		String mediocre1 = terms.mediocre1;
+		String mediocre2 = terms.mediocre2;
+		String http = terms.http;
+		String agentGood = terms.agentGood;
+		String agent = terms.agent;
+
+		queries.add("excellent", resultType, date, source, excellent, custom, not, fetcherArgs, logPrefix);
+		queries.add("good + http", resultType, date, source, good + " AND " + http, custom, not, fetcherArgs, logPrefix);
+		queries.add("good + agent_good", resultType, date, source, good + " AND " + agentGood, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre1 + http + agent", resultType, date, source, mediocre1 + " AND " + http + " AND " + agent, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre2 + http + agent", resultType, date, source, mediocre2 + " AND " + http + " AND " + agent, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre1 + agent_good + agent", resultType, date, source, mediocre1 + " AND " + agentGood + " AND " + agent, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre2 + agent_good + agent", resultType, date, source, mediocre2 + " AND " + agentGood + " AND " + agent, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre1 + good + agent", resultType, date, source, mediocre1 + " AND " + good + " AND " + agent, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre2 + good + agent", resultType, date, source, mediocre2 + " AND " + good + " AND " + agent, custom, not, fetcherArgs, logPrefix);
+		queries.add("http + agent_good", resultType, date, source, http + " AND " + agentGood, custom, not, fetcherArgs, logPrefix);
+		for (String t : terms.agentsGood) {
+			queries.add("\"" + t + "\"", resultType, date, source, "(ABSTRACT:\"" + t + "\" OR ABSTRACT:\"" + getPlural(t) + "\")", custom, not, fetcherArgs, logPrefix);
+		}
+		for (String t : terms.agents) {
+			queries.add("\"" + t + "\"", resultType, date, source, "(ABSTRACT:\"" + t + "\" OR ABSTRACT:\"" + getPlural(t) + "\")", custom, not, fetcherArgs, logPrefix);
+		}
+		for (String t : terms.mediocres) {
+			queries.add("\"" + t + "\"", resultType, date, source, "(ABSTRACT:\"" + t + "\")", custom, not, fetcherArgs, logPrefix);
+		}
+		queries.add("good", resultType, date, source, good, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre1", resultType, date, source, mediocre1, custom, not, fetcherArgs, logPrefix);
+		queries.add("mediocre2", resultType, date, source, mediocre2, custom, not, fetcherArgs, logPrefix);
+		queries.add("http", resultType, date, source, http, custom, not, fetcherArgs, logPrefix);
+		queries.add("agent_good", resultType, date, source, agentGood, custom, not, fetcherArgs, logPrefix);
+	}
+
+	private static Set<PublicationIds> abstractQuery(Queries queries, Terms terms, String date, String source, String logPrefix) throws IOException, ParseException, URISyntaxException {
 		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
 		logger.info(mainMarker, "{}Running abstract query for source {} and date {}", logPrefix, source, date);
 
-		String excellent = getAbstractQuery("excellent");
-		String good = getAbstractQuery("good");
-		String mediocre1 = getAbstractQuery("mediocre1");
-		String mediocre2 = getAbstractQuery("mediocre2");
-		String http = getAbstractQuery("http");
-		String agentGood = getAbstractQueryPlural("agent_good");
-		String agent = getAbstractQueryPlural("agent");
-
-		List<String> agentsGood = PubFetcher.getResource(SelectPub.class, "select/agent_good.txt");
-		List<String> agents = PubFetcher.getResource(SelectPub.class, "select/agent.txt");
-		List<String> mediocres = PubFetcher.getResource(SelectPub.class, "select/mediocre1.txt");
-		mediocres.addAll(PubFetcher.getResource(SelectPub.class, "select/mediocre2.txt"));
-
-		List<PublicationIds> excellentIds = getIds("excellent", resultType, date, source, excellent, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> goodHttpIds = getIds("good + http", resultType, date, source, good + " AND " + http, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> goodAgentGoodIds = getIds("good + agent_good", resultType, date, source, good + " AND " + agentGood, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> mediocre1HttpAgentIds = getIds("mediocre1 + http + agent", resultType, date, source, mediocre1 + " AND " + http + " AND " + agent, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> mediocre2HttpAgentIds = getIds("mediocre2 + http + agent", resultType, date, source, mediocre2 + " AND " + http + " AND " + agent, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> mediocre1AgentGoodAgentIds = getIds("mediocre1 + agent_good + agent", resultType, date, source, mediocre1 + " AND " + agentGood + " AND " + agent, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> mediocre2AgentGoodAgentIds = getIds("mediocre2 + agent_good + agent", resultType, date, source, mediocre2 + " AND " + agentGood + " AND " + agent, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> mediocre1GoodAgentIds = getIds("mediocre1 + good + agent", resultType, date, source, mediocre1 + " AND " + good + " AND " + agent, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> mediocre2GoodAgentIds = getIds("mediocre2 + good + agent", resultType, date, source, mediocre2 + " AND " + good + " AND " + agent, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> httpAgentGoodIds = getIds("http + agent_good", resultType, date, source, http + " AND " + agentGood, custom, not, fetcherArgs, logPrefix);
+		List<PublicationIds> excellentIds = queries.take();
+		List<PublicationIds> goodHttpIds = queries.take();
+		List<PublicationIds> goodAgentGoodIds = queries.take();
+		List<PublicationIds> mediocre1HttpAgentIds = queries.take();
+		List<PublicationIds> mediocre2HttpAgentIds = queries.take();
+		List<PublicationIds> mediocre1AgentGoodAgentIds = queries.take();
+		List<PublicationIds> mediocre2AgentGoodAgentIds = queries.take();
+		List<PublicationIds> mediocre1GoodAgentIds = queries.take();
+		List<PublicationIds> mediocre2GoodAgentIds = queries.take();
+		List<PublicationIds> httpAgentGoodIds = queries.take();
 
 		List<List<PublicationIds>> agentGoodsIds = new ArrayList<>();
-		for (String t : agentsGood) {
-			agentGoodsIds.add(getIds("\"" + t + "\"", resultType, date, source, "(ABSTRACT:\"" + t + "\" OR ABSTRACT:\"" + getPlural(t) + "\")", custom, not, fetcherArgs, logPrefix));
+		for (int i = 0; i < terms.agentsGood.size(); ++i) {
+			agentGoodsIds.add(queries.take());
 		}
 		List<List<PublicationIds>> agentsIds = new ArrayList<>();
-		for (String t : agents) {
-			agentsIds.add(getIds("\"" + t + "\"", resultType, date, source, "(ABSTRACT:\"" + t + "\" OR ABSTRACT:\"" + getPlural(t) + "\")", custom, not, fetcherArgs, logPrefix));
+		for (int i = 0; i < terms.agents.size(); ++i) {
+			agentsIds.add(queries.take());
 		}
 		List<List<PublicationIds>> mediocresIds = new ArrayList<>();
-		for (String t : mediocres) {
-			mediocresIds.add(getIds("\"" + t + "\"", resultType, date, source, "(ABSTRACT:\"" + t + "\")", custom, not, fetcherArgs, logPrefix));
+		for (int i = 0; i < terms.mediocres.size(); ++i) {
+			mediocresIds.add(queries.take());
 		}
 
-		List<PublicationIds> goodIds = getIds("good", resultType, date, source, good, custom, not, fetcherArgs, logPrefix);
+		List<PublicationIds> goodIds = queries.take();
 		Set<PublicationIds> mediocreIds = new LinkedHashSet<>();
-		mediocreIds.addAll(getIds("mediocre1", resultType, date, source, mediocre1, custom, not, fetcherArgs, logPrefix));
-		mediocreIds.addAll(getIds("mediocre2", resultType, date, source, mediocre2, custom, not, fetcherArgs, logPrefix));
-		List<PublicationIds> httpIds = getIds("http", resultType, date, source, http, custom, not, fetcherArgs, logPrefix);
-		List<PublicationIds> agentGoodIds = getIds("agent_good", resultType, date, source, agentGood, custom, not, fetcherArgs, logPrefix);
+		mediocreIds.addAll(queries.take());
+		mediocreIds.addAll(queries.take());
+		List<PublicationIds> httpIds = queries.take();
+		List<PublicationIds> agentGoodIds = queries.take();
+
+		TermIndex agentsIndex = new TermIndex(agentsIds);
+		TermIndex agentGoodsIndex = new TermIndex(agentGoodsIds);
+		TermIndex mediocresIndex = new TermIndex(mediocresIds);
 
 		logger.info(mainMarker, "{}Getting results for good + agent + agent", logPrefix);
-		List<PublicationIds> goodAgentAgentIds = new ArrayList<>();
-		long start = System.currentTimeMillis();
-		for (int i = 0; i < goodIds.size(); ++i) {
-			System.err.print(PubFetcher.progress(i + 1, goodIds.size(), start) + "  \r");
-			PublicationIds goodId = goodIds.get(i);
-			int j = findId(0, 1, agentsIds, goodId);
-			if (j >= 0) {
-				findIdLast(j + 1, agentsIds, goodId, goodAgentAgentIds);
-			}
-		}
+		List<PublicationIds> goodAgentAgentIds = inTerms(goodIds, agentsIndex, 2);
 		logger.info(mainMarker, "{}Got {} results for good + agent + agent", logPrefix, goodAgentAgentIds.size());
 
 		logger.info(mainMarker, "{}Getting results for mediocre + agent + agent + agent", logPrefix);
-		List<PublicationIds> mediocreAgentAgentAgentIds = new ArrayList<>();
-		start = System.currentTimeMillis();
-		int mediocreIdsI = 0;
-		for (PublicationIds mediocreId : mediocreIds) {
-			System.err.print(PubFetcher.progress(mediocreIdsI + 1, mediocreIds.size(), start) + "  \r");
-			int j = findId(0, 2, agentsIds, mediocreId);
-			if (j >= 0) {
-				j = findId(j + 1, 1, agentsIds, mediocreId);
-				if (j >= 0) {
-					findIdLast(j + 1, agentsIds, mediocreId, mediocreAgentAgentAgentIds);
-				}
-			}
-			++mediocreIdsI;
-		}
+		List<PublicationIds> mediocreAgentAgentAgentIds = inTerms(mediocreIds, agentsIndex, 3);
 		logger.info(mainMarker, "{}Got {} results for mediocre + agent + agent + agent", logPrefix, mediocreAgentAgentAgentIds.size());
 
 		logger.info(mainMarker, "{}Getting results for http + agent + agent", logPrefix);
-		List<PublicationIds> httpAgentAgentIds = new ArrayList<>();
-		start = System.currentTimeMillis();
-		for (int i = 0; i < httpIds.size(); ++i) {
-			System.err.print(PubFetcher.progress(i + 1, httpIds.size(), start) + "  \r");
-			PublicationIds httpId = httpIds.get(i);
-			int j = findId(0, 1, agentsIds, httpId);
-			if (j >= 0) {
-				findIdLast(j + 1, agentsIds, httpId, httpAgentAgentIds);
-			}
-		}
+		List<PublicationIds> httpAgentAgentIds = inTerms(httpIds, agentsIndex, 2);
 		logger.info(mainMarker, "{}Got {} results for http + agent + agent", logPrefix, httpAgentAgentIds.size());
 
-		int agentGoodsIdsSize = 0;
-		for (List<PublicationIds> agentGoodId : agentGoodsIds) {
-			agentGoodsIdsSize += agentGoodId.size();
-		}
-
 		logger.info(mainMarker, "{}Getting results for agent_good + agent_good", logPrefix);
 		List<PublicationIds> agentGoodAgentGoodIds = new ArrayList<>();
-		int agentGoodIndex = 0;
-		start = System.currentTimeMillis();
+		Set<PublicationIds> agentGoodAgentGoodIdsSet = new HashSet<>();
 		for (int i = 0; i < agentGoodsIds.size() - 1; ++i) {
 			for (PublicationIds firstAgentGoodId : agentGoodsIds.get(i)) {
-				++agentGoodIndex;
-				System.err.print(PubFetcher.progress(agentGoodIndex, agentGoodsIdsSize, start) + "  \r");
-				if (!agentGoodAgentGoodIds.contains(firstAgentGoodId)) {
-					findIdLast(i + 1, agentGoodsIds, firstAgentGoodId, agentGoodAgentGoodIds);
+				if (!agentGoodAgentGoodIdsSet.contains(firstAgentGoodId) && agentGoodsIndex.get(firstAgentGoodId).nextSetBit(i + 1) >= 0) {
+					agentGoodAgentGoodIds.add(firstAgentGoodId);
+					agentGoodAgentGoodIdsSet.add(firstAgentGoodId);
 				}
 			}
 		}
 		logger.info(mainMarker, "{}Got {} results for agent_good + agent_good", logPrefix, agentGoodAgentGoodIds.size());
 
 		logger.info(mainMarker, "{}Getting results for agent_good + agent + agent", logPrefix);
-		List<PublicationIds> agentGoodAgentAgentIds = new ArrayList<>();
-		start = System.currentTimeMillis();
-		for (int i = 0; i < agentGoodIds.size(); ++i) {
-			System.err.print(PubFetcher.progress(i + 1, agentGoodIds.size(), start) + "  \r");
-			PublicationIds agentGoodId = agentGoodIds.get(i);
-			int j = findId(0, 1, agentsIds, agentGoodId);
-			if (j >= 0) {
-				findIdLast(j + 1, agentsIds, agentGoodId, agentGoodAgentAgentIds);
-			}
-		}
+		List<PublicationIds> agentGoodAgentAgentIds = inTerms(agentGoodIds, agentsIndex, 2);
 		logger.info(mainMarker, "{}Got {} results for agent_good + agent + agent", logPrefix, agentGoodAgentAgentIds.size());
 
 		logger.info(mainMarker, "{}Getting results for good + mediocre + mediocre + mediocre + mediocre", logPrefix);
-		List<PublicationIds> goodMediocre4Ids = new ArrayList<>();
-		start = System.currentTimeMillis();
-		for (int i = 0; i < goodIds.size(); ++i) {
-			System.err.print(PubFetcher.progress(i + 1, goodIds.size(), start) + "  \r");
-			PublicationIds goodId = goodIds.get(i);
-			int j = findId(0, 3, mediocresIds, goodId);
-			if (j >= 0) {
-				j = findId(j + 1, 2, mediocresIds, goodId);
-				if (j >= 0) {
-					j = findId(j + 1, 1, mediocresIds, goodId);
-					if (j >= 0) {
-						findIdLast(j + 1, mediocresIds, goodId, goodMediocre4Ids);
-					}
-				}
-			}
-		}
+		List<PublicationIds> goodMediocre4Ids = inTerms(goodIds, mediocresIndex, 4);
 		logger.info(mainMarker, "{}Got {} results for good + mediocre + mediocre + mediocre + mediocre", logPrefix, goodMediocre4Ids.size());
 
 		logger.info(mainMarker, "{}Getting results for http + mediocre + mediocre + mediocre + mediocre", logPrefix);
-		List<PublicationIds> httpMediocre4Ids = new ArrayList<>();
-		start = System.currentTimeMillis();
-		for (int i = 0; i < httpIds.size(); ++i) {
-			System.err.print(PubFetcher.progress(i + 1, httpIds.size(), start) + "  \r");
-			PublicationIds httpId = httpIds.get(i);
-			int j = findId(0, 3, mediocresIds, httpId);
-			if (j >= 0) {
-				j = findId(j + 1, 2, mediocresIds, httpId);
-				if (j >= 0) {
-					j = findId(j + 1, 1, mediocresIds, httpId);
-					if (j >= 0) {
-						findIdLast(j + 1, mediocresIds, httpId, httpMediocre4Ids);
-					}
-				}
-			}
-		}
+		List<PublicationIds> httpMediocre4Ids = inTerms(httpIds, mediocresIndex, 4);
 		logger.info(mainMarker, "{}Got {} results for http + mediocre + mediocre + mediocre + mediocre", logPrefix, httpMediocre4Ids.size());
 
 		logger.info(mainMarker, "{}Getting results for agent_good + mediocre + mediocre + mediocre + mediocre", logPrefix);
-		List<PublicationIds> agentGoodMediocre4Ids = new ArrayList<>();
-		start = System.currentTimeMillis();
-		for (int i = 0; i < agentGoodIds.size(); ++i) {
-			System.err.print(PubFetcher.progress(i + 1, agentGoodIds.size(), start) + "  \r");
-			PublicationIds agentGoodId = agentGoodIds.get(i);
-			int j = findId(0, 3, mediocresIds, agentGoodId);
-			if (j >= 0) {
-				j = findId(j + 1, 2, mediocresIds, agentGoodId);
-				if (j >= 0) {
-					j = findId(j + 1, 1, mediocresIds, agentGoodId);
-					if (j >= 0) {
-						findIdLast(j + 1, mediocresIds, agentGoodId, agentGoodMediocre4Ids);
-					}
-				}
-			}
-		}
+		List<PublicationIds> agentGoodMediocre4Ids = inTerms(agentGoodIds, mediocresIndex, 4);
 		logger.info(mainMarker, "{}Got {} results for agent_good + mediocre + mediocre + mediocre + mediocre", logPrefix, agentGoodMediocre4Ids.size());
 
-		int agentsIdsSize = 0;
-		for (List<PublicationIds> agentId : agentsIds) {
-			agentsIdsSize += agentId.size();
-		}
-
+		// only being in some agent list other than the last is required, not being in two agent lists
 		logger.info(mainMarker, "{}Getting results for agent + agent + mediocre + mediocre + mediocre + mediocre", logPrefix);
 		List<PublicationIds> agentAgentMediocre4Ids = new ArrayList<>();
-		int agentIndex = 0;
-		start = System.currentTimeMillis();
+		Set<PublicationIds> agentAgentMediocre4IdsSet = new HashSet<>();
 		for (int i = 0; i < agentsIds.size() - 1; ++i) {
 			for (PublicationIds firstAgentId : agentsIds.get(i)) {
-				++agentIndex;
-				System.err.print(PubFetcher.progress(agentIndex, agentsIdsSize, start) + "  \r");
-				if (!agentAgentMediocre4Ids.contains(firstAgentId)) {
-					findId(i + 1, 0, agentsIds, firstAgentId);
-					if (i >= 0) {
-						int j = findId(0, 3, mediocresIds, firstAgentId);
-						if (j >= 0) {
-							j = findId(j + 1, 2, mediocresIds, firstAgentId);
-							if (j >= 0) {
-								j = findId(j + 1, 1, mediocresIds, firstAgentId);
-								if (j >= 0) {
-									findIdLast(j + 1, mediocresIds, firstAgentId, agentAgentMediocre4Ids);
-								}
-							}
-						}
-					}
+				if (!agentAgentMediocre4IdsSet.contains(firstAgentId) && mediocresIndex.get(firstAgentId).cardinality() >= 4) {
+					agentAgentMediocre4Ids.add(firstAgentId);
+					agentAgentMediocre4IdsSet.add(firstAgentId);
 				}
 			}
 		}
@@ -464,7 +548,9 @@ public class SelectPub {
 		return "CREATION_DATE:" + dayDate.toString();
 	}
 
-	public static Set<PublicationIds> select(String date, boolean disableAgent, String custom, boolean disableNot, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException, URISyntaxException {
+	// independent Europe PMC queries are run concurrently by at most threads threads
+	// responses of Europe PMC are taken from or stored in cache, depending on its mode
+	public static Set<PublicationIds> select(String date, boolean disableAgent, String custom, boolean disableNot, int threads, SelectPubCache cache, FetcherArgs fetcherArgs, String logPrefix) throws IOException, ParseException, URISyntaxException {
 		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
 
 		if (custom != null) {
@@ -488,17 +574,40 @@ public class SelectPub {
 			logger.info(mainMarker, "{}Running journal list query for date {}", logPrefix, date);
 			List<String> journalList = PubFetcher.getResource(SelectPub.class, "select/journal.txt");
 			String journalSearch = "(" + journalList.stream().map(j -> "JOURNAL:\"" + j + "\"").collect(Collectors.joining(" OR ")) + ")";
-			List<PublicationIds> idsJournal = getIds("journal list", "idlist", date, null, journalSearch, custom, null, fetcherArgs, logPrefix);
+			List<Runnable> log = new ArrayList<>();
+			List<PublicationIds> idsJournal;
+			try {
+				idsJournal = getIds("journal list", "idlist", date, null, journalSearch, custom, null, cache, fetcherArgs, logPrefix, log, true);
+			} finally {
+				for (Runnable message : log) {
+					message.run();
+				}
+			}
 			logger.info(mainMarker, "{}Journal list query for date {} returned {} results", logPrefix, date, idsJournal.size());
 			ids.addAll(idsJournal);
 		}
 
-		if (disableAgent) {
-			ids.addAll(getIds("unrestricted (to agents) from (SRC:MED OR SRC:PMC)", "idlist", date, "(SRC:MED OR SRC:PMC)", null, custom, null, fetcherArgs, logPrefix));
-			ids.addAll(getIds("unrestricted (to agents) from (SRC:PPR)", "lite", date, "(SRC:PPR)", null, custom, null, fetcherArgs, logPrefix));
-		} else {
-			ids.addAll(abstractQuery("idlist", date, "(SRC:MED OR SRC:PMC)", custom, not, fetcherArgs, logPrefix));
-			ids.addAll(abstractQuery("lite", date, "(SRC:PPR)", custom, not, fetcherArgs, logPrefix));
+		// queries of both sources are run in the same pool, so that queries of the second source don't have to wait for the first source to finish
+		Queries queries = new Queries(threads, cache);
+		try {
+			if (disableAgent) {
+				queries.add("unrestricted (to agents) from (SRC:MED OR SRC:PMC)", "idlist", date, "(SRC:MED OR SRC:PMC)", null, custom, null, fetcherArgs, logPrefix);
+				queries.add("unrestricted (to agents) from (SRC:PPR)", "lite", date, "(SRC:PPR)", null, custom, null, fetcherArgs, logPrefix);
+				ids.addAll(queries.take());
+				ids.addAll(queries.take());
+			} else {
+				Terms terms = new Terms();
+				addAbstractQuery(queries, terms, "idlist", date, "(SRC:MED OR SRC:PMC)", custom, not, fetcherArgs, logPrefix);
+				addAbstractQuery(queries, terms, "lite", date, "(SRC:PPR)", custom, not, fetcherArgs, logPrefix);
+				ids.addAll(abstractQuery(queries, terms, date, "(SRC:MED OR SRC:PMC)", logPrefix));
+				ids.addAll(abstractQuery(queries, terms, date, "(SRC:PPR)", logPrefix));
+			}
+		} finally {
+			queries.shutdown();
+		}
+
+		if (cache.getMode() != SelectPubCache.Mode.OFF) {
+			logger.info(mainMarker, "{}{} Europe PMC responses were taken from the select-pub cache {}, {} were fetched", logPrefix, cache.getHits(), cache.getDirectory().toString(), cache.getMisses());
 		}
 
 		return ids;
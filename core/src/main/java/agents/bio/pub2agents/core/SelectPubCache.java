@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.core;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+
+import org.edamontology.pubfetcher.core.common.FetcherArgs;
+import org.edamontology.pubfetcher.core.fetching.Fetcher;
+
+// Responses of Europe PMC searches done by SelectPub, one file per response named by the hash of the query (without the e-mail)
+// Each file contains the location of the response, the syntax of the response and the response itself, separated by newlines
+public final class SelectPubCache {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final String URL = "https://www.ebi.ac.uk/europepmc/webservices/rest/searchPOST";
+
+	public enum Mode {
+		// responses are always fetched and not stored
+		OFF,
+		// responses are taken from the cache if present and not expired, otherwise fetched and stored
+		RECORD,
+		// responses are only taken from the cache, regardless of their age, and nothing is fetched
+		REPLAY
+	}
+
+	private final Path directory;
+
+	private final Mode mode;
+
+	private final long expiryMillis;
+
+	private final AtomicInteger hits = new AtomicInteger();
+
+	private final AtomicInteger misses = new AtomicInteger();
+
+	// responses older than expiryHours are fetched again in RECORD mode, if expiryHours is not positive, then responses never expire
+	public SelectPubCache(Path directory, Mode mode, int expiryHours) throws IOException {
+		this.directory = directory;
+		this.mode = mode;
+		this.expiryMillis = (expiryHours > 0 ? TimeUnit.HOURS.toMillis(expiryHours) : 0);
+		if (mode == Mode.RECORD) {
+			Files.createDirectories(directory);
+		}
+	}
+
+	// Gets the pages of one query: once a page has been fetched, the following pages are also fetched and not taken from the cache,
+	// so that the cursor marks of all pages come from the same search
+	final class Pages {
+
+		private final Fetcher fetcher;
+
+		private final FetcherArgs fetcherArgs;
+
+		private boolean fetched = false;
+
+		private Pages(Fetcher fetcher, FetcherArgs fetcherArgs) {
+			this.fetcher = fetcher;
+			this.fetcherArgs = fetcherArgs;
+		}
+
+		Document get(Map<String, String> query) throws IOException, ParseException, URISyntaxException {
+			if (mode == Mode.OFF) {
+				return fetcher.postDoc(URL, query, fetcherArgs);
+			}
+			Path file = directory.resolve(key(query));
+			if (!fetched && Files.exists(file) && (mode == Mode.REPLAY || expiryMillis == 0 || System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() < expiryMillis)) {
+				hits.incrementAndGet();
+				return read(file);
+			}
+			if (mode == Mode.REPLAY) {
+				throw new RuntimeException("No response for query " + query + " in select-pub cache " + directory.toString());
+			}
+			misses.incrementAndGet();
+			fetched = true;
+			Document doc = fetcher.postDoc(URL, query, fetcherArgs);
+			if (doc != null) {
+				write(file, doc);
+			}
+			return doc;
+		}
+	}
+
+	Pages pages(Fetcher fetcher, FetcherArgs fetcherArgs) {
+		return new Pages(fetcher, fetcherArgs);
+	}
+
+	private static String key(Map<String, String> query) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+		for (Map.Entry<String, String> entry : query.entrySet()) {
+			if (entry.getKey().equals("email")) continue;
+			digest.update((entry.getKey() + "=" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+		}
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.append(".xml").toString();
+	}
+
+	private static Document read(Path file) throws IOException {
+		String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		int locationEnd = content.indexOf('\n');
+		int syntaxEnd = (locationEnd >= 0 ? content.indexOf('\n', locationEnd + 1) : -1);
+		if (syntaxEnd < 0) {
+			throw new RuntimeException("Invalid select-pub cache file " + file.toString());
+		}
+		String location = content.substring(0, locationEnd);
+		Parser parser = (content.substring(locationEnd + 1, syntaxEnd).equals(Document.OutputSettings.Syntax.xml.name()) ? Parser.xmlParser() : Parser.htmlParser());
+		return Jsoup.parse(content.substring(syntaxEnd + 1), location, parser);
+	}
+
+	// written to a temporary file first, so that concurrent queries or an interrupted run can't leave a partial response in the cache
+	private void write(Path file, Document doc) throws IOException {
+		Path tmp = Files.createTempFile(directory, "select_pub_", ".tmp");
+		try {
+			Files.write(tmp, (doc.location() + "\n" + doc.outputSettings().syntax().name() + "\n" + doc.outerHtml()).getBytes(StandardCharsets.UTF_8));
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+		logger.debug("Stored response for {} in {}", URL, file.toString());
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public int getHits() {
+		return hits.get();
+	}
+
+	public int getMisses() {
+		return misses.get();
+	}
+}
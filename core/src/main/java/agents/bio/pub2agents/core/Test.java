@@ -234,4 +234,30 @@ public final class Test {
 			}
 		}
 	}
+
+	public static void linkClassifierCheck(String linksFile) throws IOException {
+		Marker mainMarker = MarkerManager.getMarker(Common.MAIN_MARKER);
+
+		List<String> links = PubFetcher.webFile(Collections.singletonList(linksFile));
+		logger.info(mainMarker, "Loaded {} links from {}", links.size(), linksFile);
+
+		int different = 0;
+		long cascadeTime = 0;
+		long classifierTime = 0;
+		System.out.println("LINK\tCASCADE\tCLASSIFIER");
+		for (String link : links) {
+			long start = System.nanoTime();
+			LinkClassifier.Result cascade = LinkClassifier.classifyCascade(link);
+			cascadeTime += System.nanoTime() - start;
+			start = System.nanoTime();
+			LinkClassifier.Result classifier = LinkClassifier.classify(link);
+			classifierTime += System.nanoTime() - start;
+			if (cascade != classifier) {
+				System.out.println(link + "\t" + cascade + "\t" + classifier);
+				++different;
+			}
+		}
+
+		logger.info(mainMarker, "{} links classified differently, cascade took {} ms, classifier took {} ms", different, cascadeTime / 1000000, classifierTime / 1000000);
+	}
 }
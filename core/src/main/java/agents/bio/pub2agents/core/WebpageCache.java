@@ -0,0 +1,214 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package agents.bio.pub2agents.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.edamontology.pubfetcher.core.db.Database;
+import org.edamontology.pubfetcher.core.db.webpage.Webpage;
+import org.edamontology.pubfetcher.core.scrape.Scrape;
+
+// Fields of webpages and docs needed in pass2, so that each URL is loaded from the database only once
+// Sentences of content are kept for the most recently used URLs, up to a total number of characters, so that webpages shared by several results are parsed only once
+final class WebpageCache {
+
+	static final class Entry {
+		private final boolean broken;
+		private final String contentType;
+		private final String title;
+		private final String license;
+		private final String language;
+		private final String finalUrl;
+		private Entry(Webpage webpage) {
+			this.broken = webpage.isBroken();
+			this.contentType = webpage.getContentType();
+			this.title = webpage.getTitle();
+			this.license = webpage.getLicense();
+			this.language = webpage.getLanguage();
+			this.finalUrl = webpage.getFinalUrl();
+		}
+		private Entry() {
+			this.broken = true;
+			this.contentType = null;
+			this.title = null;
+			this.license = null;
+			this.language = null;
+			this.finalUrl = null;
+		}
+		boolean isBroken() {
+			return broken;
+		}
+		String getContentType() {
+			return contentType;
+		}
+		String getTitle() {
+			return title;
+		}
+		String getLicense() {
+			return license;
+		}
+		String getLanguage() {
+			return language;
+		}
+		String getFinalUrl() {
+			return finalUrl;
+		}
+	}
+
+	// least recently used sentences are removed when their total length exceeds maxChars
+	private static final class SentencesCache {
+		private final Map<String, List<String>> map = new LinkedHashMap<>(16, 0.75f, true);
+		private final Map<String, Long> lengths = new HashMap<>();
+		private final long maxChars;
+		private long chars = 0;
+		private SentencesCache(long maxChars) {
+			this.maxChars = maxChars;
+		}
+		private synchronized List<String> get(String url) {
+			return map.get(url);
+		}
+		private synchronized void put(String url, List<String> sentences) {
+			long length = 0;
+			for (String sentence : sentences) {
+				length += sentence.length();
+			}
+			if (length > maxChars || map.containsKey(url)) {
+				return;
+			}
+			map.put(url, sentences);
+			lengths.put(url, length);
+			chars += length;
+			for (Iterator<String> it = map.keySet().iterator(); chars > maxChars && it.hasNext(); ) {
+				chars -= lengths.remove(it.next());
+				it.remove();
+			}
+		}
+	}
+
+	// URL not in database
+	private static final Entry MISSING = new Entry();
+
+	private final Database db;
+
+	private final Scrape scrape;
+
+	private final Map<String, Entry> webpages = new ConcurrentHashMap<>();
+
+	private final Map<String, Entry> docs = new ConcurrentHashMap<>();
+
+	private final Map<String, Boolean> hasScrape = new ConcurrentHashMap<>();
+
+	private final SentencesCache webpageSentences = new SentencesCache(Common.WEBPAGE_SENTENCES_CACHE_CHARS);
+
+	private final SentencesCache docSentences = new SentencesCache(Common.WEBPAGE_SENTENCES_CACHE_CHARS);
+
+	private final AtomicLong loads = new AtomicLong();
+
+	WebpageCache(Database db, Scrape scrape) {
+		this.db = db;
+		this.scrape = scrape;
+	}
+
+	void prefetch(Collection<String> webpageUrls, Collection<String> docUrls) {
+		for (String url : webpageUrls) {
+			getWebpage(url, false);
+		}
+		for (String url : docUrls) {
+			getDoc(url, false);
+		}
+	}
+
+	private Entry get(Map<String, Entry> entries, String url, boolean doc, boolean log) {
+		Entry entry = entries.get(url);
+		if (entry == null) {
+			loads.incrementAndGet();
+			Webpage webpage = (doc ? db.getDoc(url, log) : db.getWebpage(url, log));
+			entry = (webpage != null ? new Entry(webpage) : MISSING);
+			entries.put(url, entry);
+		} else if (entry == MISSING && log) {
+			// for logging the missing URL
+			if (doc) {
+				db.getDoc(url, log);
+			} else {
+				db.getWebpage(url, log);
+			}
+		}
+		return (entry != MISSING ? entry : null);
+	}
+
+	// null if not in database
+	Entry getWebpage(String url, boolean log) {
+		return get(webpages, url, false, log);
+	}
+
+	// null if not in database
+	Entry getDoc(String url, boolean log) {
+		return get(docs, url, true, log);
+	}
+
+	// the content is not kept, so it is loaded from the database on each call
+	String getContent(String url, boolean doc) {
+		Webpage webpage = (doc ? db.getDoc(url, false) : db.getWebpage(url, false));
+		return (webpage != null ? webpage.getContent() : null);
+	}
+
+	boolean hasScrape(String url) {
+		return hasScrape.computeIfAbsent(url, u -> scrape.getWebpage(u) != null);
+	}
+
+	// lines of content with whitespace normalised and | replaced with :, without empty lines and lines starting with <
+	List<String> getSentences(String url, boolean doc) {
+		SentencesCache sentencesCache = (doc ? docSentences : webpageSentences);
+		List<String> sentences = sentencesCache.get(url);
+		if (sentences == null) {
+			sentences = new ArrayList<>();
+			String content = getContent(url, doc);
+			if (content != null) {
+				for (String sentence : content.split("[\n\r]")) {
+					sentence = Common.WHITESPACE.matcher(sentence).replaceAll(" ").trim();
+					if (sentence.isEmpty() || sentence.startsWith("<")) {
+						continue;
+					}
+					sentences.add(sentence.replace("|", ":"));
+				}
+			}
+			sentences = Collections.unmodifiableList(sentences);
+			sentencesCache.put(url, sentences);
+		}
+		return sentences;
+	}
+
+	int size() {
+		return webpages.size() + docs.size();
+	}
+
+	long getLoads() {
+		return loads.get();
+	}
+}
@@ -19,13 +19,32 @@
 
 package agents.bio.pub2agents.server;
 
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
 
+import org.edamontology.pubfetcher.core.common.IllegalRequestException;
+
 import org.edamontology.edammap.server.IllegalRequestExceptionMapperBase;
 
 @Provider
 public class IllegalRequestExceptionMapper extends IllegalRequestExceptionMapperBase {
 
+	@Override
+	public Response toResponse(IllegalRequestException e) {
+		// asking for an unknown or expired job is not a failed request
+		if (!(e instanceof JobNotFoundException)) {
+			Metrics.failure(IllegalRequestExceptionMapper.class.getSimpleName());
+		}
+		Response response = super.toResponse(e);
+		if (e instanceof JobNotFoundException) {
+			return Response.fromResponse(response).status(Response.Status.NOT_FOUND).build();
+		} else if (e instanceof QueueFullException) {
+			return Response.fromResponse(response).status(Response.Status.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, QueueFullException.RETRY_AFTER_SECONDS).build();
+		}
+		return response;
+	}
+
 	@Override
 	protected String getServerName() {
 		return Server.version.getName() + " " + Server.version.getVersion();
@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.server;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.edamontology.edammap.core.output.Json;
+
+// State of one POST request run in the background, also used for recording phase timings of synchronous requests
+final class Job {
+
+	enum Status {
+		queued,
+		running,
+		done,
+		failed
+	}
+
+	enum Phase {
+		publications,
+		pass1,
+		links,
+		pass2,
+		map,
+		output
+	}
+
+	private final String id;
+
+	private final Step step;
+
+	private final String json;
+
+	private final String location;
+
+	private final long created;
+
+	private long finished = 0;
+
+	private Status status = Status.queued;
+
+	private Phase phase = null;
+
+	private long phaseStart = 0;
+
+	private final Map<Phase, Double> timings = new EnumMap<>(Phase.class);
+
+	private String error = null;
+
+	Job(String id, Step step, String json, String location) {
+		this.id = id;
+		this.step = step;
+		this.json = json;
+		this.location = location;
+		this.created = System.currentTimeMillis();
+	}
+
+	String getId() {
+		return id;
+	}
+
+	synchronized boolean isFinished() {
+		return status == Status.done || status == Status.failed;
+	}
+
+	synchronized long getFinished() {
+		return finished;
+	}
+
+	synchronized void start(Phase phase) {
+		stopPhase();
+		status = Status.running;
+		this.phase = phase;
+		phaseStart = System.currentTimeMillis();
+	}
+
+	// returns the time in seconds the current phase took
+	synchronized double stopPhase() {
+		double took = 0;
+		if (phase != null) {
+			took = (System.currentTimeMillis() - phaseStart) / 1000.0;
+			timings.put(phase, took);
+			Metrics.phase(phase, took);
+			phase = null;
+		}
+		return took;
+	}
+
+	synchronized void done() {
+		stopPhase();
+		status = Status.done;
+		finished = System.currentTimeMillis();
+	}
+
+	synchronized void failed(Throwable e) {
+		stopPhase();
+		status = Status.failed;
+		error = (e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+		finished = System.currentTimeMillis();
+	}
+
+	synchronized String toJson() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonGenerator generator = Json.createGenerator(writer, null, new ObjectMapper());
+		generator.writeStartObject();
+
+		generator.writeBooleanField("success", status != Status.failed);
+		generator.writeStringField("job", id);
+		generator.writeStringField("location", location);
+		generator.writeStringField("json", json);
+		generator.writeStringField("step", step.name());
+		generator.writeStringField("status", status.name());
+		generator.writeStringField("phase", phase != null ? phase.name() : null);
+
+		generator.writeFieldName("timings");
+		generator.writeStartObject();
+		for (Map.Entry<Phase, Double> timing : timings.entrySet()) {
+			generator.writeNumberField(timing.getKey().name(), timing.getValue());
+		}
+		if (finished > 0) {
+			generator.writeNumberField("total", (finished - created) / 1000.0);
+		}
+		generator.writeEndObject();
+
+		if (error != null) {
+			generator.writeStringField("message", error);
+		}
+
+		generator.writeEndObject();
+		generator.close();
+		return writer.toString();
+	}
+}
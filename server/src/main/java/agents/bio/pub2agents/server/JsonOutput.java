@@ -52,6 +52,8 @@ public class JsonOutput {
 
 	public static final String STEP_ID = "step";
 
+	public static final String ASYNC_ID = "async";
+
 	public static String output(CoreArgs args, List<ArgMain> argsMain, Map<String, String> jsonFields, JsonType jsonType, Map<EdamUri, Concept> concepts, Query query, Query queryMap, List<Publication> publications, List<Webpage> webpages, List<Webpage> docs, Results results, Agent agent, long start, long stop, Version version, String jsonVersion) throws IOException {
 		StringWriter writer = new StringWriter();
 		ObjectMapper mapper = new ObjectMapper();
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.server;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.edamontology.pubfetcher.core.common.IllegalRequestException;
+
+// Counters and latency histograms of API requests, output in the Prometheus text format
+final class Metrics {
+
+	private static final String PREFIX = "pub2agents_";
+
+	private static final double[] BUCKETS = { 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 25, 50, 100, 250, 500 }; // s
+
+	private static final class Histogram {
+		private final long[] counts = new long[BUCKETS.length];
+		private long count = 0;
+		private double sum = 0;
+		private synchronized void observe(double value) {
+			for (int i = 0; i < BUCKETS.length; ++i) {
+				if (value <= BUCKETS[i]) {
+					++counts[i];
+				}
+			}
+			++count;
+			sum += value;
+		}
+		private synchronized void write(StringBuilder sb, String name, String labels) {
+			String labelsStart = (labels.isEmpty() ? "" : labels + ",");
+			for (int i = 0; i < BUCKETS.length; ++i) {
+				sb.append(name).append("_bucket{").append(labelsStart).append("le=\"").append(BUCKETS[i]).append("\"} ").append(counts[i]).append("\n");
+			}
+			sb.append(name).append("_bucket{").append(labelsStart).append("le=\"+Inf\"} ").append(count).append("\n");
+			String labelsBraces = (labels.isEmpty() ? "" : "{" + labels + "}");
+			sb.append(name).append("_sum").append(labelsBraces).append(" ").append(String.format(Locale.ROOT, "%.3f", sum)).append("\n");
+			sb.append(name).append("_count").append(labelsBraces).append(" ").append(count).append("\n");
+		}
+	}
+
+	// maps are filled once here and only their values are changed later
+	private static final Map<Job.Phase, Histogram> phases = new EnumMap<>(Job.Phase.class);
+	static {
+		for (Job.Phase phase : Job.Phase.values()) {
+			phases.put(phase, new Histogram());
+		}
+	}
+
+	private static final Histogram total = new Histogram();
+
+	private static final Map<Step, AtomicLong> requests = new EnumMap<>(Step.class);
+	static {
+		for (Step step : Step.values()) {
+			requests.put(step, new AtomicLong());
+		}
+	}
+
+	private static final Map<String, AtomicLong> failures = new LinkedHashMap<>();
+	static {
+		failures.put(IllegalRequestExceptionMapper.class.getSimpleName(), new AtomicLong());
+		failures.put(ThrowableMapper.class.getSimpleName(), new AtomicLong());
+	}
+
+	private static final Map<String, AtomicLong> fetched = new LinkedHashMap<>();
+	static {
+		fetched.put("publication", new AtomicLong());
+		fetched.put("webpage", new AtomicLong());
+		fetched.put("doc", new AtomicLong());
+	}
+
+	private static final AtomicLong cacheHits = new AtomicLong();
+
+	private static final AtomicInteger inFlight = new AtomicInteger();
+
+	private Metrics() {}
+
+	static void phase(Job.Phase phase, double seconds) {
+		phases.get(phase).observe(seconds);
+	}
+
+	static void total(double seconds) {
+		total.observe(seconds);
+	}
+
+	static void request(Step step) {
+		requests.get(step).incrementAndGet();
+	}
+
+	// failures of background jobs are counted under the mapper that would have handled them in a synchronous request
+	static void failure(Throwable e) {
+		if (e instanceof IllegalRequestException) {
+			failure(IllegalRequestExceptionMapper.class.getSimpleName());
+		} else {
+			failure(ThrowableMapper.class.getSimpleName());
+		}
+	}
+
+	static void failure(String mapper) {
+		failures.get(mapper).incrementAndGet();
+	}
+
+	static void fetched(String type, int count) {
+		fetched.get(type).addAndGet(count);
+	}
+
+	static void cacheHit() {
+		cacheHits.incrementAndGet();
+	}
+
+	static void start() {
+		inFlight.incrementAndGet();
+	}
+
+	static void stop() {
+		inFlight.decrementAndGet();
+	}
+
+	private static void header(StringBuilder sb, String name, String help, String type) {
+		sb.append("# HELP ").append(name).append(" ").append(help).append("\n");
+		sb.append("# TYPE ").append(name).append(" ").append(type).append("\n");
+	}
+
+	static String get() {
+		StringBuilder sb = new StringBuilder();
+
+		String name = PREFIX + "phase_duration_seconds";
+		header(sb, name, "Duration of the phases of API requests", "histogram");
+		for (Job.Phase phase : Job.Phase.values()) {
+			phases.get(phase).write(sb, name, "phase=\"" + phase.name() + "\"");
+		}
+
+		name = PREFIX + "request_duration_seconds";
+		header(sb, name, "Total duration of successful API requests not answered from the result cache, including time spent in the queue", "histogram");
+		total.write(sb, name, "");
+
+		name = PREFIX + "requests_total";
+		header(sb, name, "API requests by step", "counter");
+		for (Step step : Step.values()) {
+			sb.append(name).append("{step=\"").append(step.name()).append("\"} ").append(requests.get(step).get()).append("\n");
+		}
+
+		name = PREFIX + "failures_total";
+		header(sb, name, "Failed API requests by exception mapper", "counter");
+		for (Map.Entry<String, AtomicLong> failure : failures.entrySet()) {
+			sb.append(name).append("{mapper=\"").append(failure.getKey()).append("\"} ").append(failure.getValue().get()).append("\n");
+		}
+
+		name = PREFIX + "fetched_urls_total";
+		header(sb, name, "Publications, webpages and docs requested from PubFetcher", "counter");
+		for (Map.Entry<String, AtomicLong> type : fetched.entrySet()) {
+			sb.append(name).append("{type=\"").append(type.getKey()).append("\"} ").append(type.getValue().get()).append("\n");
+		}
+
+		name = PREFIX + "cache_hits_total";
+		header(sb, name, "API requests answered from the result cache", "counter");
+		sb.append(name).append(" ").append(cacheHits.get()).append("\n");
+
+		name = PREFIX + "requests_in_flight";
+		header(sb, name, "API requests currently being run", "gauge");
+		sb.append(name).append(" ").append(inFlight.get()).append("\n");
+
+		name = PREFIX + "jobs_queued";
+		header(sb, name, "Asynchronous API requests waiting for a free thread", "gauge");
+		sb.append(name).append(" ").append(Server.jobExecutor != null ? Server.jobExecutor.getQueue().size() : 0).append("\n");
+
+		return sb.toString();
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.server;
+
+import org.edamontology.pubfetcher.core.common.IllegalRequestException;
+
+// Answered with 503 and a Retry-After header, so that clients know to try again later
+class QueueFullException extends IllegalRequestException {
+
+	private static final long serialVersionUID = 1L;
+
+	static final int RETRY_AFTER_SECONDS = 30;
+
+	QueueFullException(String message) {
+		super(message);
+	}
+}
@@ -34,10 +34,12 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
@@ -52,7 +54,6 @@ import org.glassfish.grizzly.http.util.Header;
 
 import org.edamontology.pubfetcher.core.common.FetcherPrivateArgs;
 import org.edamontology.pubfetcher.core.common.IllegalRequestException;
-import org.edamontology.pubfetcher.core.common.PubFetcher;
 import org.edamontology.pubfetcher.core.db.DatabaseEntryType;
 import org.edamontology.pubfetcher.core.db.publication.Publication;
 
@@ -78,6 +79,7 @@ import org.edamontology.edammap.server.ServerPrivateArgsBase;
 
 import agents.bio.pub2agents.core.Common;
 import agents.bio.pub2agents.core.Pass1;
+import agents.bio.pub2agents.core.Pass1Output;
 import agents.bio.pub2agents.core.Pass2;
 
 @Path("/")
@@ -103,7 +105,26 @@ public class Resource extends org.edamontology.edammap.server.ResourceBase {
 		return Response.ok(responseText).header(Header.ContentLength.toString(), responseText.getBytes().length).build();
 	}
 
-	@SuppressWarnings({ "deprecation", "unchecked" })
+	@GET
+	@Path("metrics")
+	@Produces(MediaType.TEXT_PLAIN + ";version=0.0.4;charset=utf-8")
+	public Response getMetrics() {
+		String responseText = Metrics.get();
+		return Response.ok(responseText).header(Header.ContentLength.toString(), responseText.getBytes(StandardCharsets.UTF_8).length).build();
+	}
+
+	@GET
+	@Path("api/job/{id}")
+	@Produces(MediaType.APPLICATION_JSON + ";charset=utf-8")
+	public Response getJob(@PathParam("id") String id) throws IOException {
+		Job job = Server.jobs.get(id);
+		if (job == null) {
+			throw new JobNotFoundException("No job with ID " + id);
+		}
+		String responseText = job.toJson();
+		return Response.ok(responseText).header(Header.ContentLength.toString(), responseText.getBytes(StandardCharsets.UTF_8).length).build();
+	}
+
 	@Override
 	protected PostResult runPost(MultivaluedMap<String, String> params, Agent agent, Request request, boolean isJson) throws IOException, URISyntaxException, ParseException {
 		isJson = true;
@@ -138,6 +159,55 @@ public class Resource extends org.edamontology.edammap.server.ResourceBase {
 			throw new IllegalRequestException("Input must be specified in \"agent\" for step \"map\"");
 		}
 
+		Metrics.request(step);
+
+		boolean async = false;
+		if (isJson) {
+			List<String> values = params.get(JsonOutput.ASYNC_ID);
+			if (values != null && !values.isEmpty() && values.get(0) != null) {
+				String value = values.get(0).trim();
+				if (value.equalsIgnoreCase("true")) {
+					async = true;
+				} else if (!value.equalsIgnoreCase("false")) {
+					throw new IllegalRequestException("Value of \"" + JsonOutput.ASYNC_ID + "\" must be \"true\" or \"false\"");
+				}
+			}
+		}
+
+		JsonType jsonType = JsonType.core;
+		Enum<?> valueEnum;
+		if ((valueEnum = ParamParse.getParamEnum(params, Json.TYPE_ID, JsonType.class, isJson)) != null) {
+			if ((JsonType) valueEnum == JsonType.full) {
+				jsonType = JsonType.full;
+			}
+		}
+
+		URI baseLocation = new URI(Server.args.getServerPrivateArgs().isHttpsProxy() ? "https" : request.getScheme(), null, request.getServerName(), Server.args.getServerPrivateArgs().isHttpsProxy() ? 443 : request.getServerPort(), null, null, null);
+
+		String cacheKey = null;
+		if (Server.resultCache != null) {
+			Query cacheQuery = null;
+			if (step != Step.map && serverInput != null) {
+				// only for the key, the id is replaced with the uuid below
+				serverInput.setId(step.name());
+				cacheQuery = getQuery(serverInput, agent, false, false, false);
+			}
+			cacheKey = ResultCache.key(step, jsonType, jsonVersion, cacheQuery, agent, coreArgs, Server.bioagentsVersion);
+			String cachedUuid = Server.resultCache.get(cacheKey);
+			if (cachedUuid != null) {
+				URI jsonLocation = getLocation(baseLocation, "/" + cachedUuid + "/results.json");
+				logger.info("Returning cached result {}", jsonLocation);
+				Metrics.cacheHit();
+				if (async) {
+					Job job = new Job(cachedUuid, step, jsonLocation.toString(), getLocation(baseLocation, "/api/job/" + cachedUuid).toString());
+					job.done();
+					Server.addJob(job);
+					return new PostResult(job.toJson(), null);
+				}
+				return new PostResult(Server.resultCache.getResults(cachedUuid), null);
+			}
+		}
+
 		String uuidDirPrefix = Server.args.getServerPrivateArgs().getFiles() + "/";
 		String uuid = getUuid("-" + step.name(), uuidDirPrefix, Server.version, startInstant);
 		boolean agentMissingId = false;
@@ -153,6 +223,72 @@ public class Resource extends org.edamontology.edammap.server.ResourceBase {
 		}
 		java.nio.file.Path outputPath = Paths.get(uuidDirPrefix + uuid);
 
+		URI apiLocation = getLocation(baseLocation, "/api");
+		URI jsonLocation = null;
+		if (jsonOutput != null) {
+			jsonLocation = getLocation(baseLocation, "/" + jsonOutput);
+		}
+		URI jobLocation = getLocation(baseLocation, "/api/job/" + uuid);
+
+		Map<String, String> jsonFields = new LinkedHashMap<>();
+		jsonFields.put("api", apiLocation.toString());
+		jsonFields.put("json", jsonLocation != null ? jsonLocation.toString() : null);
+		jsonFields.put("step", step.name());
+
+		Job job = new Job(uuid, step, jsonLocation != null ? jsonLocation.toString() : null, jobLocation.toString());
+
+		if (async) {
+			Server.addJob(job);
+			runAsync(job, coreArgs, serverInput, agent, agentMissingId, step, uuid, outputPath, uuidDirPrefix + jsonOutput, jsonLocation, jsonFields, jsonType, jsonVersion, start, cacheKey);
+			logger.info("Queued job {}", jobLocation);
+			return new PostResult(job.toJson(), null);
+		}
+
+		String jsonString = run(job, coreArgs, serverInput, agent, agentMissingId, step, uuid, outputPath, uuidDirPrefix + jsonOutput, jsonLocation, jsonFields, jsonType, jsonVersion, start, cacheKey);
+
+		return new PostResult(jsonString, null);
+	}
+
+	private static URI getLocation(URI baseLocation, String path) throws URISyntaxException {
+		return new URI(baseLocation.getScheme(), null, baseLocation.getHost(), baseLocation.getPort(), Server.args.getServerPrivateArgs().getPath() + path, null, null);
+	}
+
+	private void runAsync(Job job, CoreArgs coreArgs, ServerInput serverInput, Agent agent, boolean agentMissingId, Step step, String uuid, java.nio.file.Path outputPath, String jsonOutputPath, URI jsonLocation, Map<String, String> jsonFields, JsonType jsonType, String jsonVersion, long start, String cacheKey) {
+		try {
+			Server.jobExecutor.execute(() -> {
+				try {
+					run(job, coreArgs, serverInput, agent, agentMissingId, step, uuid, outputPath, jsonOutputPath, jsonLocation, jsonFields, jsonType, jsonVersion, start, cacheKey);
+				} catch (Throwable e) {
+					logger.error("Exception!", e);
+					Metrics.failure(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			Server.jobs.remove(job.getId());
+			throw new QueueFullException("Too many requests in queue, try again later");
+		}
+	}
+
+	private String run(Job job, CoreArgs coreArgs, ServerInput serverInput, Agent agent, boolean agentMissingId, Step step, String uuid, java.nio.file.Path outputPath, String jsonOutputPath, URI jsonLocation, Map<String, String> jsonFields, JsonType jsonType, String jsonVersion, long start, String cacheKey) throws IOException, URISyntaxException, ParseException {
+		Metrics.start();
+		try {
+			String jsonString = runPipeline(job, coreArgs, serverInput, agent, agentMissingId, step, uuid, outputPath, jsonOutputPath, jsonLocation, jsonFields, jsonType, jsonVersion, start, cacheKey);
+			Metrics.total((System.currentTimeMillis() - start) / 1000.0);
+			return jsonString;
+		} catch (Throwable e) {
+			// for both synchronous and asynchronous requests, so that the failed phase is recorded
+			job.failed(e);
+			throw e;
+		} finally {
+			Metrics.stop();
+		}
+	}
+
+	@SuppressWarnings({ "deprecation", "unchecked" })
+	private String runPipeline(Job job, CoreArgs coreArgs, ServerInput serverInput, Agent agent, boolean agentMissingId, Step step, String uuid, java.nio.file.Path outputPath, String jsonOutputPath, URI jsonLocation, Map<String, String> jsonFields, JsonType jsonType, String jsonVersion, long start, String cacheKey) throws IOException, URISyntaxException, ParseException {
+		// intermediate files are written only if asked, otherwise results.json is the only output
+		java.nio.file.Path intermediatePath = (Server.args.getServerPrivateArgs().isIntermediateFiles() ? outputPath : null);
+
 		Query query = null;
 		Agent agentOut = null;
 		if (step == Step.withoutmap || step == Step.all) {
@@ -176,45 +312,38 @@ public class Resource extends org.edamontology.edammap.server.ResourceBase {
 				ids.add(new DatabaseEntryId(id, DatabaseEntryType.publication));
 			}
 			logger.info("Fetching {} publications using PubFetcher", ids.size());
-			long startPublications = System.currentTimeMillis();
+			job.start(Job.Phase.publications);
 			List<DatabaseEntryEntry> databaseEntries = Server.processor.getDatabaseEntries(ids, coreArgs.getFetcherArgs(), Server.args.getServerPrivateArgs().getFetchingThreads());
+			Metrics.fetched("publication", ids.size());
 			List<Publication> publications = databaseEntries.stream().map(e -> (Publication) e.getEntry()).collect(Collectors.toList());
-			logger.info("Fetching {} publications took {}s", ids.size(), (System.currentTimeMillis() - startPublications) / 1000.0);
+			logger.info("Fetching {} publications took {}s", ids.size(), job.stopPhase());
 
 			logger.info("Running pass1");
-			long startPass1 = System.currentTimeMillis();
-			Pass1.run(outputPath, preProcessorPass, "", Server.idf, publications, query.getName(), webpageUrls);
-			logger.info("Running pass1 took {}s", (System.currentTimeMillis() - startPass1) / 1000.0);
-
-			String webFile = outputPath.resolve(Common.WEB_FILE).toString();
-			String docFile = outputPath.resolve(Common.DOC_FILE).toString();
-
-			List<String> webUrls = PubFetcher.webFile(Collections.singletonList(webFile));
-			logger.info("Loaded {} webpage URLs from {}", webUrls.size(), webFile);
-			List<DatabaseEntryId> idsWeb = new ArrayList<>();
-			for (Object id : new LinkedHashSet<>(webUrls)) {
-				idsWeb.add(new DatabaseEntryId(id, DatabaseEntryType.webpage));
+			job.start(Job.Phase.pass1);
+			Pass1Output pass1Output = Pass1.run(Server.pass1Engine, preProcessorPass, "", Server.idf, publications, query.getName(), webpageUrls, intermediatePath);
+			logger.info("Running pass1 took {}s", job.stopPhase());
+
+			// webpages and docs are fetched in one batch, so that all fetching threads are kept busy until the slowest URL of either type
+			List<DatabaseEntryId> idsLinks = new ArrayList<>();
+			for (Object id : new LinkedHashSet<>(pass1Output.getWebpages())) {
+				idsLinks.add(new DatabaseEntryId(id, DatabaseEntryType.webpage));
 			}
-			logger.info("Fetching {} webpages using PubFetcher", idsWeb.size());
-			long startWebpages = System.currentTimeMillis();
-			Server.processor.getDatabaseEntries(idsWeb, coreArgs.getFetcherArgs(), Server.args.getServerPrivateArgs().getFetchingThreads());
-			logger.info("Fetching {} webpages took {}s", idsWeb.size(), (System.currentTimeMillis() - startWebpages) / 1000.0);
-
-			List<String> docUrls = PubFetcher.webFile(Collections.singletonList(docFile));
-			logger.info("Loaded {} doc URLs from {}", docUrls.size(), docFile);
-			List<DatabaseEntryId> idsDoc = new ArrayList<>();
-			for (Object id : new LinkedHashSet<>(docUrls)) {
-				idsDoc.add(new DatabaseEntryId(id, DatabaseEntryType.doc));
+			int webpagesSize = idsLinks.size();
+			for (Object id : new LinkedHashSet<>(pass1Output.getDocs())) {
+				idsLinks.add(new DatabaseEntryId(id, DatabaseEntryType.doc));
 			}
-			logger.info("Fetching {} docs using PubFetcher", idsDoc.size());
-			long startDocs = System.currentTimeMillis();
-			Server.processor.getDatabaseEntries(idsDoc, coreArgs.getFetcherArgs(), Server.args.getServerPrivateArgs().getFetchingThreads());
-			logger.info("Fetching {} docs took {}s", idsDoc.size(), (System.currentTimeMillis() - startDocs) / 1000.0);
+			int docsSize = idsLinks.size() - webpagesSize;
+			logger.info("Fetching {} webpages and {} docs using PubFetcher", webpagesSize, docsSize);
+			job.start(Job.Phase.links);
+			Server.processor.getDatabaseEntries(idsLinks, coreArgs.getFetcherArgs(), Server.args.getServerPrivateArgs().getFetchingThreads());
+			Metrics.fetched("webpage", webpagesSize);
+			Metrics.fetched("doc", docsSize);
+			logger.info("Fetching {} webpages and {} docs took {}s", webpagesSize, docsSize, job.stopPhase());
 
 			logger.info("Running pass2");
-			long startPass2 = System.currentTimeMillis();
-			List<Agent> agents = Pass2.run(outputPath, preProcessorPass, coreArgs.getFetcherArgs(), "", Server.idf, Server.bioagents, Server.processor.getDatabase(), true, publications, query.getName(), webpageUrls);
-			logger.info("Running pass2 took {}s", (System.currentTimeMillis() - startPass2) / 1000.0);
+			job.start(Job.Phase.pass2);
+			List<Agent> agents = Pass2.run(Server.pass2Engine, pass1Output, preProcessorPass, coreArgs.getFetcherArgs(), "", Server.idf, Server.bioagents, Server.processor.getDatabase(), true, publications, query.getName(), webpageUrls, intermediatePath);
+			logger.info("Running pass2 took {}s", job.stopPhase());
 
 			if (agents.isEmpty()) {
 				throw new IllegalRequestException("Pub2Agents returned zero results");
@@ -255,6 +384,7 @@ public class Resource extends org.edamontology.edammap.server.ResourceBase {
 		QueryProcessed processedQuery = null;
 		Results results = null;
 		if (step == Step.map || step == Step.all) {
+			job.start(Job.Phase.map);
 			boolean homepageMissing = (agentOut.getOthers().containsKey(Pass2.TOOL_STATUS) ? (Boolean) ((Map<String, Object>) agentOut.getOthers().get(Pass2.TOOL_STATUS)).get("homepageMissing") : false);
 			queryMap = getQuery(null, agentOut, agentMissingId, Common.isHomepageDoc(agentOut.getHomepage()), homepageMissing);
 			PreProcessor preProcessorMap = new PreProcessor(coreArgs.getPreProcessorArgs(), Server.stopwordsAll.get(coreArgs.getPreProcessorArgs().getStopwords()));
@@ -268,52 +398,41 @@ public class Resource extends org.edamontology.edammap.server.ResourceBase {
 				processedQuery = getProcessedQuery(coreArgs, Server.idf, Server.idfStemmed, queryMap, preProcessorMap);
 			}
 			results = getResults(processedConcepts, queryMap, Collections.singletonList(queryMap), processedQuery, coreArgs, Server.edamBlacklist);
+			logger.info("Mapping took {}s", job.stopPhase());
 		}
 
-		URI baseLocation = new URI(Server.args.getServerPrivateArgs().isHttpsProxy() ? "https" : request.getScheme(), null, request.getServerName(), Server.args.getServerPrivateArgs().isHttpsProxy() ? 443 : request.getServerPort(), null, null, null);
-		URI apiLocation = new URI(baseLocation.getScheme(), null, baseLocation.getHost(), baseLocation.getPort(), Server.args.getServerPrivateArgs().getPath() + "/api", null, null);
-		URI jsonLocation = null;
-		if (jsonOutput != null) {
-			jsonLocation = new URI(baseLocation.getScheme(), null, baseLocation.getHost(), baseLocation.getPort(), Server.args.getServerPrivateArgs().getPath() + "/" + jsonOutput, null, null);
-		}
-
-		Map<String, String> jsonFields = new LinkedHashMap<>();
-		jsonFields.put("api", apiLocation.toString());
-		jsonFields.put("json", jsonLocation != null ? jsonLocation.toString() : null);
-		jsonFields.put("step", step.name());
-
 		long stop = System.currentTimeMillis();
 		logger.info("Stop: {}", Instant.ofEpochMilli(stop));
 		logger.info("Total time is {}s", (stop - start) / 1000.0);
 
 		logger.info("Outputting results");
+		job.start(Job.Phase.output);
 
-		if (step == Step.map || step == Step.all) {
+		if ((step == Step.map || step == Step.all) && intermediatePath != null) {
 			Output output = new Output(null, null, outputPath.resolve(Common.MAP_JSON_FILE).toString(), null, QueryType.bioagents, true);
 			output.output(coreArgs, Server.getArgsMain(false), null, null, 1, 1, Server.concepts,
 					Collections.singletonList(queryMap), Collections.singletonList(processedQuery.getWebpages()), Collections.singletonList(processedQuery.getDocs()), Collections.singletonList(processedQuery.getPublications()),
 					results, null, start, stop, Server.version, jsonVersion, false);
 		}
 
-		JsonType jsonType = JsonType.core;
-		Enum<?> valueEnum;
-		if ((valueEnum = ParamParse.getParamEnum(params, Json.TYPE_ID, JsonType.class, isJson)) != null) {
-			if ((JsonType) valueEnum == JsonType.full) {
-				jsonType = JsonType.full;
-			}
-		}
 		String jsonString = JsonOutput.output(coreArgs, Server.getArgsMain(false), jsonFields, jsonType, Server.concepts, query, queryMap,
 				processedQuery != null ? processedQuery.getPublications() : null, processedQuery != null ? processedQuery.getWebpages() : null, processedQuery != null ? processedQuery.getDocs() : null,
 				results, agentOut, start, stop, Server.version, jsonVersion);
-		try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(uuidDirPrefix + jsonOutput), StandardCharsets.UTF_8)) {
+		try (BufferedWriter bw = Files.newBufferedWriter(Paths.get(jsonOutputPath), StandardCharsets.UTF_8)) {
 			bw.write(jsonString);
 		}
-
-		if (isJson) {
-			logger.info("POSTED JSON {}", jsonLocation);
+		if (cacheKey != null) {
+			try {
+				Server.resultCache.put(cacheKey, uuid);
+			} catch (IOException e) {
+				logger.warn("Can't cache result {}: {}", jsonLocation, e.getMessage());
+			}
 		}
+		job.done();
 
-		return new PostResult(jsonString, null);
+		logger.info("POSTED JSON {}", jsonLocation);
+
+		return jsonString;
 	}
 
 	@Override
@@ -0,0 +1,234 @@
+/*
+ * Copyright © 2026 Erik Jaaniso
+ *
+ * This file is part of Pub2Agents.
+ *
+ * Pub2Agents is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Pub2Agents is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Pub2Agents.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package agents.bio.pub2agents.server;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import org.edamontology.pubfetcher.core.common.PubFetcher;
+
+import org.edamontology.edammap.core.args.CoreArgs;
+import org.edamontology.edammap.core.input.json.Agent;
+import org.edamontology.edammap.core.output.Json;
+import org.edamontology.edammap.core.output.JsonType;
+import org.edamontology.edammap.core.output.Params;
+import org.edamontology.edammap.core.query.Link;
+import org.edamontology.edammap.core.query.PublicationIdsQuery;
+import org.edamontology.edammap.core.query.Query;
+
+// Maps request keys to the uuids of earlier identical requests, whose results.json are returned again
+// Entries are persisted as small files in the cache directory, the results themselves stay where they were output
+final class ResultCache {
+
+	private static final Logger logger = LogManager.getLogger();
+
+	private static final String CACHE_DIR = "cache";
+
+	private static final class Entry {
+		private final String uuid;
+		private final long created;
+		private Entry(String uuid, long created) {
+			this.uuid = uuid;
+			this.created = created;
+		}
+	}
+
+	private final Path filesDir;
+
+	private final Path cacheDir;
+
+	private final int size;
+
+	private final long ttl;
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	// in access order, so that the least recently used entries are evicted first
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	ResultCache(String files, int size, long ttl) throws IOException {
+		this.filesDir = Paths.get(files);
+		this.cacheDir = filesDir.resolve(CACHE_DIR);
+		this.size = size;
+		this.ttl = ttl;
+
+		Files.createDirectories(cacheDir);
+		List<Map.Entry<String, Entry>> loaded = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir, "*.json")) {
+			for (Path path : stream) {
+				String key = path.getFileName().toString();
+				key = key.substring(0, key.length() - ".json".length());
+				try {
+					JsonNode node = mapper.readTree(path.toFile());
+					loaded.add(Map.entry(key, new Entry(node.get("uuid").asText(), node.get("created").asLong())));
+				} catch (Exception e) {
+					logger.warn("Can't load cache entry {}: {}", path.toString(), e.getMessage());
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+		loaded.sort((a, b) -> Long.compare(a.getValue().created, b.getValue().created));
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, Entry> entry : loaded) {
+			if (expired(entry.getValue(), now) || !Files.isReadable(getResults(entry.getValue()))) {
+				Files.deleteIfExists(getPath(entry.getKey()));
+			} else {
+				entries.put(entry.getKey(), entry.getValue());
+			}
+		}
+		evict();
+		logger.info("Loaded {} cached results from {}", entries.size(), cacheDir.toString());
+	}
+
+	static String key(Step step, JsonType jsonType, String jsonVersion, Query query, Agent agent, CoreArgs coreArgs, long bioagentsVersion) throws IOException {
+		StringWriter writer = new StringWriter();
+		ObjectMapper mapper = new ObjectMapper();
+		JsonGenerator generator = Json.createGenerator(writer, null, mapper);
+		generator.writeStartObject();
+
+		generator.writeStringField("step", step.name());
+		generator.writeStringField(Json.TYPE_ID, jsonType.name());
+		generator.writeStringField(Json.VERSION_ID, jsonVersion);
+		generator.writeNumberField("bioagents", bioagentsVersion);
+
+		if (query != null) {
+			generator.writeStringField(Query.NAME, query.getName());
+			generator.writeFieldName(Query.WEBPAGE_URLS);
+			generator.writeStartArray();
+			if (query.getWebpageUrls() != null) {
+				for (Link webpageUrl : query.getWebpageUrls()) {
+					generator.writeString(webpageUrl.getUrl().trim());
+				}
+			}
+			generator.writeEndArray();
+			generator.writeFieldName(Query.PUBLICATION_IDS);
+			generator.writeStartArray();
+			if (query.getPublicationIds() != null) {
+				for (PublicationIdsQuery publicationIds : query.getPublicationIds()) {
+					generator.writeString(normalise(publicationIds.getPmid()) + "\t" + normalise(publicationIds.getPmcid()) + "\t" + PubFetcher.normaliseDoi(normalise(publicationIds.getDoi())));
+				}
+			}
+			generator.writeEndArray();
+		} else {
+			generator.writeFieldName("agent");
+			generator.writeObject(agent);
+		}
+
+		generator.writeFieldName("args");
+		generator.writeStartObject();
+		Params.writeProcessing(coreArgs.getProcessorArgs(), generator);
+		Params.writePreProcessing(coreArgs.getPreProcessorArgs(), generator);
+		Params.writeFetching(coreArgs.getFetcherArgs(), false, generator);
+		if (step == Step.map || step == Step.all) {
+			Params.writeMapping(coreArgs.getMapperArgs(), generator);
+		}
+		generator.writeEndObject();
+
+		generator.writeEndObject();
+		generator.close();
+
+		try {
+			StringBuilder sb = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(writer.toString().getBytes(StandardCharsets.UTF_8))) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String normalise(String id) {
+		return (id != null ? id.trim() : "");
+	}
+
+	private Path getPath(String key) {
+		return cacheDir.resolve(key + ".json");
+	}
+
+	private Path getResults(Entry entry) {
+		return filesDir.resolve(entry.uuid).resolve("results.json");
+	}
+
+	private boolean expired(Entry entry, long now) {
+		return ttl > 0 && now - entry.created > ttl;
+	}
+
+	private void remove(String key) throws IOException {
+		entries.remove(key);
+		Files.deleteIfExists(getPath(key));
+	}
+
+	private void evict() throws IOException {
+		Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+		while (entries.size() > size && it.hasNext()) {
+			String key = it.next().getKey();
+			it.remove();
+			Files.deleteIfExists(getPath(key));
+		}
+	}
+
+	// returns the uuid of the cached result, or null if there is no valid cached result
+	synchronized String get(String key) throws IOException {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (expired(entry, System.currentTimeMillis()) || !Files.isReadable(getResults(entry))) {
+			remove(key);
+			return null;
+		}
+		return entry.uuid;
+	}
+
+	String getResults(String uuid) throws IOException {
+		return new String(Files.readAllBytes(filesDir.resolve(uuid).resolve("results.json")), StandardCharsets.UTF_8);
+	}
+
+	synchronized void put(String key, String uuid) throws IOException {
+		Entry entry = new Entry(uuid, System.currentTimeMillis());
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("uuid", entry.uuid);
+		json.put("created", entry.created);
+		mapper.writeValue(getPath(key).toFile(), json);
+		entries.put(key, entry);
+		evict();
+	}
+}
@@ -30,7 +30,10 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
@@ -54,12 +57,17 @@ import org.edamontology.edammap.core.preprocessing.Stopwords;
 import org.edamontology.edammap.core.processing.Processor;
 import org.edamontology.edammap.core.query.QueryType;
 
+import agents.bio.pub2agents.core.Pass1Engine;
+import agents.bio.pub2agents.core.Pass2Engine;
+
 public final class Server {
 
 	private static final int BIOTOOLS_FILE_TIMEOUT = 30000; // ms
 	private static final int BIOTOOLS_FILE_INITIAL_DELAY = 1; // h
 	private static final int BIOTOOLS_FILE_DELAY = 23; // h
 
+	private static final long JOB_KEEP = 24 * 60 * 60 * 1000; // ms
+
 	private static Logger logger;
 
 	static Version version;
@@ -77,8 +85,28 @@ public final class Server {
 
 	static Map<EdamUri, Concept> concepts;
 
+	static Pass1Engine pass1Engine;
+
+	static Pass2Engine pass2Engine;
+
 	static List<Agent> bioagents;
 
+	// last modified time of the bio.agents file, part of the keys of cached results
+	static volatile long bioagentsVersion;
+
+	static ResultCache resultCache = null;
+
+	static ThreadPoolExecutor jobExecutor;
+
+	static Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+	// statuses of finished jobs are forgotten after JOB_KEEP, their results.json remain
+	static void addJob(Job job) {
+		long now = System.currentTimeMillis();
+		jobs.values().removeIf(j -> j.isFinished() && now - j.getFinished() > JOB_KEEP);
+		jobs.put(job.getId(), job);
+	}
+
 	static List<ArgMain> getArgsMain(boolean input) {
 		List<ArgMain> argsMain = new ArrayList<>();
 		for (Arg<?, ?> arg : args.getArgs()) {
@@ -121,6 +149,9 @@ public final class Server {
 			idfStemmed = new Idf(args.getProcessorArgs().getIdfStemmed());
 		}
 
+		pass1Engine = new Pass1Engine();
+		pass2Engine = new Pass2Engine(args.getFetcherPrivateArgs());
+
 		logger.info("Loading concepts from {}", args.getEdam());
 		concepts = Edam.load(args.getEdam());
 
@@ -128,6 +159,17 @@ public final class Server {
 			getBioagents(args.getBioagents());
 		}
 		bioagents = (List<Agent>) Json.load(args.getBioagents(), QueryType.bioagents, 0, args.getFetcherPrivateArgs().getUserAgent());
+		bioagentsVersion = Files.getLastModifiedTime(Paths.get(args.getBioagents())).toMillis();
+
+		if (args.getServerPrivateArgs().getJobThreads() < 1 || args.getServerPrivateArgs().getJobQueue() < 1) {
+			throw new IllegalArgumentException("--jobThreads and --jobQueue must be positive");
+		}
+		if (args.getServerPrivateArgs().getCacheSize() > 0) {
+			resultCache = new ResultCache(args.getServerPrivateArgs().getFiles(), args.getServerPrivateArgs().getCacheSize(), args.getServerPrivateArgs().getCacheTtl() * 60L * 60 * 1000);
+		}
+
+		jobExecutor = new ThreadPoolExecutor(args.getServerPrivateArgs().getJobThreads(), args.getServerPrivateArgs().getJobThreads(), 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(args.getServerPrivateArgs().getJobQueue()));
 
 		Executors.newSingleThreadScheduledExecutor().scheduleWithFixedDelay(new Runnable() {
 			@Override
@@ -137,8 +179,10 @@ public final class Server {
 					Path bioagentsPath = Paths.get(args.getBioagents());
 					tempFile = Files.createTempFile(bioagentsPath.getParent() != null ? bioagentsPath.getParent() : Paths.get("."), "bioagents-", ".tmp");
 					getBioagents(tempFile.toString());
-					bioagents = (List<Agent>) Json.load(tempFile.toString(), QueryType.bioagents, 0, args.getFetcherPrivateArgs().getUserAgent());
+					List<Agent> bioagentsNew = (List<Agent>) Json.load(tempFile.toString(), QueryType.bioagents, 0, args.getFetcherPrivateArgs().getUserAgent());
 					Files.copy(tempFile, bioagentsPath, StandardCopyOption.REPLACE_EXISTING);
+					bioagents = bioagentsNew;
+					bioagentsVersion = Files.getLastModifiedTime(bioagentsPath).toMillis();
 				} catch (Throwable e) {
 					logger.error("Exception!", e);
 				} finally {
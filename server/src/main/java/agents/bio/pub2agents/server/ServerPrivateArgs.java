@@ -33,10 +33,45 @@ public class ServerPrivateArgs extends ServerPrivateArgsBase {
 	@Parameter(names = { "-p", "--" + pathId }, description = pathDescription)
 	private String path = pathDefault;
 
+	private static final String jobThreadsId = "jobThreads";
+	private static final String jobThreadsDescription = "How many asynchronous API requests to run in parallel";
+	private static final Integer jobThreadsDefault = 2;
+	@Parameter(names = { "--" + jobThreadsId }, description = jobThreadsDescription)
+	private Integer jobThreads = jobThreadsDefault;
+
+	private static final String jobQueueId = "jobQueue";
+	private static final String jobQueueDescription = "How many asynchronous API requests can wait for a free thread, before new ones are refused";
+	private static final Integer jobQueueDefault = 100;
+	@Parameter(names = { "--" + jobQueueId }, description = jobQueueDescription)
+	private Integer jobQueue = jobQueueDefault;
+
+	private static final String cacheSizeId = "cacheSize";
+	private static final String cacheSizeDescription = "How many results of earlier requests to keep for returning them again for identical requests; set to 0 to disable";
+	private static final Integer cacheSizeDefault = 1000;
+	@Parameter(names = { "--" + cacheSizeId }, description = cacheSizeDescription)
+	private Integer cacheSize = cacheSizeDefault;
+
+	private static final String cacheTtlId = "cacheTtl";
+	private static final String cacheTtlDescription = "How many hours a result of an earlier request is returned again for identical requests; set to 0 for no limit";
+	private static final Integer cacheTtlDefault = 24;
+	@Parameter(names = { "--" + cacheTtlId }, description = cacheTtlDescription)
+	private Integer cacheTtl = cacheTtlDefault;
+
+	private static final String intermediateFilesId = "intermediateFiles";
+	private static final String intermediateFilesDescription = "Also write the intermediate files pass1.json, web.txt, doc.txt, results.csv, diff.csv, new.json and map.json of a request to its results directory";
+	private static final Boolean intermediateFilesDefault = false;
+	@Parameter(names = { "--" + intermediateFilesId }, description = intermediateFilesDescription)
+	private Boolean intermediateFiles = intermediateFilesDefault;
+
 	@Override
 	protected void addArgs() {
 		super.addArgs();
 		args.add(new Arg<>(this::getPath, null, pathDefault, pathId, "", pathDescription, null));
+		args.add(new Arg<>(this::getJobThreads, null, jobThreadsDefault, jobThreadsId, "", jobThreadsDescription, null));
+		args.add(new Arg<>(this::getJobQueue, null, jobQueueDefault, jobQueueId, "", jobQueueDescription, null));
+		args.add(new Arg<>(this::getCacheSize, null, cacheSizeDefault, cacheSizeId, "", cacheSizeDescription, null));
+		args.add(new Arg<>(this::getCacheTtl, null, cacheTtlDefault, cacheTtlId, "", cacheTtlDescription, null));
+		args.add(new Arg<>(this::isIntermediateFiles, null, intermediateFilesDefault, intermediateFilesId, "", intermediateFilesDescription, null));
 	}
 
 	@Override
@@ -47,4 +82,24 @@ public class ServerPrivateArgs extends ServerPrivateArgsBase {
 	public String getPath() {
 		return path;
 	}
+
+	public Integer getJobThreads() {
+		return jobThreads;
+	}
+
+	public Integer getJobQueue() {
+		return jobQueue;
+	}
+
+	public Integer getCacheSize() {
+		return cacheSize;
+	}
+
+	public Integer getCacheTtl() {
+		return cacheTtl;
+	}
+
+	public Boolean isIntermediateFiles() {
+		return intermediateFiles;
+	}
 }
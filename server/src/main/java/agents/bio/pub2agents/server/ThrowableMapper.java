@@ -19,6 +19,7 @@
 
 package agents.bio.pub2agents.server;
 
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
 
 import org.edamontology.edammap.server.ThrowableMapperBase;
@@ -26,6 +27,12 @@ import org.edamontology.edammap.server.ThrowableMapperBase;
 @Provider
 public class ThrowableMapper extends ThrowableMapperBase {
 
+	@Override
+	public Response toResponse(Throwable e) {
+		Metrics.failure(ThrowableMapper.class.getSimpleName());
+		return super.toResponse(e);
+	}
+
 	@Override
 	protected String getServerName() {
 		return Server.version.getName() + " " + Server.version.getVersion();